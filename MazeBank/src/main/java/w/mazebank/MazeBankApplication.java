@@ -2,8 +2,10 @@ package w.mazebank;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class MazeBankApplication {
     public static void main(String[] args) {
         SpringApplication.run(MazeBankApplication.class, args);
@@ -2,6 +2,9 @@ package w.mazebank.advices;
 
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -20,9 +23,17 @@ import java.util.Map;
 
 @RestControllerAdvice
 public class ApplicationExceptionHandler {
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // every handled exception is counted by its type, exported as mazebank_errors_total
+    private void countError(Exception e) {
+        meterRegistry.counter("mazebank.errors", "exception", e.getClass().getSimpleName()).increment();
+    }
 
     // map errors to a map with a message field
     private Map<String, String> mapErrors(Exception e) {
+        countError(e);
         Map<String, String> errors = new HashMap<>();
         errors.put("message", e.getMessage());
         return errors;
@@ -50,6 +61,7 @@ public class ApplicationExceptionHandler {
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Object> handleInvalidArgument(MethodArgumentNotValidException e) {
+        countError(e);
         Map<String, String> errors = new HashMap<>();
         e.getBindingResult().getFieldErrors().forEach(error -> {
             errors.put("message", error.getDefaultMessage());
@@ -62,6 +74,7 @@ public class ApplicationExceptionHandler {
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<Object> handleJsonErrors(HttpMessageNotReadableException e) {
+        countError(e);
         Map<String, String> errors = new HashMap<>();
         MismatchedInputException cause = (MismatchedInputException) e.getCause();
         if (e.getCause() instanceof InvalidFormatException &&
@@ -120,6 +133,7 @@ public class ApplicationExceptionHandler {
     @ResponseStatus(HttpStatus.UNAUTHORIZED)
     @ExceptionHandler(BadCredentialsException.class)
     public ResponseEntity<Object> handleBadCredentialsException(BadCredentialsException e) {
+        countError(e);
         Map<String, String> errors = new HashMap<>();
         errors.put("message", "Invalid username or password");
         return ResponseHandler.generateErrorResponse(errors, HttpStatus.UNAUTHORIZED);
@@ -160,4 +174,15 @@ public class ApplicationExceptionHandler {
     public ResponseEntity<Object> handleAccountCreationLimitReachedException(AccountCreationLimitReachedException e) {
         return ResponseHandler.generateErrorResponse(mapErrors(e), HttpStatus.BAD_REQUEST);
     }
-}
\ No newline at end of file
+
+    // the queue is full or turned off, Retry-After tells the client when it makes sense to try again
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(TransferQueueUnavailableException.class)
+    public ResponseEntity<Object> handleTransferQueueUnavailableException(TransferQueueUnavailableException e) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE);
+        if (e.getRetryAfter() != null) {
+            builder.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter().toSeconds()));
+        }
+        return builder.body(mapErrors(e));
+    }
+}
@@ -0,0 +1,25 @@
+package w.mazebank.configurations;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import w.mazebank.exceptions.AccountNotFoundException;
+import w.mazebank.services.AccountIdentityCache;
+
+// Looks up the id of the bank's account once the application has started, after DataSeeder ran, so
+// the first deposit or withdrawal doesn't have to.
+@Component
+public class AccountIdentityCacheWarmup {
+    @Autowired
+    private AccountIdentityCache accountIdentityCache;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadBankAccount() {
+        try {
+            accountIdentityCache.getBankAccountId();
+        } catch (AccountNotFoundException e) {
+            // nothing seeded yet, the first atm action loads it
+        }
+    }
+}
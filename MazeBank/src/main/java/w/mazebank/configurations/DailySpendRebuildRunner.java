@@ -0,0 +1,31 @@
+package w.mazebank.configurations;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import w.mazebank.services.DailySpendService;
+
+import java.time.LocalDate;
+
+// Maintenance run that rebuilds today's daily spend ledger from the transactions table when the
+// application starts, for when transactions were written without going through the transfer flow
+// (imports, an older version of the application). Off by default, turn it on for one start with
+// mazebank.daily-spend.rebuild-on-startup=true. Transfers can be booked while it runs.
+@Component
+public class DailySpendRebuildRunner implements ApplicationRunner {
+    @Autowired
+    private DailySpendService dailySpendService;
+
+    @Value("${mazebank.daily-spend.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!rebuildOnStartup) return;
+
+        LocalDate today = LocalDate.now();
+        dailySpendService.rebuild(today, today);
+    }
+}
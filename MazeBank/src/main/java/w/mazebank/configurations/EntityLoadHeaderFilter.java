@@ -0,0 +1,41 @@
+package w.mazebank.configurations;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import w.mazebank.utils.EntityLoadCounter;
+
+import java.io.IOException;
+
+// Adds the number of entities loaded for a request as the X-Entity-Loads header. The response is held
+// back until the request is done, so loads while the response is written are counted as well.
+// Only registered when the query diagnostics are on, and never in the prod profile.
+public class EntityLoadHeaderFilter extends OncePerRequestFilter {
+    public static final String ENTITY_LOADS_HEADER = "X-Entity-Loads";
+
+    private final EntityLoadCounter entityLoadCounter;
+
+    public EntityLoadHeaderFilter(EntityLoadCounter entityLoadCounter) {
+        this.entityLoadCounter = entityLoadCounter;
+    }
+
+    @Override
+    protected void doFilterInternal(
+        @NonNull HttpServletRequest request,
+        @NonNull HttpServletResponse response,
+        @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        ContentCachingResponseWrapper cachedResponse = new ContentCachingResponseWrapper(response);
+        entityLoadCounter.start();
+        try {
+            filterChain.doFilter(request, cachedResponse);
+        } finally {
+            cachedResponse.setHeader(ENTITY_LOADS_HEADER, String.valueOf(entityLoadCounter.stop()));
+            cachedResponse.copyBodyToResponse();
+        }
+    }
+}
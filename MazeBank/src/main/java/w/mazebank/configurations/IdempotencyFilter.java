@@ -0,0 +1,179 @@
+package w.mazebank.configurations;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import w.mazebank.exceptions.IdempotencyKeyInUseException;
+import w.mazebank.exceptions.IdempotencyKeyReusedException;
+import w.mazebank.models.IdempotencyRecord;
+import w.mazebank.models.User;
+import w.mazebank.services.IdempotencyService;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+// Makes the requests that move money safe to retry.
+// When a transfer (direct, queued or a batch), deposit or withdrawal is sent with an Idempotency-Key
+// header it runs once, a retry with the same key gets the response of the first request back (with an
+// Idempotent-Replayed header) instead of booking it again. Requests without the header are not affected.
+// A batch that booked anything (201 or 207) is replayed as well, a retry would book those items again.
+// One that booked nothing (422) frees the key like any other error.
+// Runs after the JwtAuthenticationFilter, keys belong to the authenticated user.
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Pattern IDEMPOTENT_PATHS = Pattern.compile("/transactions(/queued|/batch)?|/accounts/[^/]+/(deposit|withdraw)");
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+            || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+            || !IDEMPOTENT_PATHS.matcher(request.getRequestURI()).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(
+        @NonNull HttpServletRequest request,
+        @NonNull HttpServletResponse response,
+        @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof User user)) {
+            // not authenticated, the rest of the chain rejects the request
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            respondError(response, HttpStatus.BAD_REQUEST.value(), "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        // the body is read here for the hash, the controller reads it again from the copy
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        ContentCachingResponseWrapper cachedResponse = new ContentCachingResponseWrapper(response);
+
+        try {
+            Optional<IdempotencyRecord> stored = idempotencyService.execute(user.getId(), key, hash(cachedRequest), () -> {
+                filterChain.doFilter(cachedRequest, cachedResponse);
+                return IdempotencyRecord.builder()
+                    .responseStatus(cachedResponse.getStatus())
+                    .responseBody(new String(cachedResponse.getContentAsByteArray(), StandardCharsets.UTF_8))
+                    .build();
+            });
+
+            if (stored.isPresent()) {
+                response.setStatus(stored.get().getResponseStatus());
+                response.setHeader(REPLAYED_HEADER, "true");
+                writeJson(response, stored.get().getResponseBody());
+            } else {
+                // only sent now, after the transaction has committed
+                cachedResponse.copyBodyToResponse();
+            }
+        } catch (IdempotencyKeyReusedException e) {
+            respondError(response, HttpStatus.UNPROCESSABLE_ENTITY.value(), e.getMessage());
+        } catch (IdempotencyKeyInUseException e) {
+            respondError(response, HttpStatus.CONFLICT.value(), e.getMessage());
+        }
+    }
+
+    // the same key may only be sent again with the same method, path and body
+    private String hash(CachedBodyRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((request.getMethod() + " " + request.getRequestURI() + "\n").getBytes(StandardCharsets.UTF_8));
+            digest.update(request.body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            // every java runtime has to support sha-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void respondError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        writeJson(response, "{\"message\": \"" + message + "\"}");
+    }
+
+    private void writeJson(HttpServletResponse response, String body) throws IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(body);
+    }
+
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = StreamUtils.copyToByteArray(request.getInputStream());
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // the whole body is in memory already, so it is available and read right away
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws UnsupportedEncodingException {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), encoding));
+        }
+    }
+}
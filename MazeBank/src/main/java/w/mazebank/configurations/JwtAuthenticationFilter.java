@@ -1,7 +1,10 @@
 package w.mazebank.configurations;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,17 +12,19 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import w.mazebank.exceptions.UserNotFoundException;
-import w.mazebank.services.AuthService;
+import w.mazebank.models.User;
+import w.mazebank.models.UserPrincipal;
+import w.mazebank.models.UserState;
 import w.mazebank.services.JwtService;
+import w.mazebank.services.UserPrincipalCache;
+import w.mazebank.services.UserStateService;
 
 import java.io.IOException;
 import io.jsonwebtoken.security.SignatureException;
@@ -32,12 +37,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     @Autowired
     private JwtService jwtService;
+
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
     @Autowired
-    private UserDetailsService userDetailsService;
+    private UserStateService userStateService;
 
     @Autowired
-    @Lazy
-    private AuthService authService;
+    private MeterRegistry meterRegistry;
+
+    // when enabled the principal is built from the token claims and only the (cached) revocation
+    // state is checked, instead of loading the user
+    @Value("${mazebank.security.stateless-auth:false}")
+    private boolean statelessAuth;
 
     @Override
     protected void doFilterInternal(
@@ -45,6 +58,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         @NonNull HttpServletResponse response,
         @NonNull FilterChain filterChain) throws ServletException, IOException {
 
+        // only the authentication itself is timed, not the rest of the filter chain
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String rejection = authenticate(request);
+        String outcome = rejection != null ? "rejected"
+            : SecurityContextHolder.getContext().getAuthentication() != null ? "authenticated" : "anonymous";
+        sample.stop(meterRegistry.timer("mazebank.jwt.authentication", "outcome", outcome));
+
+        if (rejection != null) {
+            respondUnauthorized(response, rejection);
+            return;
+        }
+
+        // continue the filter chain
+        filterChain.doFilter(request, response);
+    }
+
+    // Sets the authentication context from the JWT, returns the message to respond with when the request is rejected
+    private String authenticate(HttpServletRequest request) {
         // get authorization header
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
@@ -54,33 +85,57 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // If the Authorization header is missing or doesn't start with "Bearer "
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
 
-            // if request was made from /auth/** OR /h2, continue the filter chain
-            if (request.getRequestURI().startsWith("/auth/") || request.getRequestURI().startsWith("/h2")){
-                filterChain.doFilter(request, response);
-                return;
+            // if request was made from /auth/**, /h2 OR /actuator/health, continue the filter chain
+            if (request.getRequestURI().startsWith("/auth/") || request.getRequestURI().startsWith("/h2")
+                || request.getRequestURI().equals("/actuator/health")) {
+                return null;
             }
 
-            respondUnauthorized(response, "Unauthorized");
-            return;
+            return "Unauthorized";
         }
 
         try {
             // Extract the JWT from the Authorization header and get the email from the JWT
+            // the token is parsed and verified only once, the claims are reused below
             jwt = authHeader.substring(7);
-            email = jwtService.extractEmail(jwt);
-
-            // If the user is blocked, return that the jwt is invalid
-            if (authService.checkIfUserIsBlocked(email)) {
-                respondUnauthorized(response, "User is blocked");
-                return;
-            }
+            final Claims claims = jwtService.extractValidClaims(jwt);
+            email = claims.getSubject();
 
             // If the JWT is valid, set the authentication context
             if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(email);
+                User userDetails = statelessAuth ? jwtService.extractPrincipal(claims) : null;
+
+                if (userDetails != null) {
+                    UserState state = userStateService.getState(userDetails.getId());
+
+                    // If the user is blocked, return that the jwt is invalid
+                    if (state.isBlocked()) {
+                        return "User is blocked";
+                    }
+
+                    // the token was issued before the user was revoked
+                    if (state.getVersion() != jwtService.extractStateVersion(claims)) {
+                        return "Unauthorized";
+                    }
+                } else {
+                    // the principal is cached, so this only queries the database on a cache miss
+                    UserPrincipal principal = userPrincipalCache.getByEmail(email);
+
+                    // If the user is blocked, return that the jwt is invalid
+                    if (principal.isBlocked()) {
+                        return "User is blocked";
+                    }
+
+                    // the token was issued before the user was revoked
+                    if (principal.getStateVersion() != jwtService.extractStateVersion(claims)) {
+                        return "Unauthorized";
+                    }
+
+                    userDetails = principal.toUser();
+                }
 
                 // If the JWT is valid, set the authentication context
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                if (jwtService.isTokenValid(claims, userDetails)) {
                     UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(
                             userDetails,
@@ -97,11 +152,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 }
             }
 
-            // continue the filter chain
-            filterChain.doFilter(request, response);
+            return null;
         } catch (SignatureException | ExpiredJwtException | MalformedJwtException | UserNotFoundException e) {
             // If there was an error verifying the JWT, return that the jwt is invalid
-            respondUnauthorized(response, "Unauthorized");
+            return "Unauthorized";
         }
     }
 
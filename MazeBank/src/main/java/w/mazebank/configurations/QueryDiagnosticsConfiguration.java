@@ -0,0 +1,58 @@
+package w.mazebank.configurations;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import w.mazebank.utils.EntityLoadCounter;
+import w.mazebank.utils.SlowQueryDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// Turned on with mazebank.diagnostics.enabled=true:
+// - hibernate collects its statistics and logs the metrics of every session
+// - statements slower than mazebank.diagnostics.slow-query-threshold are logged, see SlowQueryDataSource
+// - outside the prod profile every response gets the number of entities it loaded, see EntityLoadHeaderFilter
+@Configuration
+@ConditionalOnProperty(name = "mazebank.diagnostics.enabled", havingValue = "true")
+public class QueryDiagnosticsConfiguration {
+
+    @Bean
+    public EntityLoadCounter entityLoadCounter() {
+        return new EntityLoadCounter();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer diagnosticsHibernateProperties(EntityLoadCounter entityLoadCounter) {
+        return properties -> {
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+            properties.put(AvailableSettings.INTERCEPTOR, entityLoadCounter);
+        };
+    }
+
+    // static, so the data source is wrapped before anything else gets hold of it
+    @Bean
+    public static BeanPostProcessor slowQueryDataSourcePostProcessor(
+        @Value("${mazebank.diagnostics.slow-query-threshold:100ms}") Duration threshold) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof SlowQueryDataSource)) {
+                    return new SlowQueryDataSource(dataSource, threshold);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    @Profile("!prod")
+    public EntityLoadHeaderFilter entityLoadHeaderFilter(EntityLoadCounter entityLoadCounter) {
+        return new EntityLoadHeaderFilter(entityLoadCounter);
+    }
+}
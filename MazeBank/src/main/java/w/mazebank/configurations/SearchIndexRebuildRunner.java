@@ -0,0 +1,61 @@
+package w.mazebank.configurations;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import w.mazebank.models.Account;
+import w.mazebank.repositories.AccountRepository;
+import w.mazebank.repositories.UserRepository;
+import w.mazebank.services.AccountNameIndex;
+
+import java.util.List;
+
+// Fills the in-memory search and name indexes from the database when the application starts. After
+// that they are kept up to date by SearchIndexListener.
+// This runs once every bean is created but before the web server is started and before any
+// ApplicationRunner, so no request or queue worker writes while a batch is being indexed and no
+// search is answered from a half filled index.
+@Component
+public class SearchIndexRebuildRunner implements SmartInitializingSingleton {
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountNameIndex accountNameIndex;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void afterSingletonsInstantiated() {
+        userRepository.rebuildSearchIndex();
+        accountRepository.rebuildSearchIndex();
+        rebuildAccountNameIndex();
+    }
+
+    private void rebuildAccountNameIndex() {
+        accountNameIndex.clear();
+
+        // like SearchIndexedRepository.rebuildSearchIndex, only one batch is in the persistence context at a time
+        long lastId = 0;
+        List<Account> batch;
+        do {
+            batch = accountRepository.findBatchWithUserAfter(lastId, PageRequest.of(0, BATCH_SIZE));
+            for (Account account : batch) {
+                accountNameIndex.putAccount(account);
+                lastId = account.getId();
+            }
+            entityManager.clear();
+        } while (batch.size() == BATCH_SIZE);
+    }
+}
@@ -22,6 +22,8 @@ public class SecurityConfiguration {
     @Autowired
     private  JwtAuthenticationFilter jwtAuthFilter;
     @Autowired
+    private  IdempotencyFilter idempotencyFilter;
+    @Autowired
     private  AuthenticationProvider authenticationProvider;
 
     @Bean
@@ -32,8 +34,11 @@ public class SecurityConfiguration {
             .authorizeHttpRequests()
             .requestMatchers(
                 new AntPathRequestMatcher("/auth/**"),
-                new AntPathRequestMatcher("/h2/**")
+                new AntPathRequestMatcher("/h2/**"),
+                new AntPathRequestMatcher("/actuator/health")
             ).permitAll()
+            // the metrics show request volumes and timings per endpoint, so only employees may scrape them
+            .requestMatchers(new AntPathRequestMatcher("/actuator/prometheus")).hasRole("EMPLOYEE")
             .anyRequest().authenticated()
             .and()
             .sessionManagement()
@@ -41,6 +46,7 @@ public class SecurityConfiguration {
             .and()
             .authenticationProvider(authenticationProvider)
             .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterAfter(idempotencyFilter, JwtAuthenticationFilter.class)
             .headers().frameOptions().disable()
             .and()
             .csrf()
@@ -0,0 +1,117 @@
+package w.mazebank.configurations;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import w.mazebank.exceptions.AccountNotFoundException;
+import w.mazebank.exceptions.InsufficientFundsException;
+import w.mazebank.exceptions.TransactionFailedException;
+import w.mazebank.exceptions.UnauthorizedAccountAccessException;
+import w.mazebank.models.QueuedTransfer;
+import w.mazebank.services.TransferQueueService;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Books the queued transfers in the background once the application has started.
+// Every worker owns a fixed share of the queue partitions and books their transfers one by one in
+// the order they were queued, so two transfers of the same sender are never booked out of order or
+// at the same time. A transfer that is refused is marked failed with the reason, one that fails for
+// another reason is tried again on the next poll and marked failed after max-attempts tries. Until
+// then the later transfers of its sender wait as well. When the database can't be reached the worker
+// stops and starts over on the next poll, without skipping or counting anything.
+@Slf4j
+@Component
+public class TransferQueueWorkers implements ApplicationRunner {
+    private static final int FETCH_SIZE = 100;
+
+    @Autowired
+    private TransferQueueService transferQueueService;
+
+    @Value("${mazebank.transactions.queue.workers:4}")
+    private int workers;
+
+    @Value("${mazebank.transactions.queue.poll-interval:100ms}")
+    private Duration pollInterval;
+
+    private ScheduledExecutorService executor;
+
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    private volatile boolean running;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!transferQueueService.isEnabled()) return;
+
+        running = true;
+        executor = Executors.newScheduledThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "transfer-queue-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int worker = 0; worker < workers; worker++) {
+            int partition = worker;
+            executor.scheduleWithFixedDelay(() -> drain(partition), 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    // books everything that is queued for this worker
+    void drain(int worker) {
+        try {
+            // senders with a transfer that is left for the next poll, their later transfers wait for it
+            Set<String> heldBack = new HashSet<>();
+            List<QueuedTransfer> transfers;
+            do {
+                transfers = transferQueueService.findQueued(worker, workers, FETCH_SIZE);
+                for (QueuedTransfer transfer : transfers) {
+                    if (!running) return;
+                    if (heldBack.contains(transfer.getSenderIban())) continue;
+                    if (!process(transfer)) heldBack.add(transfer.getSenderIban());
+                }
+                // fetching again would return the held back transfers and use up their attempts right away
+            } while (transfers.size() == FETCH_SIZE && heldBack.isEmpty());
+        } catch (RuntimeException e) {
+            // the transfer stays queued and is tried again on the next poll
+            log.warn("Booking queued transfers failed, retrying in {}", pollInterval, e);
+        }
+    }
+
+    // false when the transfer is still queued to be tried again
+    private boolean process(QueuedTransfer transfer) {
+        try {
+            transferQueueService.book(transfer);
+        } catch (TransactionFailedException | AccountNotFoundException | InsufficientFundsException | UnauthorizedAccountAccessException e) {
+            transferQueueService.fail(transfer, e.getMessage());
+        } catch (TransientDataAccessException | DataAccessResourceFailureException | CannotCreateTransactionException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // a bug or bad data, without a limit this transfer would block its partition for good
+            log.warn("Booking queued transfer {} failed", transfer.getId(), e);
+            return transferQueueService.retryOrFail(transfer, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+        return true;
+    }
+}
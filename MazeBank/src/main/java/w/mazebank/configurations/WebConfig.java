@@ -4,6 +4,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import w.mazebank.utils.ResponseHandler;
 
 // allow cors, zodat vue app kan communiceren met backend
 @Configuration
@@ -12,6 +13,7 @@ public class WebConfig implements WebMvcConfigurer {
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
-            .allowedMethods("*");
+            .allowedMethods("*")
+            .exposedHeaders(ResponseHandler.NEXT_CURSOR_HEADER, EntityLoadHeaderFilter.ENTITY_LOADS_HEADER);
     }
 }
\ No newline at end of file
@@ -1,7 +1,6 @@
 package w.mazebank.controllers;
 
 import jakarta.validation.Valid;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -19,6 +18,8 @@ import w.mazebank.models.responses.IbanResponse;
 import w.mazebank.models.responses.LockedResponse;
 import w.mazebank.models.responses.TransactionResponse;
 import w.mazebank.services.AccountServiceJpa;
+import w.mazebank.utils.ResponseHandler;
+import w.mazebank.utils.ResponseMapper;
 
 import java.util.List;
 
@@ -28,8 +29,6 @@ public class AccountController {
     @Autowired
     private AccountServiceJpa accountServiceJpa;
 
-    private final ModelMapper mapper = new ModelMapper();
-
     @GetMapping
     @Secured("ROLE_EMPLOYEE")
     public ResponseEntity<Object> getAllAccounts(
@@ -54,7 +53,7 @@ public class AccountController {
         @AuthenticationPrincipal User user
     ) throws AccountNotFoundException {
         Account account = accountServiceJpa.getAccountAndValidate(accountId, user);
-        return ResponseEntity.ok(mapper.map(account, AccountResponse.class));
+        return ResponseEntity.ok(ResponseMapper.toAccountResponse(account));
     }
 
     @PostMapping
@@ -96,14 +95,19 @@ public class AccountController {
         return ResponseEntity.ok(new LockedResponse(false));
     }
 
+    // pass a cursor (empty for the first page) to page with X-Next-Cursor instead of page numbers
     @GetMapping("/{accountId}/transactions")
-    public ResponseEntity<Object> getAllTransactionsByAccountId(
+    public ResponseEntity<List<TransactionResponse>> getAllTransactionsByAccountId(
         @PathVariable Long accountId,
         @RequestParam(defaultValue = "0") int pageNumber,
         @RequestParam(defaultValue = "10") int pageSize,
         @RequestParam(defaultValue = "desc") String sort,
+        @RequestParam(required = false) String cursor,
         @AuthenticationPrincipal User user
-    ) throws AccountNotFoundException {
+    ) throws AccountNotFoundException, InvalidCursorException {
+        if (cursor != null) {
+            return ResponseHandler.generateTransactionPageResponse(accountServiceJpa.getTransactionPageFromAccount(cursor, pageSize, sort, user, accountId));
+        }
         return ResponseEntity.ok(accountServiceJpa.getTransactionsFromAccount(pageNumber, pageSize, sort, user, accountId));
     }
 }
@@ -5,16 +5,29 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import w.mazebank.exceptions.AccountAbsoluteLimitReachedException;
 import w.mazebank.exceptions.AccountNotFoundException;
+import w.mazebank.exceptions.BadRequestException;
 import w.mazebank.exceptions.InsufficientFundsException;
 import w.mazebank.exceptions.TransactionFailedException;
 import w.mazebank.exceptions.TransactionNotFoundException;
+import w.mazebank.exceptions.TransferQueueUnavailableException;
 import w.mazebank.models.User;
+import w.mazebank.models.requests.BatchTransactionRequest;
 import w.mazebank.models.requests.TransactionRequest;
+import w.mazebank.models.responses.BatchTransactionResponse;
+import w.mazebank.models.responses.QueuedTransferResponse;
 import w.mazebank.models.responses.TransactionResponse;
+import w.mazebank.models.responses.TransactionRuleResponse;
+import w.mazebank.services.TransactionRuleEngine;
 import w.mazebank.services.TransactionServiceJpa;
+import w.mazebank.services.TransferQueueService;
+
+import java.net.URI;
+import java.util.List;
 
 @RestController
 @RequestMapping("/transactions")
@@ -23,6 +36,19 @@ public class TransactionController {
     @Autowired
     private TransactionServiceJpa transactionServiceJpa;
 
+    @Autowired
+    private TransferQueueService transferQueueService;
+
+    @Autowired
+    private TransactionRuleEngine transactionRuleEngine;
+
+    // how often each validation rule ran and rejected a transaction, cheapest rules first
+    @GetMapping("/rules")
+    @Secured("ROLE_EMPLOYEE")
+    public ResponseEntity<List<TransactionRuleResponse>> getTransactionRules() {
+        return ResponseEntity.ok(transactionRuleEngine.getStatistics());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<TransactionResponse> getTransactionById(@PathVariable Long id, @AuthenticationPrincipal User userPerforming)
         throws TransactionNotFoundException {
@@ -34,4 +60,30 @@ public class TransactionController {
         throws TransactionFailedException, InsufficientFundsException, AccountNotFoundException {
         return ResponseEntity.status(HttpStatus.CREATED).body(transactionServiceJpa.postTransaction(transactionRequest, userPerforming));
     }
-}
\ No newline at end of file
+
+    // 201 when every transfer was booked, 207 when only some were and 422 when none were
+    @PostMapping("/batch")
+    public ResponseEntity<BatchTransactionResponse> createTransactions(@RequestBody @Valid BatchTransactionRequest batchRequest, @AuthenticationPrincipal User userPerforming)
+        throws BadRequestException, AccountAbsoluteLimitReachedException {
+        BatchTransactionResponse response = transactionServiceJpa.postTransactions(batchRequest, userPerforming);
+
+        HttpStatus status = HttpStatus.MULTI_STATUS;
+        if (response.getFailed() == 0) status = HttpStatus.CREATED;
+        if (response.getCreated() == 0) status = HttpStatus.UNPROCESSABLE_ENTITY;
+        return ResponseEntity.status(status).body(response);
+    }
+
+    // accepts the transfer to be booked in the background, the result can be polled at the location
+    @PostMapping("/queued")
+    public ResponseEntity<QueuedTransferResponse> queueTransaction(@RequestBody @Valid TransactionRequest transactionRequest, @AuthenticationPrincipal User userPerforming)
+        throws TransferQueueUnavailableException, TransactionFailedException {
+        QueuedTransferResponse response = transferQueueService.enqueue(transactionRequest, userPerforming);
+        return ResponseEntity.accepted().location(URI.create("/transactions/queued/" + response.getId())).body(response);
+    }
+
+    @GetMapping("/queued/{id}")
+    public ResponseEntity<QueuedTransferResponse> getQueuedTransaction(@PathVariable Long id, @AuthenticationPrincipal User userPerforming)
+        throws TransactionNotFoundException {
+        return ResponseEntity.ok(transferQueueService.getQueuedTransfer(id, userPerforming));
+    }
+}
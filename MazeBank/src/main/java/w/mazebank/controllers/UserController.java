@@ -9,12 +9,15 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import w.mazebank.exceptions.AccountNotFoundException;
 import w.mazebank.exceptions.DisallowedFieldException;
+import w.mazebank.exceptions.InvalidCursorException;
 import w.mazebank.exceptions.UserHasAccountsException;
 import w.mazebank.exceptions.UserNotFoundException;
 import w.mazebank.models.User;
 import w.mazebank.models.requests.UserPatchRequest;
 import w.mazebank.models.responses.*;
 import w.mazebank.services.UserServiceJpa;
+import w.mazebank.utils.ResponseHandler;
+import w.mazebank.utils.ResponseMapper;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -39,22 +42,7 @@ public class UserController {
     }
 
     private ResponseEntity<FullUserResponse> parseUserToFullUserResponse(User user) {
-        FullUserResponse fullUserResponse = FullUserResponse.builder()
-            .id(user.getId())
-            .email(user.getEmail())
-            .bsn(user.getBsn())
-            .firstName(user.getFirstName())
-            .lastName(user.getLastName())
-            .phoneNumber(user.getPhoneNumber())
-            .role(user.getRole().toString())
-            .dateOfBirth(user.getDateOfBirth() != null ? user.getDateOfBirth().toString() : null)
-            .createdAt(user.getCreatedAt() != null ? user.getCreatedAt().toString() : null)
-            .dayLimit(user.getDayLimit())
-            .transactionLimit(user.getTransactionLimit())
-            .amountRemaining(user.getAmountRemaining())
-            .blocked(user.isBlocked())
-            .build();
-        return ResponseEntity.ok(fullUserResponse);
+        return ResponseEntity.ok(ResponseMapper.toFullUserResponse(user, userService.getAmountRemaining(user)));
     }
 
     @DeleteMapping("/{id}")
@@ -111,8 +99,14 @@ public class UserController {
         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
         @RequestParam(required = false) Double maxAmount,
         @RequestParam(required = false) Double minAmount,
-        @RequestParam(required = false) Double amount
-    ) throws UserNotFoundException {
+        @RequestParam(required = false) Double amount,
+        @RequestParam(required = false) String cursor
+    ) throws UserNotFoundException, InvalidCursorException {
+        // pass a cursor (empty for the first page) to page with X-Next-Cursor instead of page numbers
+        if (cursor != null) {
+            return ResponseHandler.generateTransactionPageResponse(userService.getTransactionPageByUserId(userId, user, cursor, pageSize, sort, fromIban, toIban, startDate, endDate, maxAmount, minAmount, amount));
+        }
+
         List<TransactionResponse> transactionResponses = userService.getTransactionsByUserId(userId, user, pageNumber, pageSize, sort, fromIban, toIban, startDate, endDate, maxAmount, minAmount, amount);
         return ResponseEntity.ok(transactionResponses);
     }
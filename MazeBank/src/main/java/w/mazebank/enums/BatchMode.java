@@ -0,0 +1,8 @@
+package w.mazebank.enums;
+
+public enum BatchMode {
+    // nothing is booked when one of the transfers fails
+    ALL_OR_NOTHING,
+    // the valid transfers are booked, the others are reported as failed
+    BEST_EFFORT
+}
@@ -0,0 +1,7 @@
+package w.mazebank.enums;
+
+public enum QueuedTransferStatus {
+    QUEUED,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,9 @@
+package w.mazebank.enums;
+
+// What it costs to evaluate a transaction rule, the rule engine runs the cheaper classes first
+public enum RuleCost {
+    // only looks at the transaction and the entities it references
+    IN_MEMORY,
+    // may have to query the database
+    DATABASE
+}
@@ -0,0 +1,7 @@
+package w.mazebank.exceptions;
+
+public class IdempotencyKeyInUseException extends Exception {
+    public IdempotencyKeyInUseException(String message) {
+        super(message);
+    }
+}
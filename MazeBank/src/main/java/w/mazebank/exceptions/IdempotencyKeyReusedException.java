@@ -0,0 +1,7 @@
+package w.mazebank.exceptions;
+
+public class IdempotencyKeyReusedException extends Exception {
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package w.mazebank.exceptions;
+
+public class InvalidCursorException extends BadRequestException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
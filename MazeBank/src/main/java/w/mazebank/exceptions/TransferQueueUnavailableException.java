@@ -0,0 +1,16 @@
+package w.mazebank.exceptions;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class TransferQueueUnavailableException extends Exception {
+    // when the client can try again, null when trying again won't help
+    private final Duration retryAfter;
+
+    public TransferQueueUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
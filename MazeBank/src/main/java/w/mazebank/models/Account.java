@@ -8,6 +8,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import w.mazebank.enums.AccountType;
+import w.mazebank.repositories.SearchIndexListener;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -18,9 +19,11 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "accounts")
+@EntityListeners(SearchIndexListener.class)
 public class Account {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_seq")
+    @SequenceGenerator(name = "accounts_seq", sequenceName = "accounts_seq", allocationSize = 50)
     private long id;
 
     @Column(unique = true)
@@ -29,9 +32,10 @@ public class Account {
     @Enumerated(EnumType.ORDINAL)
     private AccountType accountType;
 
-    private double balance;
+    @Builder.Default
+    private Money balance = Money.ZERO;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
@@ -40,8 +44,8 @@ public class Account {
     @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
 
-    @Column(columnDefinition = "double default 0")
-    private double absoluteLimit;
+    @Builder.Default
+    private Money absoluteLimit = Money.ZERO;
 
     @OneToMany(mappedBy = "sender", cascade = CascadeType.ALL)
     @JsonBackReference
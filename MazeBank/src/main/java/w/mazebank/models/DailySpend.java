@@ -0,0 +1,36 @@
+package w.mazebank.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// Running total of what an account sent to other customers on a single day.
+// Kept up to date in the same database transaction as the transfer, so the day limit
+// check is a single keyed read instead of an aggregation over the transactions table.
+@Entity
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(
+    name = "daily_spend",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "spend_date"})
+)
+public class DailySpend {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "daily_spend_seq")
+    @SequenceGenerator(name = "daily_spend_seq", sequenceName = "daily_spend_seq", allocationSize = 50)
+    private long id;
+
+    @Column(name = "account_id", nullable = false)
+    private long accountId;
+
+    @Column(name = "spend_date", nullable = false)
+    private LocalDate spendDate;
+
+    private Money amount;
+}
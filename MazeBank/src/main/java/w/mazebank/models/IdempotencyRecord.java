@@ -0,0 +1,39 @@
+package w.mazebank.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// The response to a request that was sent with an Idempotency-Key header.
+// A retry with the same key gets this response again instead of running the request a second time.
+// The id is the user id and the key together (see IdempotencyService.idFor), keys of different
+// users never clash.
+@Entity
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "idempotency_keys")
+public class IdempotencyRecord {
+    @Id
+    private String id;
+
+    @Column(name = "user_id")
+    private long userId;
+
+    // sha-256 of the method, path and body, a key can only be reused for the same request
+    private String requestHash;
+
+    private Integer responseStatus;
+
+    @Lob
+    private String responseBody;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime expiresAt;
+}
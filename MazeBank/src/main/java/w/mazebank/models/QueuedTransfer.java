@@ -0,0 +1,53 @@
+package w.mazebank.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import w.mazebank.enums.QueuedTransferStatus;
+
+import java.time.LocalDateTime;
+
+// A transfer that was accepted to be booked later, see TransferQueueService.
+// Once it is booked it points to the transaction that was created for it, or tells why it failed.
+@Entity
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "queued_transfers")
+public class QueuedTransfer {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "queued_transfers_seq")
+    @SequenceGenerator(name = "queued_transfers_seq", sequenceName = "queued_transfers_seq", allocationSize = 50)
+    private long id;
+
+    private String senderIban;
+
+    private String receiverIban;
+
+    private Money amount;
+
+    private String description;
+
+    @Column(name = "user_performing_id")
+    private long userPerformingId;
+
+    // derived from the sender iban, the transfers of one partition are booked one after another
+    private int partitionKey;
+
+    @Enumerated(EnumType.ORDINAL)
+    private QueuedTransferStatus status;
+
+    private Long transactionId;
+
+    private String failureMessage;
+
+    // failed bookings so far that may succeed when tried again
+    private int attempts;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime processedAt;
+}
@@ -18,12 +18,13 @@ import java.time.LocalDateTime;
 @Table(name = "transactions")
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private long id;
 
     private String description;
 
-    private double amount;
+    private Money amount;
 
     @ManyToOne
     @JoinColumn(name = "user_performing_id")
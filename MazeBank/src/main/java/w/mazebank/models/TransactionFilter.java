@@ -0,0 +1,96 @@
+package w.mazebank.models;
+
+import lombok.Builder;
+import lombok.Value;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// The filters of a transaction search, built once per request.
+// Immutable, so it can never leak filters from one request into another; every condition that is
+// null is left out of the query.
+@Value
+@Builder
+public class TransactionFilter {
+    String fromIban;
+    String toIban;
+    LocalDate startDate;
+    LocalDate endDate;
+    Money maxAmount;
+    Money minAmount;
+    Money amount;
+
+    // only transactions this user sent or received
+    Long participantUserId;
+
+    public Specification<Transaction> toSpecification() {
+        return toSearchSpecification().and(participantCondition());
+    }
+
+    // the same search without the participant, for when the participant's accounts are looked up
+    // first and each of them is read on its own account index
+    public Specification<Transaction> toSearchSpecification() {
+        return Specification.where(fromIbanCondition())
+            .and(toIbanCondition())
+            .and(startDateCondition())
+            .and(endDateCondition())
+            .and(maxAmountCondition())
+            .and(minAmountCondition())
+            .and(amountCondition());
+    }
+
+    private Specification<Transaction> fromIbanCondition() {
+        if (fromIban == null) return null;
+        String pattern = "%" + fromIban.toLowerCase() + "%";
+        return (root, query, criteriaBuilder) ->
+            criteriaBuilder.like(criteriaBuilder.lower(root.get("sender").get("iban")), pattern);
+    }
+
+    private Specification<Transaction> toIbanCondition() {
+        if (toIban == null) return null;
+        String pattern = "%" + toIban.toLowerCase() + "%";
+        return (root, query, criteriaBuilder) ->
+            criteriaBuilder.like(criteriaBuilder.lower(root.get("receiver").get("iban")), pattern);
+    }
+
+    private Specification<Transaction> startDateCondition() {
+        if (startDate == null) return null;
+        return (root, query, criteriaBuilder) ->
+            criteriaBuilder.greaterThanOrEqualTo(root.get("timestamp"), startDate.atStartOfDay());
+    }
+
+    private Specification<Transaction> endDateCondition() {
+        if (endDate == null) return null;
+        return (root, query, criteriaBuilder) ->
+            criteriaBuilder.lessThanOrEqualTo(root.get("timestamp"), endDate.atTime(LocalTime.MAX));
+    }
+
+    private Specification<Transaction> maxAmountCondition() {
+        if (maxAmount == null) return null;
+        return (root, query, criteriaBuilder) ->
+            criteriaBuilder.lessThanOrEqualTo(root.get("amount"), maxAmount);
+    }
+
+    private Specification<Transaction> minAmountCondition() {
+        if (minAmount == null) return null;
+        return (root, query, criteriaBuilder) ->
+            criteriaBuilder.greaterThanOrEqualTo(root.get("amount"), minAmount);
+    }
+
+    private Specification<Transaction> amountCondition() {
+        if (amount == null) return null;
+        return (root, query, criteriaBuilder) ->
+            criteriaBuilder.equal(root.get("amount"), amount);
+    }
+
+    private Specification<Transaction> participantCondition() {
+        if (participantUserId == null) return null;
+        // compare the user ids of both accounts, so the accounts of the user don't have to be loaded first
+        return (root, query, criteriaBuilder) ->
+            criteriaBuilder.or(
+                criteriaBuilder.equal(root.get("sender").get("user").get("id"), participantUserId),
+                criteriaBuilder.equal(root.get("receiver").get("user").get("id"), participantUserId)
+            );
+    }
+}
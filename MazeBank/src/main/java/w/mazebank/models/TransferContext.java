@@ -0,0 +1,12 @@
+package w.mazebank.models;
+
+import lombok.Value;
+
+// Everything the validations of a transfer read, loaded in one query after the accounts are locked:
+// both accounts with their owners and what the sender already sent to other customers today.
+@Value
+public class TransferContext {
+    Account sender;
+    Account receiver;
+    Money senderSpentToday;
+}
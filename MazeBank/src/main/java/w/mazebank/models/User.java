@@ -10,6 +10,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import w.mazebank.enums.RoleType;
+import w.mazebank.repositories.SearchIndexListener;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -22,9 +23,11 @@ import java.util.List;
 @NoArgsConstructor
 @Builder
 @Table(name = "users")
+@EntityListeners(SearchIndexListener.class)
 public class User implements UserDetails {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private long id;
 
     @Column(unique = true)
@@ -51,10 +54,10 @@ public class User implements UserDetails {
     private LocalDateTime createdAt = LocalDateTime.now();
 
     @Builder.Default
-    private double dayLimit = 5000.00;
+    private Money dayLimit = Money.of(5000);
 
     @Builder.Default
-    private double transactionLimit = 2000;
+    private Money transactionLimit = Money.of(2000);
 
     private boolean blocked;
 
@@ -97,17 +100,4 @@ public class User implements UserDetails {
         return true;
     }
 
-    public double getAmountRemaining() {
-        double amountRemaining = dayLimit;
-        if (accounts == null) return amountRemaining;
-        for (Account account : accounts) {
-            for (Transaction transaction : account.getSentTransactions()) {
-                if (transaction.getTimestamp().toLocalDate().equals(LocalDateTime.now().toLocalDate())) {
-                    amountRemaining -= transaction.getAmount();
-                }
-            }
-        }
-        return amountRemaining;
-    }
-
 }
\ No newline at end of file
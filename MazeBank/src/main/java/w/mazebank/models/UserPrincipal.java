@@ -0,0 +1,24 @@
+package w.mazebank.models;
+
+import lombok.Value;
+import w.mazebank.enums.RoleType;
+
+// What the JWT filter needs to know about a user to authenticate a request, see UserPrincipalCache.
+// It is immutable so a cached principal can be shared between requests, every request gets its own User from it.
+@Value
+public class UserPrincipal {
+    long id;
+    String email;
+    RoleType role;
+    boolean blocked;
+    long stateVersion;
+
+    // only id, email and role are filled in, like the principal of a stateless token
+    public User toUser() {
+        return User.builder()
+            .id(id)
+            .email(email)
+            .role(role)
+            .build();
+    }
+}
@@ -0,0 +1,27 @@
+package w.mazebank.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Revocation state of a user for stateless authentication.
+// Every token carries the version it was issued with; blocking, unblocking, changing the email or
+// deleting the user raises the version, which makes all tokens issued before that invalid.
+// Users without a row are on version 0.
+@Entity
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "user_states")
+public class UserState {
+    @Id
+    @Column(name = "user_id")
+    private long userId;
+
+    private long version;
+
+    private boolean blocked;
+}
@@ -0,0 +1,24 @@
+package w.mazebank.models.requests;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import w.mazebank.enums.BatchMode;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransactionRequest {
+    @NotNull(message = "Mode cannot be null")
+    private BatchMode mode;
+
+    @NotEmpty(message = "Transactions cannot be empty")
+    private List<@Valid TransactionRequest> transactions;
+}
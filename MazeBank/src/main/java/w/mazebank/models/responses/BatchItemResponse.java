@@ -0,0 +1,24 @@
+package w.mazebank.models.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResponse {
+    public static final String CREATED = "CREATED";
+    public static final String FAILED = "FAILED";
+    // valid, but not booked because another transfer of an all or nothing batch failed
+    public static final String NOT_EXECUTED = "NOT_EXECUTED";
+
+    private int index;
+    private String status;
+    private TransactionResponse transaction;
+    private String message;
+}
@@ -0,0 +1,21 @@
+package w.mazebank.models.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransactionResponse {
+    private String mode;
+    private int created;
+    private int failed;
+
+    // one result per transfer of the request, in the same order
+    private List<BatchItemResponse> results;
+}
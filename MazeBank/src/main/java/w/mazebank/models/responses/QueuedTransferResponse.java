@@ -0,0 +1,26 @@
+package w.mazebank.models.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class QueuedTransferResponse {
+    private Long id;
+    private String status;
+    private double amount;
+    private String sender;
+    private String receiver;
+    private String createdAt;
+    // set once the transfer is booked
+    private Long transactionId;
+    // set when the transfer could not be booked
+    private String message;
+    private String processedAt;
+}
@@ -0,0 +1,19 @@
+package w.mazebank.models.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionPageResponse {
+    private List<TransactionResponse> transactions;
+
+    // cursor of the next page, null when this is the last page
+    private String nextCursor;
+}
@@ -0,0 +1,19 @@
+package w.mazebank.models.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionRuleResponse {
+    private String name;
+    private String cost;
+    // since the application started
+    private long evaluations;
+    private long rejections;
+    private double averageMicros;
+}
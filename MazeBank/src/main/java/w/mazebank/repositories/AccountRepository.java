@@ -1,41 +1,107 @@
 package w.mazebank.repositories;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import w.mazebank.models.Account;
+import w.mazebank.models.Money;
+import w.mazebank.models.TransferContext;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AccountRepository extends BaseRepository<Account, Long, JpaSpecificationExecutor<Account>> {
+public interface AccountRepository extends BaseRepository<Account, Long, JpaSpecificationExecutor<Account>>, AccountSearchRepository {
     Optional<Account> findByIban(String iban);
 
-    @Override
-    @Query("SELECT a FROM Account a WHERE a.iban LIKE %?1%")
-    List<Account> findBySearchString(String search, Pageable pageable);
-
-    @Query("""
-            SELECT a FROM Account a
-            WHERE
-               LOWER(a.user.firstName) LIKE LOWER(CONCAT('%', :name,'%')) OR
-               LOWER(a.user.lastName) LIKE LOWER(CONCAT('%', :name,'%'))
-        """)
-    List<Account> findAccountsByOneName(@Param("name") String name);
-
-    @Query("""
-            SELECT a FROM Account a
-            WHERE
-                LOWER(a.user.firstName) LIKE LOWER(CONCAT('%', :firstName,'%')) AND
-                LOWER(a.user.lastName) LIKE LOWER(CONCAT('%', :lastName,'%'))
-        """)
-    List<Account> findAccountsByFirstNameAndLastName(@Param("firstName") String firstName, @Param("lastName") String lastName);
+    @Query("SELECT a.id FROM Account a WHERE a.iban = :iban")
+    Optional<Long> findIdByIban(@Param("iban") String iban);
+
+    // both accounts of a transfer with their owners and the sender's daily spend in one round trip,
+    // the row locking variant also holds the database locks until the transaction completes
+    default Optional<TransferContext> findTransferContext(long senderId, long receiverId, LocalDate today, boolean forUpdate) {
+        List<Object[]> rows = forUpdate
+            ? findTransferContextRowsForUpdate(senderId, receiverId, today)
+            : findTransferContextRows(senderId, receiverId, today);
+
+        return rows.stream().findFirst().map(row -> new TransferContext(
+            (Account) row[0],
+            (Account) row[1],
+            row[2] == null ? Money.ZERO : (Money) row[2]
+        ));
+    }
+
+    // the owners are selected instead of fetch joined, hibernate mixes up two fetches of the same
+    // association in one query. Being in the persistence context, getUser() still resolves without a query
+    String TRANSFER_CONTEXT = """
+            SELECT s, r, d.amount, su, ru FROM Account s
+            JOIN s.user su
+            LEFT JOIN DailySpend d ON d.accountId = s.id AND d.spendDate = :today,
+            Account r
+            JOIN r.user ru
+            WHERE s.id = :senderId AND r.id = :receiverId
+        """;
+
+    @Query(TRANSFER_CONTEXT)
+    List<Object[]> findTransferContextRows(@Param("senderId") long senderId, @Param("receiverId") long receiverId, @Param("today") LocalDate today);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(TRANSFER_CONTEXT)
+    List<Object[]> findTransferContextRowsForUpdate(@Param("senderId") long senderId, @Param("receiverId") long receiverId, @Param("today") LocalDate today);
+
+    // ids only, so the accounts can be locked before they are loaded into the persistence context
+    @Query("SELECT a.id FROM Account a WHERE a.iban IN :ibans")
+    List<Long> findIdsByIbanIn(@Param("ibans") Collection<String> ibans);
+
+    // the ids of a user's accounts, their transactions are then read per account on its own indexes
+    @Query("SELECT a.id FROM Account a WHERE a.user.id = :userId")
+    List<Long> findIdsByUserId(@Param("userId") long userId);
+
+    // locks the account's row until the transaction completes, like the transfer context does
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Optional<Account> findByIdForUpdate(@Param("id") long id);
+
+    @EntityGraph(attributePaths = "user")
+    List<Account> findByIbanIn(Collection<String> ibans);
+
+    // next batch of accounts with their holders in id order, used to fill the account name index
+    @Query("SELECT a FROM Account a JOIN FETCH a.user WHERE a.id > :lastId ORDER BY a.id")
+    List<Account> findBatchWithUserAfter(@Param("lastId") long lastId, Pageable pageable);
 
     @Override
+    @EntityGraph(attributePaths = "user")
     @Query("SELECT a FROM Account a WHERE a.iban <> 'NL01INHO0000000001'")
     Page<Account> findAll(Pageable pageable);
+
+    // subtracts the amount in the database, but only when the balance stays above the absolute limit
+    // returns the number of updated rows, 0 means the absolute limit would have been crossed
+    default int debitBalance(long id, Money amount) {
+        return debitBalanceInCents(id, amount.getCents());
+    }
+
+    default int creditBalance(long id, Money amount) {
+        return creditBalanceInCents(id, amount.getCents());
+    }
+
+    // hibernate can't do arithmetic on converted attributes, so these work on the cents columns directly
+    @Modifying
+    @Query(value = """
+            UPDATE accounts SET balance = balance - :cents
+            WHERE id = :id AND balance - :cents >= absolute_limit
+        """, nativeQuery = true)
+    int debitBalanceInCents(@Param("id") long id, @Param("cents") long cents);
+
+    @Modifying
+    @Query(value = "UPDATE accounts SET balance = balance + :cents WHERE id = :id", nativeQuery = true)
+    int creditBalanceInCents(@Param("id") long id, @Param("cents") long cents);
 }
\ No newline at end of file
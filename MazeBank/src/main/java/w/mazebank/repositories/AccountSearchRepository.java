@@ -0,0 +1,20 @@
+package w.mazebank.repositories;
+
+import org.springframework.data.domain.Pageable;
+import w.mazebank.models.Account;
+
+import java.util.List;
+
+public interface AccountSearchRepository {
+    // accounts with the search string in their iban
+    List<Account> findBySearchString(String search, Pageable pageable);
+
+    // ids of all accounts with the search string in their iban, in id order
+    List<Long> findIdsBySearchString(String search);
+
+    void addToSearchIndex(Account account);
+
+    void removeFromSearchIndex(Account account);
+
+    void rebuildSearchIndex();
+}
@@ -0,0 +1,31 @@
+package w.mazebank.repositories;
+
+import w.mazebank.models.Account;
+
+import java.util.List;
+
+public class AccountSearchRepositoryImpl extends SearchIndexedRepository<Account> implements AccountSearchRepository {
+    public AccountSearchRepositoryImpl() {
+        super(Account.class);
+    }
+
+    @Override
+    protected long idOf(Account account) {
+        return account.getId();
+    }
+
+    @Override
+    protected List<String> searchValues(Account account) {
+        return List.of(account.getIban());
+    }
+
+    @Override
+    protected String fetchJoins() {
+        return "JOIN FETCH e.user";
+    }
+
+    @Override
+    public List<Long> findIdsBySearchString(String search) {
+        return searchIds(search);
+    }
+}
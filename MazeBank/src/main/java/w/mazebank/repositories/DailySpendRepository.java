@@ -0,0 +1,59 @@
+package w.mazebank.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import w.mazebank.models.DailySpend;
+import w.mazebank.models.Money;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DailySpendRepository extends JpaRepository<DailySpend, Long> {
+    @Query("SELECT d.amount FROM DailySpend d WHERE d.accountId = :accountId AND d.spendDate = :spendDate")
+    Optional<Money> findAmount(@Param("accountId") long accountId, @Param("spendDate") LocalDate spendDate);
+
+    // what all accounts of a user sent to other customers on the given day
+    default Money sumAmountForUser(long userId, LocalDate spendDate) {
+        return Money.ofCents(sumCentsForUser(userId, spendDate));
+    }
+
+    // returns the number of updated rows, 0 means there is no entry for this account and day yet
+    default int addToAmount(long accountId, LocalDate spendDate, Money amount) {
+        return addCentsToAmount(accountId, spendDate, amount.getCents());
+    }
+
+    // hibernate can't do arithmetic on converted attributes, so these work on the cents column directly
+    @Query(value = """
+            SELECT COALESCE(SUM(d.amount), 0) FROM daily_spend d
+            JOIN accounts a ON a.id = d.account_id
+            WHERE d.spend_date = :spendDate AND a.user_id = :userId
+        """, nativeQuery = true)
+    long sumCentsForUser(@Param("userId") long userId, @Param("spendDate") LocalDate spendDate);
+
+    @Modifying
+    @Query(value = """
+            UPDATE daily_spend SET amount = amount + :cents
+            WHERE account_id = :accountId AND spend_date = :spendDate
+        """, nativeQuery = true)
+    int addCentsToAmount(@Param("accountId") long accountId, @Param("spendDate") LocalDate spendDate, @Param("cents") long cents);
+
+    @Query("SELECT d.accountId FROM DailySpend d WHERE d.spendDate = :spendDate")
+    List<Long> findAccountIds(@Param("spendDate") LocalDate spendDate);
+
+    // returns the number of updated rows, 0 means there is no entry for this account and day yet
+    default int setAmount(long accountId, LocalDate spendDate, Money amount) {
+        return setCentsAmount(accountId, spendDate, amount.getCents());
+    }
+
+    @Modifying
+    @Query(value = """
+            UPDATE daily_spend SET amount = :cents
+            WHERE account_id = :accountId AND spend_date = :spendDate
+        """, nativeQuery = true)
+    int setCentsAmount(@Param("accountId") long accountId, @Param("spendDate") LocalDate spendDate, @Param("cents") long cents);
+}
@@ -0,0 +1,39 @@
+package w.mazebank.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import w.mazebank.models.IdempotencyRecord;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    @Query("SELECT r FROM IdempotencyRecord r WHERE r.id = :id AND r.expiresAt > :now")
+    Optional<IdempotencyRecord> findUnexpired(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    // inserted straight away instead of on flush: while the transaction that inserted a key is open
+    // the database makes every other insert of that key wait for it, and fails it once it commits
+    @Modifying
+    @Query(value = """
+            INSERT INTO idempotency_keys (id, user_id, request_hash, created_at, expires_at)
+            VALUES (:id, :userId, :requestHash, :now, :expiresAt)
+        """, nativeQuery = true)
+    void claim(@Param("id") String id, @Param("userId") long userId, @Param("requestHash") String requestHash,
+               @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.responseStatus = :status, r.responseBody = :body WHERE r.id = :id")
+    int complete(@Param("id") String id, @Param("status") int status, @Param("body") String body);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.expiresAt <= :now")
+    int deleteIfExpired(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt <= :now")
+    int deleteAllExpired(@Param("now") LocalDateTime now);
+}
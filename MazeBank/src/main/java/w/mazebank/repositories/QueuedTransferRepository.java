@@ -0,0 +1,49 @@
+package w.mazebank.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import w.mazebank.enums.QueuedTransferStatus;
+import w.mazebank.models.QueuedTransfer;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface QueuedTransferRepository extends JpaRepository<QueuedTransfer, Long> {
+    // the oldest queued transfers of one of the partitions the queue is split into
+    @Query("""
+            SELECT t FROM QueuedTransfer t
+            WHERE t.status = :status AND MOD(t.partitionKey, :partitions) = :partition
+            ORDER BY t.id
+        """)
+    List<QueuedTransfer> findByStatusInPartition(@Param("status") QueuedTransferStatus status, @Param("partitions") int partitions,
+                                                 @Param("partition") int partition, Pageable pageable);
+
+    long countByStatus(QueuedTransferStatus status);
+
+    default int complete(long id, long transactionId, LocalDateTime processedAt) {
+        return finish(id, QueuedTransferStatus.COMPLETED, transactionId, null, processedAt, QueuedTransferStatus.QUEUED);
+    }
+
+    default int fail(long id, String message, LocalDateTime processedAt) {
+        return finish(id, QueuedTransferStatus.FAILED, null, message, processedAt, QueuedTransferStatus.QUEUED);
+    }
+
+    @Modifying
+    @Query("UPDATE QueuedTransfer t SET t.attempts = t.attempts + 1 WHERE t.id = :id AND t.status = :queued")
+    int countAttempt(@Param("id") long id, @Param("queued") QueuedTransferStatus queued);
+
+    // only a transfer that is still queued can be finished, 0 means it was already booked or failed
+    @Modifying
+    @Query("""
+            UPDATE QueuedTransfer t
+            SET t.status = :status, t.transactionId = :transactionId, t.failureMessage = :message, t.processedAt = :processedAt
+            WHERE t.id = :id AND t.status = :queued
+        """)
+    int finish(@Param("id") long id, @Param("status") QueuedTransferStatus status, @Param("transactionId") Long transactionId,
+               @Param("message") String message, @Param("processedAt") LocalDateTime processedAt, @Param("queued") QueuedTransferStatus queued);
+}
@@ -0,0 +1,70 @@
+package w.mazebank.repositories;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import w.mazebank.models.Account;
+import w.mazebank.models.User;
+import w.mazebank.services.AccountNameIndex;
+
+// Keeps the in-memory search and name indexes in sync with every write to users and accounts.
+// Hibernate creates this listener through Spring, so the repositories can be injected.
+// Changes are only applied once the transaction commits, a rolled back write never shows up in searches.
+public class SearchIndexListener {
+    @Autowired
+    @Lazy
+    private UserRepository userRepository;
+
+    @Autowired
+    @Lazy
+    private AccountRepository accountRepository;
+
+    @Autowired
+    @Lazy
+    private AccountNameIndex accountNameIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        afterCommit(() -> {
+            if (entity instanceof User user) {
+                userRepository.addToSearchIndex(user);
+                accountNameIndex.putUser(user);
+            } else if (entity instanceof Account account) {
+                accountRepository.addToSearchIndex(account);
+                accountNameIndex.putAccount(account);
+            }
+        });
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        afterCommit(() -> {
+            if (entity instanceof User user) {
+                userRepository.removeFromSearchIndex(user);
+                accountNameIndex.removeUser(user.getId());
+            } else if (entity instanceof Account account) {
+                accountRepository.removeFromSearchIndex(account);
+                accountNameIndex.removeAccount(account);
+            }
+        });
+    }
+
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
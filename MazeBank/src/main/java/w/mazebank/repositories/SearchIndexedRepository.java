@@ -0,0 +1,105 @@
+package w.mazebank.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import w.mazebank.utils.TrigramIndex;
+
+import java.util.*;
+
+// Base for the repository fragments that answer findBySearchString from a TrigramIndex instead of
+// LIKE '%search%', which cannot use a database index. The index is kept up to date by
+// SearchIndexListener and filled from the database before the application takes requests, see
+// SearchIndexRebuildRunner.
+// Results are ordered by id, like the paged findAll.
+public abstract class SearchIndexedRepository<T> {
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    @PersistenceContext
+    protected EntityManager entityManager;
+
+    private final TrigramIndex index = new TrigramIndex();
+    private final Class<T> type;
+
+    protected SearchIndexedRepository(Class<T> type) {
+        this.type = type;
+    }
+
+    protected abstract long idOf(T entity);
+
+    // the values a search string is matched against
+    protected abstract List<String> searchValues(T entity);
+
+    protected boolean isSearchable(T entity) {
+        return true;
+    }
+
+    // associations the search results are returned with, so mapping them does not cost a query per row
+    protected String fetchJoins() {
+        return "";
+    }
+
+    public List<T> findBySearchString(String search, Pageable pageable) {
+        Sort.Order order = pageable.getSort().getOrderFor("id");
+        boolean ascending = order == null || order.isAscending();
+
+        List<Long> ids = index.search(search, ascending, pageable.getOffset(), pageable.getPageSize());
+        return findAllInOrder(ids);
+    }
+
+    protected List<Long> searchIds(String search) {
+        return index.search(search, true, 0, Integer.MAX_VALUE);
+    }
+
+    public void addToSearchIndex(T entity) {
+        if (isSearchable(entity)) {
+            index.put(idOf(entity), searchValues(entity));
+        } else {
+            index.remove(idOf(entity));
+        }
+    }
+
+    public void removeFromSearchIndex(T entity) {
+        index.remove(idOf(entity));
+    }
+
+    public void rebuildSearchIndex() {
+        index.clear();
+
+        // walk the table in id order in batches, so it never has to fit in the persistence context at once
+        long lastId = 0;
+        List<T> batch;
+        do {
+            batch = entityManager.createQuery("SELECT e FROM " + type.getSimpleName() + " e WHERE e.id > :lastId ORDER BY e.id", type)
+                .setParameter("lastId", lastId)
+                .setMaxResults(REBUILD_BATCH_SIZE)
+                .getResultList();
+            for (T entity : batch) {
+                addToSearchIndex(entity);
+                lastId = idOf(entity);
+            }
+            entityManager.clear();
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+    }
+
+    protected List<T> findAllInOrder(List<Long> ids) {
+        if (ids.isEmpty()) return new ArrayList<>();
+
+        List<T> entities = entityManager.createQuery("SELECT e FROM " + type.getSimpleName() + " e " + fetchJoins() + " WHERE e.id IN :ids", type)
+            .setParameter("ids", ids)
+            .getResultList();
+
+        // keep the order of the index, entities that were deleted in the meantime drop out
+        Map<Long, T> byId = new HashMap<>();
+        for (T entity : entities) {
+            byId.put(idOf(entity), entity);
+        }
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T entity = byId.get(id);
+            if (entity != null) ordered.add(entity);
+        }
+        return ordered;
+    }
+}
@@ -0,0 +1,25 @@
+package w.mazebank.repositories;
+
+import org.springframework.data.jpa.domain.Specification;
+import w.mazebank.models.Transaction;
+import w.mazebank.utils.TransactionCursor;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface TransactionKeysetRepository {
+    // returns at most limit transactions matching the specification, ordered by (timestamp, id) and
+    // starting right after the cursor. A null cursor starts at the beginning.
+    // No count query is run and the database seeks to the cursor instead of skipping rows, so every
+    // page costs the same no matter how far back it is.
+    List<Transaction> findAfter(Specification<Transaction> specification, TransactionCursor after, boolean ascending, int limit);
+
+    // same, for everything one account sent or received. Instead of OR-ing sender and receiver, which
+    // makes the database scan, the sent and received transactions are each read with a seek on their
+    // own (account, timestamp, id) index and merged.
+    List<Transaction> findByAccountAfter(long accountId, TransactionCursor after, boolean ascending, int limit);
+
+    // same, for everything any of the accounts sent or received that also matches the specification.
+    // Every account and side is its own seek, so this is meant for the few accounts of one user.
+    List<Transaction> findByAccountsAfter(Collection<Long> accountIds, Specification<Transaction> specification, TransactionCursor after, boolean ascending, int limit);
+}
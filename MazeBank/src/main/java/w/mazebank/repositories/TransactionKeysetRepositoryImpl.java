@@ -0,0 +1,124 @@
+package w.mazebank.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.jpa.domain.Specification;
+import w.mazebank.models.Transaction;
+import w.mazebank.utils.TransactionCursor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+public class TransactionKeysetRepositoryImpl implements TransactionKeysetRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Transaction> findAfter(Specification<Transaction> specification, TransactionCursor after, boolean ascending, int limit) {
+        return findAfter(specification, null, after, ascending, limit);
+    }
+
+    // side is the account column the specification fixes to one account, the rows are ordered by it
+    // first so the database walks the (account, timestamp, id) index instead of sorting
+    private List<Transaction> findAfter(Specification<Transaction> specification, String side, TransactionCursor after, boolean ascending, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Transaction> query = criteriaBuilder.createQuery(Transaction.class);
+        Root<Transaction> root = query.from(Transaction.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+            if (predicate != null) predicates.add(predicate);
+        }
+        if (after != null) {
+            predicates.add(afterCursor(criteriaBuilder, root, after, ascending));
+        }
+
+        Path<LocalDateTime> timestamp = root.get("timestamp");
+        Path<Long> id = root.get("id");
+        List<Order> order = new ArrayList<>();
+        if (side != null) {
+            order.add(criteriaBuilder.desc(root.get(side).get("id")));
+        }
+        order.add(ascending ? criteriaBuilder.asc(timestamp) : criteriaBuilder.desc(timestamp));
+        order.add(ascending ? criteriaBuilder.asc(id) : criteriaBuilder.desc(id));
+        query.select(root)
+            .where(predicates.toArray(new Predicate[0]))
+            .orderBy(order);
+
+        return entityManager.createQuery(query)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
+    @Override
+    public List<Transaction> findByAccountAfter(long accountId, TransactionCursor after, boolean ascending, int limit) {
+        return findByAccountsAfter(List.of(accountId), null, after, ascending, limit);
+    }
+
+    @Override
+    public List<Transaction> findByAccountsAfter(Collection<Long> accountIds, Specification<Transaction> specification, TransactionCursor after, boolean ascending, int limit) {
+        List<List<Transaction>> sides = new ArrayList<>(accountIds.size() * 2);
+        for (long accountId : accountIds) {
+            sides.add(findAfter(accountSide("sender", accountId).and(specification), "sender", after, ascending, limit));
+            sides.add(findAfter(accountSide("receiver", accountId).and(specification), "receiver", after, ascending, limit));
+        }
+        Comparator<Transaction> order = Comparator.comparing(Transaction::getTimestamp).thenComparingLong(Transaction::getId);
+        return merge(sides, ascending ? order : order.reversed(), limit);
+    }
+
+    // every list is already sorted, so the next transaction is always at the head of one of them.
+    // A transfer between two of the accounts is in two lists, as the order ends on the unique id both
+    // copies come out right after each other and the second one is dropped
+    static List<Transaction> merge(List<List<Transaction>> sides, Comparator<Transaction> order, int limit) {
+        List<Transaction> merged = new ArrayList<>(limit);
+        int[] heads = new int[sides.size()];
+        while (merged.size() < limit) {
+            int next = -1;
+            for (int i = 0; i < sides.size(); i++) {
+                if (heads[i] < sides.get(i).size()
+                    && (next == -1 || order.compare(sides.get(i).get(heads[i]), sides.get(next).get(heads[next])) < 0)) {
+                    next = i;
+                }
+            }
+            if (next == -1) break;
+
+            Transaction transaction = sides.get(next).get(heads[next]++);
+            if (merged.isEmpty() || merged.get(merged.size() - 1).getId() != transaction.getId()) {
+                merged.add(transaction);
+            }
+        }
+        return merged;
+    }
+
+    private Specification<Transaction> accountSide(String side, long accountId) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get(side).get("id"), accountId);
+    }
+
+    // (timestamp, id) > (cursor timestamp, cursor id), or < when going back in time
+    private Predicate afterCursor(CriteriaBuilder criteriaBuilder, Root<Transaction> root, TransactionCursor after, boolean ascending) {
+        Path<LocalDateTime> timestamp = root.get("timestamp");
+        Path<Long> id = root.get("id");
+
+        if (ascending) {
+            return criteriaBuilder.or(
+                criteriaBuilder.greaterThan(timestamp, after.getTimestamp()),
+                criteriaBuilder.and(
+                    criteriaBuilder.equal(timestamp, after.getTimestamp()),
+                    criteriaBuilder.greaterThan(id, after.getId())
+                )
+            );
+        }
+        return criteriaBuilder.or(
+            criteriaBuilder.lessThan(timestamp, after.getTimestamp()),
+            criteriaBuilder.and(
+                criteriaBuilder.equal(timestamp, after.getTimestamp()),
+                criteriaBuilder.lessThan(id, after.getId())
+            )
+        );
+    }
+}
@@ -7,30 +7,63 @@ import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import w.mazebank.enums.TransactionType;
 import w.mazebank.models.Transaction;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface TransactionRepository extends BaseRepository<Transaction, Long, JpaSpecificationExecutor<Transaction>> {
-    @Query("SELECT CAST(ROUND(SUM(t.amount), 2) AS DOUBLE) as total " +
-        "FROM Transaction t " +
-        "JOIN t.sender s " +
-        "JOIN t.receiver r " +
-        "JOIN s.user u1 " +
-        "JOIN r.user u2 " +
-        "WHERE CAST(t.timestamp AS DATE) = CURRENT_DATE() " +
-        "  AND s.id = :senderId " +
-        "  AND u1.id <> u2.id")
-    Double getTotalAmountOfTransactionForToday(@Param("senderId") Long senderId);
-
-    @Override
-    @Query("SELECT t FROM Transaction t WHERE t.sender.iban LIKE %?1% OR t.receiver.iban LIKE %?1%")
-    List<Transaction> findBySearchString(@Param("iban") String search, Pageable pageable);
-
-    List<Transaction> findBySenderIdOrReceiverId(Long senderIban, Long receiverIban, Pageable pageable);
+public interface TransactionRepository extends BaseRepository<Transaction, Long, JpaSpecificationExecutor<Transaction>>, TransactionKeysetRepository, TransactionSearchRepository {
+    // the accounts that sent money to other customers in the given period, and what one of them sent
+    // in cents. Used to rebuild the daily spend ledger, deposits are left out like in
+    // TransferLedger.countsTowardsDayLimit. hibernate can't sum converted attributes, so these read
+    // the cents column
+    default List<Long> findSpendingSenderIdsBetween(LocalDateTime start, LocalDateTime end) {
+        return findSpendingSenderIdsBetween(start, end, TransactionType.DEPOSIT.ordinal());
+    }
+
+    default long sumCentsSentBetween(long senderId, LocalDateTime start, LocalDateTime end) {
+        return sumCentsSentBetween(senderId, start, end, TransactionType.DEPOSIT.ordinal());
+    }
+
+    @Query(value = """
+            SELECT DISTINCT t.sender_id
+            FROM transactions t
+            JOIN accounts s ON s.id = t.sender_id
+            JOIN accounts r ON r.id = t.receiver_id
+            WHERE t.timestamp >= :start AND t.timestamp < :end
+              AND s.user_id <> r.user_id
+              AND t.transaction_type <> :depositType
+        """, nativeQuery = true)
+    List<Long> findSpendingSenderIdsBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end, @Param("depositType") int depositType);
+
+    @Query(value = """
+            SELECT COALESCE(SUM(t.amount), 0)
+            FROM transactions t
+            JOIN accounts s ON s.id = t.sender_id
+            JOIN accounts r ON r.id = t.receiver_id
+            WHERE t.sender_id = :senderId
+              AND t.timestamp >= :start AND t.timestamp < :end
+              AND s.user_id <> r.user_id
+              AND t.transaction_type <> :depositType
+        """, nativeQuery = true)
+    long sumCentsSentBetween(@Param("senderId") long senderId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end, @Param("depositType") int depositType);
 
     Page<Transaction> findAll(Specification<Transaction> specification, Pageable pageable);
+
+    // one page of everything an account sent or received, skipped to in the database. Each side is
+    // looked up through its own index and the two are combined by id, OR-ing sender and receiver
+    // would make the database scan
+    @Query("""
+            SELECT t FROM Transaction t
+            WHERE t.id IN (
+                SELECT s.id FROM Transaction s WHERE s.sender.id = :accountId
+                UNION
+                SELECT r.id FROM Transaction r WHERE r.receiver.id = :accountId
+            )
+        """)
+    List<Transaction> findByAccount(@Param("accountId") long accountId, Pageable pageable);
 }
 
 
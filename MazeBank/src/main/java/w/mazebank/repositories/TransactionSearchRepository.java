@@ -0,0 +1,11 @@
+package w.mazebank.repositories;
+
+import org.springframework.data.domain.Pageable;
+import w.mazebank.models.Transaction;
+
+import java.util.List;
+
+public interface TransactionSearchRepository {
+    // transactions from or to an account with the search string in its iban
+    List<Transaction> findBySearchString(String search, Pageable pageable);
+}
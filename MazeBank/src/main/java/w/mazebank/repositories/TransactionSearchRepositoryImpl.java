@@ -0,0 +1,59 @@
+package w.mazebank.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import w.mazebank.models.Transaction;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Transactions are not indexed themselves, there are far more of them than accounts. The accounts
+// matching the search come from the account search index and their transactions are looked up by
+// the indexed sender_id and receiver_id columns.
+public class TransactionSearchRepositoryImpl implements TransactionSearchRepository {
+    // the matching accounts are looked up in chunks, databases limit the number of parameters of a statement
+    private static final int ACCOUNTS_PER_QUERY = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    @Lazy
+    private AccountRepository accountRepository;
+
+    @Override
+    public List<Transaction> findBySearchString(String search, Pageable pageable) {
+        List<Long> accountIds = accountRepository.findIdsBySearchString(search);
+        if (accountIds.isEmpty()) return new ArrayList<>();
+
+        Sort.Order order = pageable.getSort().getOrderFor("id");
+        boolean ascending = order == null || order.isAscending();
+
+        // every chunk and side is read on its own account index instead of OR-ing sender and receiver,
+        // and has to hold everything up to the end of the page, the offset is skipped after the merge
+        int offset = Math.toIntExact(pageable.getOffset());
+        int limit = offset + pageable.getPageSize();
+        List<List<Transaction>> sides = new ArrayList<>();
+        for (int from = 0; from < accountIds.size(); from += ACCOUNTS_PER_QUERY) {
+            List<Long> chunk = accountIds.subList(from, Math.min(from + ACCOUNTS_PER_QUERY, accountIds.size()));
+            sides.add(findBySide("sender", chunk, ascending, limit));
+            sides.add(findBySide("receiver", chunk, ascending, limit));
+        }
+
+        Comparator<Transaction> byId = Comparator.comparingLong(Transaction::getId);
+        List<Transaction> merged = TransactionKeysetRepositoryImpl.merge(sides, ascending ? byId : byId.reversed(), limit);
+        return new ArrayList<>(merged.subList(Math.min(offset, merged.size()), merged.size()));
+    }
+
+    private List<Transaction> findBySide(String side, List<Long> accountIds, boolean ascending, int limit) {
+        return entityManager.createQuery("SELECT t FROM Transaction t WHERE t." + side + ".id IN :accountIds ORDER BY t.id " + (ascending ? "ASC" : "DESC"), Transaction.class)
+            .setParameter("accountIds", accountIds)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+}
@@ -4,24 +4,32 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import w.mazebank.models.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
-public interface UserRepository extends BaseRepository<User, Long, JpaSpecificationExecutor<User>> {
+public interface UserRepository extends BaseRepository<User, Long, JpaSpecificationExecutor<User>>, UserSearchRepository {
     Optional<User> findByEmail(String email);
     Optional<User> findByBsn(int bsn);
 
+    @Query("SELECT u.blocked FROM User u WHERE u.id = :id")
+    Optional<Boolean> findBlockedById(@Param("id") long id);
+
     @Query("""
-    SELECT u FROM User u WHERE (u.id <> 1)
-    AND (u.firstName LIKE %?1% OR u.lastName LIKE %?1%
-    OR u.email LIKE %?1% OR CAST(u.bsn AS string) LIKE %?1%
-    OR u.phoneNumber LIKE %?1% OR TO_CHAR(u.dateOfBirth, 'YYYY-MM-DD') LIKE %?1%)
+    SELECT u FROM User u WHERE u.id <> 1
+    AND NOT EXISTS (SELECT a.id FROM Account a WHERE a.user = u)
     """)
-    List<User> findBySearchString(String search, Pageable pageable);
+    List<User> findAllWithoutAccounts(Pageable pageable);
+
+    // the ids of the given users that have at least one account
+    @Query("SELECT DISTINCT a.user.id FROM Account a WHERE a.user.id IN :ids")
+    Set<Long> findIdsWithAccounts(@Param("ids") Collection<Long> ids);
 
     @Override
     @Query("SELECT u FROM User u WHERE u.id <> 1")
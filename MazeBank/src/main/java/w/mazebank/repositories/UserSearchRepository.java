@@ -0,0 +1,17 @@
+package w.mazebank.repositories;
+
+import org.springframework.data.domain.Pageable;
+import w.mazebank.models.User;
+
+import java.util.List;
+
+public interface UserSearchRepository {
+    // users with the search string in their name, email, bsn, phone number or date of birth (yyyy-MM-dd)
+    List<User> findBySearchString(String search, Pageable pageable);
+
+    void addToSearchIndex(User user);
+
+    void removeFromSearchIndex(User user);
+
+    void rebuildSearchIndex();
+}
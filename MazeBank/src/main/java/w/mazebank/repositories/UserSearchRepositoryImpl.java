@@ -0,0 +1,37 @@
+package w.mazebank.repositories;
+
+import w.mazebank.models.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class UserSearchRepositoryImpl extends SearchIndexedRepository<User> implements UserSearchRepository {
+    private static final long BANK_USER_ID = 1;
+
+    public UserSearchRepositoryImpl() {
+        super(User.class);
+    }
+
+    @Override
+    protected long idOf(User user) {
+        return user.getId();
+    }
+
+    @Override
+    protected List<String> searchValues(User user) {
+        List<String> values = new ArrayList<>();
+        values.add(user.getFirstName());
+        values.add(user.getLastName());
+        values.add(user.getEmail());
+        values.add(String.valueOf(user.getBsn()));
+        values.add(user.getPhoneNumber());
+        if (user.getDateOfBirth() != null) values.add(user.getDateOfBirth().toString());
+        return values;
+    }
+
+    // the bank itself never shows up in searches
+    @Override
+    protected boolean isSearchable(User user) {
+        return user.getId() != BANK_USER_ID;
+    }
+}
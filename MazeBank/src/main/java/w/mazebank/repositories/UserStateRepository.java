@@ -0,0 +1,9 @@
+package w.mazebank.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import w.mazebank.models.UserState;
+
+@Repository
+public interface UserStateRepository extends JpaRepository<UserState, Long> {
+}
@@ -0,0 +1,36 @@
+package w.mazebank.rules;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import w.mazebank.enums.RuleCost;
+import w.mazebank.enums.TransactionType;
+import w.mazebank.exceptions.AccountAbsoluteLimitReachedException;
+import w.mazebank.models.Account;
+import w.mazebank.models.Money;
+import w.mazebank.models.Transaction;
+import w.mazebank.services.TransferLedger;
+
+@Component
+@Order(40)
+public class AbsoluteLimitRule implements TransactionRule {
+    @Override
+    public RuleCost getCost() {
+        return RuleCost.IN_MEMORY;
+    }
+
+    @Override
+    public boolean appliesTo(TransactionType transactionType) {
+        return transactionType == TransactionType.TRANSFER || transactionType == TransactionType.WITHDRAWAL;
+    }
+
+    @Override
+    public void check(Transaction transaction, TransferLedger ledger) throws AccountAbsoluteLimitReachedException {
+        // a withdrawal is sent by the customer's account as well, the bank's account is the receiver
+        Account sender = transaction.getSender();
+        Money newBalance = ledger.balanceOf(sender).minus(transaction.getAmount());
+
+        if (newBalance.isLessThan(sender.getAbsoluteLimit())) {
+            throw new AccountAbsoluteLimitReachedException("Balance cannot become lower than absolute limit");
+        }
+    }
+}
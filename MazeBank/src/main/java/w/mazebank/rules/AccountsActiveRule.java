@@ -0,0 +1,28 @@
+package w.mazebank.rules;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import w.mazebank.enums.RuleCost;
+import w.mazebank.enums.TransactionType;
+import w.mazebank.exceptions.TransactionFailedException;
+import w.mazebank.models.Transaction;
+import w.mazebank.services.TransferLedger;
+
+@Component
+@Order(20)
+public class AccountsActiveRule implements TransactionRule {
+    @Override
+    public RuleCost getCost() {
+        return RuleCost.IN_MEMORY;
+    }
+
+    @Override
+    public void check(Transaction transaction, TransferLedger ledger) throws TransactionFailedException {
+        // the bank's side of a deposit or withdrawal is not checked, so its account isn't loaded
+        if (transaction.getTransactionType() != TransactionType.DEPOSIT && !transaction.getSender().isActive())
+            throw new TransactionFailedException("Sender account is blocked");
+
+        if (transaction.getTransactionType() != TransactionType.WITHDRAWAL && !transaction.getReceiver().isActive())
+            throw new TransactionFailedException("Receiver account is blocked");
+    }
+}
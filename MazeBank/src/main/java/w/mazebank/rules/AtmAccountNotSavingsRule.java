@@ -0,0 +1,37 @@
+package w.mazebank.rules;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import w.mazebank.enums.AccountType;
+import w.mazebank.enums.RuleCost;
+import w.mazebank.enums.TransactionType;
+import w.mazebank.exceptions.TransactionFailedException;
+import w.mazebank.models.Account;
+import w.mazebank.models.Transaction;
+import w.mazebank.services.TransferLedger;
+
+@Component
+@Order(70)
+public class AtmAccountNotSavingsRule implements TransactionRule {
+    @Override
+    public RuleCost getCost() {
+        return RuleCost.IN_MEMORY;
+    }
+
+    @Override
+    public boolean appliesTo(TransactionType transactionType) {
+        return transactionType == TransactionType.DEPOSIT || transactionType == TransactionType.WITHDRAWAL;
+    }
+
+    @Override
+    public void check(Transaction transaction, TransferLedger ledger) throws TransactionFailedException {
+        // the customer's account, the other side is the bank's
+        Account account = transaction.getTransactionType() == TransactionType.DEPOSIT
+            ? transaction.getReceiver()
+            : transaction.getSender();
+
+        if (account.getAccountType() == AccountType.SAVINGS) {
+            throw new TransactionFailedException("Cannot deposit or withdraw to a savings account from an ATM");
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package w.mazebank.rules;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import w.mazebank.enums.RuleCost;
+import w.mazebank.enums.TransactionType;
+import w.mazebank.exceptions.TransactionFailedException;
+import w.mazebank.models.Account;
+import w.mazebank.models.Money;
+import w.mazebank.models.Transaction;
+import w.mazebank.services.TransferLedger;
+
+// reads what the sender sent today from the ledger, which queries it unless it came with the transfer
+@Component
+@Order(60)
+public class DayLimitRule implements TransactionRule {
+    @Override
+    public RuleCost getCost() {
+        return RuleCost.DATABASE;
+    }
+
+    // a deposit's sender is the bank's account, its spend isn't recorded
+    @Override
+    public boolean appliesTo(TransactionType transactionType) {
+        return transactionType != TransactionType.DEPOSIT;
+    }
+
+    @Override
+    public void check(Transaction transaction, TransferLedger ledger) throws TransactionFailedException {
+        Account sender = transaction.getSender();
+        Money totalAmountOfToday = ledger.spentTodayBy(sender);
+
+        // check if the total amount of today + the amount of the transaction is higher than the day limit
+        if (totalAmountOfToday.plus(transaction.getAmount()).isGreaterThan(sender.getUser().getDayLimit()))
+            throw new TransactionFailedException("Day limit exceeded");
+    }
+}
@@ -0,0 +1,26 @@
+package w.mazebank.rules;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import w.mazebank.enums.RuleCost;
+import w.mazebank.exceptions.TransactionFailedException;
+import w.mazebank.models.Money;
+import w.mazebank.models.Transaction;
+import w.mazebank.services.TransferLedger;
+
+// the requests only check the amount is positive, an amount below half a cent rounds to zero
+@Component
+@Order(5)
+public class PositiveAmountRule implements TransactionRule {
+    @Override
+    public RuleCost getCost() {
+        return RuleCost.IN_MEMORY;
+    }
+
+    @Override
+    public void check(Transaction transaction, TransferLedger ledger) throws TransactionFailedException {
+        if (!transaction.getAmount().isGreaterThan(Money.ZERO)) {
+            throw new TransactionFailedException("Amount must be at least 0.01");
+        }
+    }
+}
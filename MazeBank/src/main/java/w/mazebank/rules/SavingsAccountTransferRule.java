@@ -0,0 +1,38 @@
+package w.mazebank.rules;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import w.mazebank.enums.AccountType;
+import w.mazebank.enums.RuleCost;
+import w.mazebank.enums.TransactionType;
+import w.mazebank.exceptions.TransactionFailedException;
+import w.mazebank.models.Transaction;
+import w.mazebank.services.TransferLedger;
+
+// money only moves in and out of a savings account between accounts of the same customer
+@Component
+@Order(80)
+public class SavingsAccountTransferRule implements TransactionRule {
+    @Override
+    public RuleCost getCost() {
+        return RuleCost.IN_MEMORY;
+    }
+
+    @Override
+    public boolean appliesTo(TransactionType transactionType) {
+        return transactionType == TransactionType.TRANSFER;
+    }
+
+    @Override
+    public void check(Transaction transaction, TransferLedger ledger) throws TransactionFailedException {
+        boolean sameCustomer = transaction.getSender().getUser().getId() == transaction.getReceiver().getUser().getId();
+
+        if (transaction.getSender().getAccountType() == AccountType.SAVINGS && !sameCustomer) {
+            throw new TransactionFailedException("Cannot transfer from a savings account to an account that is not of the same customer");
+        }
+
+        if (transaction.getReceiver().getAccountType() == AccountType.SAVINGS && !sameCustomer) {
+            throw new TransactionFailedException("Cannot transfer to a savings account from an account that is not of the same customer");
+        }
+    }
+}
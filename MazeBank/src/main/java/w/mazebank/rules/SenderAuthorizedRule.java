@@ -0,0 +1,34 @@
+package w.mazebank.rules;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import w.mazebank.enums.RoleType;
+import w.mazebank.enums.RuleCost;
+import w.mazebank.enums.TransactionType;
+import w.mazebank.exceptions.TransactionFailedException;
+import w.mazebank.models.Transaction;
+import w.mazebank.services.TransferLedger;
+
+@Component
+@Order(90)
+public class SenderAuthorizedRule implements TransactionRule {
+    @Override
+    public RuleCost getCost() {
+        return RuleCost.IN_MEMORY;
+    }
+
+    @Override
+    public boolean appliesTo(TransactionType transactionType) {
+        return transactionType == TransactionType.TRANSFER;
+    }
+
+    @Override
+    public void check(Transaction transaction, TransferLedger ledger) throws TransactionFailedException {
+        // if the user is an employee, he is allowed to perform any transaction
+        // if the user is a customer, he is only allowed to perform transactions on his own accounts
+        if (transaction.getUserPerforming().getRole() != RoleType.EMPLOYEE
+            && transaction.getUserPerforming().getId() != transaction.getSender().getUser().getId()) {
+            throw new TransactionFailedException("User performing the transaction is not authorized to perform this transaction");
+        }
+    }
+}
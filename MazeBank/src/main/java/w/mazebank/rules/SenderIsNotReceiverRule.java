@@ -0,0 +1,23 @@
+package w.mazebank.rules;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import w.mazebank.enums.RuleCost;
+import w.mazebank.exceptions.TransactionFailedException;
+import w.mazebank.models.Transaction;
+import w.mazebank.services.TransferLedger;
+
+@Component
+@Order(10)
+public class SenderIsNotReceiverRule implements TransactionRule {
+    @Override
+    public RuleCost getCost() {
+        return RuleCost.IN_MEMORY;
+    }
+
+    @Override
+    public void check(Transaction transaction, TransferLedger ledger) throws TransactionFailedException {
+        if (transaction.getSender().getId() == transaction.getReceiver().getId())
+            throw new TransactionFailedException("Sender and receiver cannot be the same");
+    }
+}
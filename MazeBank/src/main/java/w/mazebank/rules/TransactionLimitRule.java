@@ -0,0 +1,32 @@
+package w.mazebank.rules;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import w.mazebank.enums.RuleCost;
+import w.mazebank.enums.TransactionType;
+import w.mazebank.exceptions.TransactionFailedException;
+import w.mazebank.models.Transaction;
+import w.mazebank.services.TransferLedger;
+
+@Component
+@Order(30)
+public class TransactionLimitRule implements TransactionRule {
+    @Override
+    public RuleCost getCost() {
+        return RuleCost.IN_MEMORY;
+    }
+
+    // a deposit's sender is the bank's account
+    @Override
+    public boolean appliesTo(TransactionType transactionType) {
+        return transactionType != TransactionType.DEPOSIT;
+    }
+
+    @Override
+    public void check(Transaction transaction, TransferLedger ledger) throws TransactionFailedException {
+        // if the transaction amount is higher than the transaction limit of the user
+        if (transaction.getAmount().isGreaterThan(transaction.getSender().getUser().getTransactionLimit())) {
+            throw new TransactionFailedException("Transaction limit exceeded");
+        }
+    }
+}
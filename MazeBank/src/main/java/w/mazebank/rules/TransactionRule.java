@@ -0,0 +1,25 @@
+package w.mazebank.rules;
+
+import w.mazebank.enums.RuleCost;
+import w.mazebank.enums.TransactionType;
+import w.mazebank.exceptions.TransactionFailedException;
+import w.mazebank.models.Transaction;
+import w.mazebank.services.TransferLedger;
+
+// A single check a transaction has to pass before it is booked.
+// Every rule bean is picked up by the TransactionRuleEngine, which runs them cheapest cost class
+// first and in @Order within a class, and stops at the first rule that rejects the transaction.
+public interface TransactionRule {
+    RuleCost getCost();
+
+    // throws when the transaction breaks the rule
+    void check(Transaction transaction, TransferLedger ledger) throws TransactionFailedException;
+
+    default boolean appliesTo(TransactionType transactionType) {
+        return true;
+    }
+
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,56 @@
+package w.mazebank.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import w.mazebank.exceptions.AccountNotFoundException;
+import w.mazebank.repositories.AccountRepository;
+
+import java.time.Duration;
+
+// Keeps the account id of every IBAN in memory, so resolving the IBANs of a transfer does not have to
+// query the database. Only the id is cached, it never changes for an IBAN. Everything else about the
+// account, its balance, state and limit included, is read from the database when the transfer loads it.
+@Service
+public class AccountIdentityCache {
+    private static final String BANK_IBAN = "NL01INHO0000000001";
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private final Cache<String, Long> cache;
+
+    // the id of the bank's own account, looked up once. Only the id is kept, the account itself is
+    // loaded per request like any other, so a withdrawal checks the bank's current balance
+    private volatile Long bankAccountId;
+
+    public AccountIdentityCache(
+        @Value("${mazebank.accounts.identity-cache.ttl:10m}") Duration timeToLive,
+        @Value("${mazebank.accounts.identity-cache.max-size:100000}") long maximumSize
+    ) {
+        this.cache = Caffeine.newBuilder()
+            .expireAfterWrite(timeToLive)
+            .maximumSize(maximumSize)
+            .build();
+    }
+
+    public long getIdByIban(String iban) throws AccountNotFoundException {
+        // unknown ibans are not cached, so a new account is found on the next transfer
+        Long id = cache.get(iban, key -> accountRepository.findIdByIban(key).orElse(null));
+        if (id == null) {
+            throw new AccountNotFoundException("Account with iban: " + iban + " not found");
+        }
+        return id;
+    }
+
+    public long getBankAccountId() throws AccountNotFoundException {
+        Long id = bankAccountId;
+        if (id == null) {
+            id = getIdByIban(BANK_IBAN);
+            bankAccountId = id;
+        }
+        return id;
+    }
+}
@@ -0,0 +1,115 @@
+package w.mazebank.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Serializes balance changes per account inside this JVM.
+// Every account id maps onto one of a fixed number of lock stripes, so a busy account only blocks
+// the (few) other accounts that share its stripe instead of all traffic. Stripes are always taken
+// in ascending order, which means two transfers in opposite directions can never deadlock.
+@Service
+public class AccountLockManager {
+    private static final int DEFAULT_STRIPES = 1024;
+
+    private final ReentrantLock[] stripes;
+
+    public AccountLockManager() {
+        this(DEFAULT_STRIPES);
+    }
+
+    @Autowired
+    public AccountLockManager(@Value("${mazebank.account-locks.stripes:1024}") int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Stripe count must be at least 1");
+        }
+
+        // round up to a power of two so the stripe can be picked with a mask
+        int size = Integer.highestOneBit(stripeCount);
+        if (size < stripeCount) size <<= 1;
+
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // locks the given accounts and returns a handle that releases them again, meant for try-with-resources
+    public AccountLocks lock(long... accountIds) {
+        int[] stripeIndexes = stripeIndexesFor(accountIds);
+        int acquired = 0;
+        try {
+            for (int index : stripeIndexes) {
+                stripes[index].lock();
+                acquired++;
+            }
+        } catch (RuntimeException e) {
+            unlock(stripeIndexes, acquired);
+            throw e;
+        }
+        return new AccountLocks(stripeIndexes);
+    }
+
+    // locks the given accounts until the current database transaction has committed or rolled back,
+    // so no other thread can read a balance that is about to change
+    public void lockUntilTransactionCompletes(long... accountIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Account locks can only be held inside a transaction");
+        }
+
+        AccountLocks locks = lock(accountIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                locks.close();
+            }
+        });
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    int stripeFor(long accountId) {
+        // spread the bits of the id so sequential ids do not all land next to each other
+        long hash = accountId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (stripes.length - 1);
+    }
+
+    private int[] stripeIndexesFor(long[] accountIds) {
+        // sort and remove duplicates, two accounts on the same stripe only need one lock
+        return Arrays.stream(accountIds)
+            .mapToInt(this::stripeFor)
+            .sorted()
+            .distinct()
+            .toArray();
+    }
+
+    private void unlock(int[] stripeIndexes, int count) {
+        // release in reverse order of acquiring
+        for (int i = count - 1; i >= 0; i--) {
+            stripes[stripeIndexes[i]].unlock();
+        }
+    }
+
+    public final class AccountLocks implements AutoCloseable {
+        private final int[] stripeIndexes;
+        private boolean released;
+
+        private AccountLocks(int[] stripeIndexes) {
+            this.stripeIndexes = stripeIndexes;
+        }
+
+        @Override
+        public void close() {
+            if (released) return;
+            released = true;
+            unlock(stripeIndexes, stripeIndexes.length);
+        }
+    }
+}
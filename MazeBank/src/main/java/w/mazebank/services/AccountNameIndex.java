@@ -0,0 +1,145 @@
+package w.mazebank.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import w.mazebank.models.Account;
+import w.mazebank.models.User;
+import w.mazebank.models.responses.IbanResponse;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// In-memory index of account holders by name, used to look up payees without touching the users table.
+// Every word of a first or last name is a token in a sorted map, so all names starting with what the
+// customer typed are one range of that map. A search returns at most maxResults accounts.
+// Kept up to date by SearchIndexListener and filled from the database before the application takes requests.
+//
+// Reads never lock. Writes are serialized and replace the entry of a user as a whole.
+@Service
+public class AccountNameIndex {
+    private static final String BANK_IBAN = "NL01INHO0000000001";
+
+    private final NavigableMap<String, Set<Long>> tokens = new ConcurrentSkipListMap<>();
+    private final Map<Long, Holder> holders = new ConcurrentHashMap<>();
+    private final int maxResults;
+
+    public AccountNameIndex(@Value("${mazebank.accounts.name-search.max-results:20}") int maxResults) {
+        this.maxResults = maxResults;
+    }
+
+    // "John" matches first or last names starting with john, "John D" first names starting with john
+    // and last names starting with d. Any words in between are ignored.
+    public List<IbanResponse> search(String name) {
+        String[] names = normalize(name).split(" +");
+        if (names.length == 0 || names[0].isEmpty()) return new ArrayList<>();
+
+        String firstName = names.length > 1 ? names[0] : null;
+        String lastName = names[names.length - 1];
+        String scanned = firstName != null && firstName.length() > lastName.length() ? firstName : lastName;
+
+        List<IbanResponse> results = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (Set<Long> userIds : tokens.subMap(scanned, true, scanned + Character.MAX_VALUE, false).values()) {
+            for (Long userId : userIds) {
+                Holder holder = holders.get(userId);
+                if (holder == null || !seen.add(userId) || !holder.matches(firstName, lastName)) continue;
+
+                for (String iban : holder.ibans()) {
+                    results.add(new IbanResponse(iban, holder.firstName(), holder.lastName()));
+                    if (results.size() >= maxResults) return results;
+                }
+            }
+        }
+        return results;
+    }
+
+    public synchronized void putUser(User user) {
+        Holder current = holders.get(user.getId());
+        List<String> ibans = current == null ? List.of() : current.ibans();
+        replace(user.getId(), new Holder(user.getFirstName(), user.getLastName(), ibans));
+    }
+
+    public synchronized void removeUser(long userId) {
+        replace(userId, null);
+    }
+
+    public synchronized void putAccount(Account account) {
+        if (BANK_IBAN.equals(account.getIban())) return;
+
+        User user = account.getUser();
+        Holder current = holders.get(user.getId());
+        List<String> ibans = new ArrayList<>(current == null ? List.of() : current.ibans());
+        if (!ibans.contains(account.getIban())) ibans.add(account.getIban());
+
+        if (current == null) {
+            replace(user.getId(), new Holder(user.getFirstName(), user.getLastName(), List.copyOf(ibans)));
+        } else {
+            replace(user.getId(), new Holder(current.firstName(), current.lastName(), List.copyOf(ibans)));
+        }
+    }
+
+    public synchronized void removeAccount(Account account) {
+        Holder current = holders.get(account.getUser().getId());
+        if (current == null) return;
+
+        List<String> ibans = new ArrayList<>(current.ibans());
+        ibans.remove(account.getIban());
+        replace(account.getUser().getId(), new Holder(current.firstName(), current.lastName(), List.copyOf(ibans)));
+    }
+
+    public synchronized void clear() {
+        tokens.clear();
+        holders.clear();
+    }
+
+    private void replace(long userId, Holder holder) {
+        Holder previous = holder == null ? holders.remove(userId) : holders.put(userId, holder);
+
+        if (previous != null) {
+            for (String token : previous.tokens()) {
+                Set<Long> userIds = tokens.get(token);
+                if (userIds == null) continue;
+                userIds.remove(userId);
+                if (userIds.isEmpty()) tokens.remove(token);
+            }
+        }
+        if (holder != null) {
+            for (String token : holder.tokens()) {
+                tokens.computeIfAbsent(token, key -> new ConcurrentSkipListSet<>()).add(userId);
+            }
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> split(String name) {
+        String normalized = normalize(name);
+        return normalized.isEmpty() ? List.of() : List.of(normalized.split(" +"));
+    }
+
+    private record Holder(String firstName, String lastName, List<String> ibans) {
+        Set<String> tokens() {
+            Set<String> tokens = new HashSet<>(split(firstName));
+            tokens.addAll(split(lastName));
+            return tokens;
+        }
+
+        boolean matches(String firstNamePrefix, String lastNamePrefix) {
+            if (firstNamePrefix == null) {
+                return startsWith(firstName, lastNamePrefix) || startsWith(lastName, lastNamePrefix);
+            }
+            return startsWith(firstName, firstNamePrefix) && startsWith(lastName, lastNamePrefix);
+        }
+
+        private static boolean startsWith(String name, String prefix) {
+            for (String token : split(name)) {
+                if (token.startsWith(prefix)) return true;
+            }
+            return false;
+        }
+    }
+}
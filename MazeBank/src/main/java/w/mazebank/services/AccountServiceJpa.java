@@ -1,6 +1,5 @@
 package w.mazebank.services;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -11,17 +10,19 @@ import w.mazebank.enums.RoleType;
 import w.mazebank.enums.TransactionType;
 import w.mazebank.exceptions.*;
 import w.mazebank.models.Account;
+import w.mazebank.models.Money;
 import w.mazebank.models.Transaction;
 import w.mazebank.models.User;
 import w.mazebank.models.requests.AccountPatchRequest;
 import w.mazebank.models.requests.AccountRequest;
 import w.mazebank.models.responses.AccountResponse;
 import w.mazebank.models.responses.IbanResponse;
+import w.mazebank.models.responses.TransactionPageResponse;
 import w.mazebank.models.responses.TransactionResponse;
-import w.mazebank.models.responses.UserResponse;
 import w.mazebank.repositories.AccountRepository;
 import w.mazebank.repositories.TransactionRepository;
 import w.mazebank.utils.IbanGenerator;
+import w.mazebank.utils.ResponseMapper;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -37,7 +38,11 @@ public class AccountServiceJpa extends BaseServiceJpa {
     @Autowired
     private UserServiceJpa userServiceJpa;
 
-    private final ModelMapper mapper = new ModelMapper();
+    @Autowired
+    private AccountNameIndex accountNameIndex;
+
+    @Autowired
+    private AccountIdentityCache accountIdentityCache;
 
     public AccountResponse createAccount(AccountRequest body) throws UserNotFoundException, AccountCreationLimitReachedException {
         // Get user and account type from request body
@@ -52,7 +57,7 @@ public class AccountServiceJpa extends BaseServiceJpa {
         Account account = buildAccount(accountType, user, body.isActive(), body.getAbsoluteLimit());
         Account newAccount = accountRepository.save(account);
 
-        return createAccountResponse(newAccount);
+        return ResponseMapper.toAccountResponse(newAccount);
     }
 
     private void validateAccountCreationLimits(AccountType accountType, List<Account> accounts) throws AccountCreationLimitReachedException {
@@ -85,8 +90,8 @@ public class AccountServiceJpa extends BaseServiceJpa {
             .iban(IbanGenerator.generate())
             .isActive(isActive)
             .user(user)
-            .absoluteLimit(absoluteLimit)
-            .balance(0.0)
+            .absoluteLimit(absoluteLimit != null ? Money.of(absoluteLimit) : Money.ZERO)
+            .balance(Money.ZERO)
             .build();
     }
 
@@ -99,7 +104,7 @@ public class AccountServiceJpa extends BaseServiceJpa {
     private List<AccountResponse> mapAccountsToAccountResponses(List<Account> accounts) {
         List<AccountResponse> accountResponses = new ArrayList<>(accounts.size());
         for (Account account : accounts) {
-            AccountResponse accountResponse = createAccountResponse(account);
+            AccountResponse accountResponse = ResponseMapper.toAccountResponse(account);
             accountResponses.add(accountResponse);
         }
 
@@ -111,27 +116,18 @@ public class AccountServiceJpa extends BaseServiceJpa {
             .orElseThrow(() -> new AccountNotFoundException("Account with id: " + id + " not found"));
     }
 
+    // the id comes from the identity cache, the account itself is loaded when it is first used
     public Account getAccountByIban(String iban) throws AccountNotFoundException {
-        return accountRepository.findByIban(iban)
-            .orElseThrow(() -> new AccountNotFoundException("Account with iban: " + iban + " not found"));
-    }
-
-    public List<IbanResponse> getAccountsByName(String name) {
-        String[] names = name.split(" ");
-        if (names.length == 2) {
-            return getAccountsByFirstNameAndLastName(names[0], names[1]);
-        }
-        return getAccountsByOneName(name);
+        return accountRepository.getReferenceById(accountIdentityCache.getIdByIban(iban));
     }
 
-    private List<IbanResponse> getAccountsByOneName(String name) {
-        List<Account> accounts = accountRepository.findAccountsByOneName(name);
-        return createListOfIbanResponses(accounts);
+    // same for the bank's own account, which only has its id cached
+    public Account getBankAccount() throws AccountNotFoundException {
+        return accountRepository.getReferenceById(accountIdentityCache.getBankAccountId());
     }
 
-    private List<IbanResponse> getAccountsByFirstNameAndLastName(String firstName, String lastName) {
-        List<Account> accounts = accountRepository.findAccountsByFirstNameAndLastName(firstName, lastName);
-        return createListOfIbanResponses(accounts);
+    public List<IbanResponse> getAccountsByName(String name) {
+        return accountNameIndex.search(name);
     }
 
     public AccountResponse updateAccount(long id, AccountPatchRequest body) throws AccountNotFoundException {
@@ -143,13 +139,13 @@ public class AccountServiceJpa extends BaseServiceJpa {
         }
 
         if (body.getAbsoluteLimit() != null) {
-            account.setAbsoluteLimit(body.getAbsoluteLimit());
+            account.setAbsoluteLimit(Money.of(body.getAbsoluteLimit()));
         }
 
         Account updatedAccount = accountRepository.save(account);
 
         // Map account to account response
-        return mapper.map(updatedAccount, AccountResponse.class);
+        return ResponseMapper.toAccountResponse(updatedAccount);
     }
 
     public Account lockAccount(Long id) throws AccountNotFoundException, AccountLockOrUnlockStatusException, UnauthorizedAccountAccessException {
@@ -208,62 +204,21 @@ public class AccountServiceJpa extends BaseServiceJpa {
         return mapToTransactionResponses(transactions);
     }
 
+    // keyset paged variant of getTransactionsFromAccount, see TransactionServiceJpa.getTransactionPage
+    public TransactionPageResponse getTransactionPageFromAccount(String cursor, int pageSize, String sort, User user, Long accountId) throws AccountNotFoundException, InvalidCursorException {
+        validateAccountAccess(accountId);
+
+        return transactionServiceJpa.getAccountTransactionPage(accountId, cursor, sort, pageSize, ResponseMapper::toTransactionResponse);
+    }
+
     private List<TransactionResponse> mapToTransactionResponses(List<Transaction> transactions) {
         List<TransactionResponse> transactionResponses = new ArrayList<>();
         for (Transaction transaction : transactions) {
-            TransactionResponse response = createTransactionResponse(transaction);
-            transactionResponses.add(response);
+            transactionResponses.add(ResponseMapper.toTransactionResponse(transaction));
         }
         return transactionResponses;
     }
 
-    private TransactionResponse createTransactionResponse(Transaction transaction){
-        return TransactionResponse.builder()
-            .id(transaction.getId())
-            .amount(transaction.getAmount())
-            .description(transaction.getDescription())
-            .sender(transaction.getSender() != null ? transaction.getSender().getIban() : null)
-            .receiver(transaction.getReceiver() != null ? transaction.getReceiver().getIban() : null)
-            .transactionType(transaction.getTransactionType().name())
-            .timestamp(transaction.getTimestamp().toString())
-            .build();
-    }
-
-    private AccountResponse createAccountResponse(Account account) {
-        return AccountResponse.builder()
-            .id(account.getId())
-            .accountType(account.getAccountType().getValue())
-            .iban(account.getIban())
-            .user(createUserResponse(account.getUser()))
-            .balance(account.getBalance())
-            .absoluteLimit(account.getAbsoluteLimit())
-            .active(account.isActive())
-            .timestamp(account.getCreatedAt().toString())
-            .build();
-    }
-
-    private UserResponse createUserResponse(User user) {
-        return UserResponse.builder()
-            .id(user.getId())
-            .firstName(user.getFirstName())
-            .lastName(user.getLastName())
-            .build();
-    }
-
-    private  List<IbanResponse> createListOfIbanResponses(List<Account> accounts) {
-        List<IbanResponse> ibanResponses = new ArrayList<>();
-        for (Account account : accounts) {
-            // Skip bank account
-            if (account.getIban().equals("NL01INHO0000000001")) {
-                continue;
-            }
-
-            IbanResponse ibanResponse = createIbanResponse(account);
-            ibanResponses.add(ibanResponse);
-        }
-        return ibanResponses;
-    }
-
     public Account getAccountAndValidate(Long accountId, User user) throws AccountNotFoundException {
         Account account = getAccountById(accountId);
         validateAccountOwner(user, account);
@@ -299,18 +254,8 @@ public class AccountServiceJpa extends BaseServiceJpa {
         }
     }
 
-    private IbanResponse createIbanResponse(Account account){
-        return IbanResponse.builder()
-            .iban(account.getIban())
-            .firstName(account.getUser().getFirstName())
-            .lastName(account.getUser().getLastName())
-            .build();
-    }
-
     // for the dataseeder
     public void addAccount(Account account) {
         accountRepository.save(account);
     }
-
-
 }
\ No newline at end of file
@@ -32,6 +32,9 @@ public class AuthService {
     @Autowired
     private UserServiceJpa userServiceJpa;
 
+    @Autowired
+    private UserStateService userStateService;
+
     public boolean checkIfUserIsBlocked(String email) throws UserNotFoundException {
         User user = userRepository.findByEmail(email)
             .orElseThrow(() -> new BadCredentialsException("User not found"));
@@ -49,7 +52,7 @@ public class AuthService {
     }
 
     private AuthenticationResponse buildAuthenticationResponse(User user) {
-        String jwt = jwtService.generateToken(user);
+        String jwt = jwtService.generateToken(user, userStateService.getVersion(user.getId()));
         return AuthenticationResponse.builder()
             .authenticationToken(jwt)
             .build();
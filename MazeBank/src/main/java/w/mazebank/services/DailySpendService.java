@@ -0,0 +1,90 @@
+package w.mazebank.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import w.mazebank.models.DailySpend;
+import w.mazebank.models.Money;
+import w.mazebank.repositories.AccountRepository;
+import w.mazebank.repositories.DailySpendRepository;
+import w.mazebank.repositories.TransactionRepository;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.TreeSet;
+
+@Service
+public class DailySpendService {
+    @Autowired
+    private DailySpendRepository dailySpendRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    public Money getSpentToday(long accountId) {
+        return getSpent(accountId, LocalDate.now());
+    }
+
+    public Money getSpent(long accountId, LocalDate date) {
+        return dailySpendRepository.findAmount(accountId, date).orElse(Money.ZERO);
+    }
+
+    public Money getSpentTodayByUser(long userId) {
+        return dailySpendRepository.sumAmountForUser(userId, LocalDate.now());
+    }
+
+    // has to be called in the same transaction that saves the transfer, so the ledger and the
+    // transactions table can never disagree. Only spend of a customer account is recorded, and that
+    // account is locked by then, so only one thread can create the entry for an account and day.
+    public void addSpend(long accountId, LocalDate date, Money amount) {
+        if (dailySpendRepository.addToAmount(accountId, date, amount) == 0) {
+            dailySpendRepository.save(DailySpend.builder()
+                .accountId(accountId)
+                .spendDate(date)
+                .amount(amount)
+                .build());
+        }
+    }
+
+    // recompute the ledger for the given days from the transactions table. Transfers may be booked
+    // while this runs, so instead of replacing the ledger every entry is corrected on its own, with
+    // the account locked like a transfer locks it and its total summed again under that lock.
+    // Entries of accounts that sent nothing that day are set to zero
+    public void rebuild(LocalDate from, LocalDate to) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            LocalDate spendDate = day;
+            Set<Long> accountIds = new TreeSet<>(transactionRepository.findSpendingSenderIdsBetween(day.atStartOfDay(), day.plusDays(1).atStartOfDay()));
+            accountIds.addAll(dailySpendRepository.findAccountIds(day));
+
+            for (long accountId : accountIds) {
+                transactionTemplate.executeWithoutResult(status -> rebuild(accountId, spendDate));
+            }
+        }
+    }
+
+    private void rebuild(long accountId, LocalDate day) {
+        accountLockManager.lockUntilTransactionCompletes(accountId);
+        accountRepository.findByIdForUpdate(accountId);
+
+        Money spent = Money.ofCents(transactionRepository.sumCentsSentBetween(accountId, day.atStartOfDay(), day.plusDays(1).atStartOfDay()));
+        if (dailySpendRepository.setAmount(accountId, day, spent) == 0 && spent.isGreaterThan(Money.ZERO)) {
+            dailySpendRepository.save(DailySpend.builder()
+                .accountId(accountId)
+                .spendDate(day)
+                .amount(spent)
+                .build());
+        }
+    }
+}
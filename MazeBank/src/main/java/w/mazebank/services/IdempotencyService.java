@@ -0,0 +1,144 @@
+package w.mazebank.services;
+
+import jakarta.servlet.ServletException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Transactional;
+import w.mazebank.exceptions.IdempotencyKeyInUseException;
+import w.mazebank.exceptions.IdempotencyKeyReusedException;
+import w.mazebank.models.IdempotencyRecord;
+import w.mazebank.repositories.IdempotencyRecordRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Runs a request at most once per Idempotency-Key, a retry gets the stored response of the first.
+// The key is inserted in the transaction the request runs in and gets its response in that same
+// transaction, so the transfer and the stored response are committed (or rolled back) together.
+// A concurrent duplicate waits for the request that holds the key: in this JVM on a lock stripe,
+// across instances on the inserted row, which the database won't let anyone insert again until the
+// first transaction has ended. Only successful responses are kept, after an error the key is free
+// again so the client can correct the request and retry.
+@Service
+public class IdempotencyService {
+    private static final int LOCK_STRIPES = 256;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Duration timeToLive;
+    private final Duration waitTimeout;
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+
+    public IdempotencyService(
+        @Value("${mazebank.idempotency.ttl:24h}") Duration timeToLive,
+        @Value("${mazebank.idempotency.wait-timeout:10s}") Duration waitTimeout
+    ) {
+        this.timeToLive = timeToLive;
+        this.waitTimeout = waitTimeout;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // the request itself, returns the status and body it responded with
+    @FunctionalInterface
+    public interface Request {
+        IdempotencyRecord proceed() throws IOException, ServletException;
+    }
+
+    // returns the stored response when the key was used before, empty when the request ran now
+    public Optional<IdempotencyRecord> execute(long userId, String key, String requestHash, Request request)
+        throws IdempotencyKeyReusedException, IdempotencyKeyInUseException, IOException, ServletException {
+        String id = idFor(userId, key);
+        ReentrantLock lock = stripes[Math.floorMod(id.hashCode(), LOCK_STRIPES)];
+
+        try {
+            if (!lock.tryLock(waitTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw keyInUse();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw keyInUse();
+        }
+
+        try {
+            Optional<IdempotencyRecord> stored = findStored(id, requestHash);
+            if (stored.isPresent()) return stored;
+
+            TransactionStatus transaction = transactionManager.getTransaction(TransactionDefinition.withDefaults());
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                idempotencyRecordRepository.deleteIfExpired(id, now);
+                idempotencyRecordRepository.claim(id, userId, requestHash, now, now.plus(timeToLive));
+            } catch (DataIntegrityViolationException e) {
+                // another instance used the key and has committed in the meantime
+                transactionManager.rollback(transaction);
+                return Optional.of(findStored(id, requestHash).orElseThrow(this::keyInUse));
+            } catch (PessimisticLockingFailureException e) {
+                // another instance is still running a request with this key
+                transactionManager.rollback(transaction);
+                throw keyInUse();
+            }
+
+            IdempotencyRecord response;
+            try {
+                response = request.proceed();
+            } catch (Throwable e) {
+                transactionManager.rollback(transaction);
+                throw e;
+            }
+
+            if (isSuccessful(response.getResponseStatus())) {
+                idempotencyRecordRepository.complete(id, response.getResponseStatus(), response.getResponseBody());
+                transactionManager.commit(transaction);
+            } else {
+                transactionManager.rollback(transaction);
+            }
+            return Optional.empty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${mazebank.idempotency.cleanup-interval:PT1H}")
+    @Transactional
+    public void deleteExpired() {
+        idempotencyRecordRepository.deleteAllExpired(LocalDateTime.now());
+    }
+
+    // keys are chosen by the client, so they are only unique per user
+    static String idFor(long userId, String key) {
+        return userId + ":" + key;
+    }
+
+    private Optional<IdempotencyRecord> findStored(String id, String requestHash) throws IdempotencyKeyReusedException {
+        Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findUnexpired(id, LocalDateTime.now());
+        if (stored.isPresent() && !stored.get().getRequestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReusedException("Idempotency-Key was already used for a different request");
+        }
+        return stored;
+    }
+
+    private static boolean isSuccessful(int status) {
+        return status >= 200 && status < 300;
+    }
+
+    private IdempotencyKeyInUseException keyInUse() {
+        return new IdempotencyKeyInUseException("A request with this Idempotency-Key is still being processed");
+    }
+}
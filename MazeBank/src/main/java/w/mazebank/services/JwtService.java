@@ -1,12 +1,14 @@
 package w.mazebank.services;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import w.mazebank.enums.RoleType;
 import w.mazebank.models.User;
 
 import java.security.Key;
@@ -19,61 +21,91 @@ import java.util.function.Function;
 public class JwtService {
     private static final String SECRET_KEY = "5367566B5970337336763979244226452948404D6251655468576D5A71347437";
 
+    // decoding the secret and building the parser is expensive, so both are done once
+    // the parser is immutable and thread safe, so every request can share it
+    private final Key signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signInKey).build();
+
     public String extractEmail(String jwt) {
         return extractClaim(jwt, Claims::getSubject);
     }
 
-    private Date extractExpiration(String jwt) {
-        return extractClaim(jwt, Claims::getExpiration);
-    }
-
     public String generateToken(User user) {
         return generateToken(new HashMap<>(), user);
     }
 
+    // the state version lets the stateless filter reject tokens issued before the user was revoked
+    public String generateToken(User user, long stateVersion) {
+        Map<String, Object> extraClaims = new HashMap<>();
+        extraClaims.put("ver", stateVersion);
+        return generateToken(extraClaims, user);
+    }
+
     public String generateToken(Map<String, Object> extraClaims, User user) {
         return Jwts
             .builder()
             .setClaims(extraClaims)
             .claim("userId", user.getId())
+            .claim("role", user.getRole().name())
             .setSubject(user.getUsername())
             .setIssuedAt(new Date(System.currentTimeMillis()))
             // .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 24))
             // set expiration to 1 year
             .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24 * 365))
-            .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+            .signWith(signInKey, SignatureAlgorithm.HS256)
             .compact();
     }
 
     // check if the email in the jwt matches the email in the UserDetails object
     public boolean isTokenValid(String jwt, UserDetails userDetails) {
-        final String email = extractEmail(jwt);
-        return (email.equals(userDetails.getUsername()) && !isTokenExpired(jwt));
+        return isTokenValid(extractValidClaims(jwt), userDetails);
     }
 
-    // check if the email in the jwt matches the email in the User object
-    private boolean isTokenExpired(String jwt) {
-        return extractExpiration(jwt).before(new Date());
+    // same check on claims that were already parsed, so the token is not parsed again
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return (claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims));
     }
 
-    // extract a claim from the token
-    public <T> T extractClaim(String jwt, Function<Claims, T> claimsResolver) {
-        // extract all claims from the token
-        final Claims claims = extractAllClaims(jwt);
-        return claimsResolver.apply(claims);
+    // check if the expiration date in the claims has passed
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
 
-    private Claims extractAllClaims(String jwt) {
-        return Jwts
-            .parserBuilder()
-            .setSigningKey(getSignInKey())
-            .build()
-            .parseClaimsJws(jwt)
-            .getBody();
+    // parses the token and verifies the signature and expiration date
+    // throws SignatureException, ExpiredJwtException or MalformedJwtException when the token cannot be trusted
+    public Claims extractValidClaims(String jwt) {
+        return parser.parseClaimsJws(jwt).getBody();
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public Long extractUserId(Claims claims) {
+        return claims.get("userId", Long.class);
+    }
+
+    // tokens issued before versions were added count as version 0
+    public long extractStateVersion(Claims claims) {
+        Long version = claims.get("ver", Long.class);
+        return version != null ? version : 0;
+    }
+
+    // builds the principal from the claims alone, without loading the user from the database
+    // only id, email and role are filled in, services that need more load the user themselves
+    // returns null for tokens that do not carry the role
+    public User extractPrincipal(Claims claims) {
+        Long userId = extractUserId(claims);
+        String role = claims.get("role", String.class);
+        if (userId == null || role == null) return null;
+
+        return User.builder()
+            .id(userId)
+            .email(claims.getSubject())
+            .role(RoleType.valueOf(role))
+            .build();
+    }
+
+    // extract a claim from the token
+    public <T> T extractClaim(String jwt, Function<Claims, T> claimsResolver) {
+        // extract all claims from the token
+        final Claims claims = extractValidClaims(jwt);
+        return claimsResolver.apply(claims);
     }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package w.mazebank.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Service;
+import w.mazebank.exceptions.TransactionFailedException;
+import w.mazebank.models.Transaction;
+import w.mazebank.models.responses.TransactionRuleResponse;
+import w.mazebank.rules.TransactionRule;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Runs the transaction rules that apply to a transaction, cheapest cost class first, and stops at the
+// first rule that rejects it. Per rule it counts how often it ran, how often it rejected a transaction
+// and how long it took, see GET /transactions/rules. The same counts are exported as metrics, the
+// rejections per rule are the rejections by reason.
+@Service
+public class TransactionRuleEngine implements MeterBinder {
+    private final List<RegisteredRule> rules;
+
+    public TransactionRuleEngine(List<TransactionRule> rules) {
+        // spring hands the rules over in @Order, the sort is stable so that order holds within a cost class
+        this.rules = rules.stream()
+            .sorted(Comparator.comparing(TransactionRule::getCost))
+            .map(RegisteredRule::new)
+            .toList();
+    }
+
+    public void validate(Transaction transaction, TransferLedger ledger) throws TransactionFailedException {
+        for (RegisteredRule rule : rules) {
+            if (rule.rule.appliesTo(transaction.getTransactionType())) {
+                rule.check(transaction, ledger);
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (RegisteredRule rule : rules) {
+            FunctionCounter.builder("mazebank.transactions.rejected", rule, r -> r.rejections.sum())
+                .description("Transactions rejected by a transaction rule")
+                .tag("reason", rule.rule.getName())
+                .register(registry);
+            FunctionTimer.builder("mazebank.transactions.rules", rule, r -> r.evaluations.sum(), r -> r.nanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Time spent checking a transaction rule")
+                .tag("rule", rule.rule.getName())
+                .register(registry);
+        }
+    }
+
+    public List<TransactionRuleResponse> getStatistics() {
+        return rules.stream().map(RegisteredRule::toResponse).toList();
+    }
+
+    private static class RegisteredRule {
+        private final TransactionRule rule;
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        RegisteredRule(TransactionRule rule) {
+            this.rule = rule;
+        }
+
+        void check(Transaction transaction, TransferLedger ledger) throws TransactionFailedException {
+            long start = System.nanoTime();
+            try {
+                rule.check(transaction, ledger);
+            } catch (TransactionFailedException e) {
+                rejections.increment();
+                throw e;
+            } finally {
+                nanos.add(System.nanoTime() - start);
+                evaluations.increment();
+            }
+        }
+
+        TransactionRuleResponse toResponse() {
+            long count = evaluations.sum();
+            return TransactionRuleResponse.builder()
+                .name(rule.getName())
+                .cost(rule.getCost().toString())
+                .evaluations(count)
+                .rejections(rejections.sum())
+                .averageMicros(count == 0 ? 0 : nanos.sum() / 1000.0 / count)
+                .build();
+        }
+    }
+}
@@ -1,25 +1,42 @@
 package w.mazebank.services;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import w.mazebank.enums.AccountType;
+import w.mazebank.enums.BatchMode;
 import w.mazebank.enums.RoleType;
 import w.mazebank.enums.TransactionType;
 import w.mazebank.exceptions.*;
 import w.mazebank.models.Account;
+import w.mazebank.models.Money;
 import w.mazebank.models.Transaction;
+import w.mazebank.models.TransactionFilter;
+import w.mazebank.models.TransferContext;
 import w.mazebank.models.User;
+import w.mazebank.models.requests.BatchTransactionRequest;
 import w.mazebank.models.requests.TransactionRequest;
+import w.mazebank.models.responses.BatchItemResponse;
+import w.mazebank.models.responses.BatchTransactionResponse;
+import w.mazebank.models.responses.TransactionPageResponse;
 import w.mazebank.models.responses.TransactionResponse;
 import w.mazebank.repositories.AccountRepository;
 import w.mazebank.repositories.TransactionRepository;
+import w.mazebank.utils.ResponseMapper;
+import w.mazebank.utils.TransactionCursor;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
 
 @Service
 public class TransactionServiceJpa {
@@ -33,7 +50,28 @@ public class TransactionServiceJpa {
     @Lazy
     private AccountServiceJpa accountServiceJpa;
 
-    private final ModelMapper mapper = new ModelMapper();
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    @Autowired
+    private DailySpendService dailySpendService;
+
+    @Autowired
+    private TransactionRuleEngine transactionRuleEngine;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${mazebank.transactions.batch.max-size:1000}")
+    private int maxBatchSize;
+
+    // the account locks only hold within this instance, with more instances on one database the
+    // rows of a transfer have to be locked in the database as well
+    @Value("${mazebank.transactions.lock-rows:false}")
+    private boolean lockRows;
 
     private static final String BANK_IBAN = "NL01INHO0000000001";
 
@@ -43,7 +81,7 @@ public class TransactionServiceJpa {
         // validate the transaction
         checkIfSenderIsBankAccount(transaction);
         checkIfUserPerformingIsTransactionParticipant(userPerforming, transaction);
-        return mapTransactionToResponse(transaction);
+        return ResponseMapper.toTransactionResponse(transaction);
     }
 
     private void checkIfSenderIsBankAccount(Transaction transaction) throws UnauthorizedTransactionAccessException {
@@ -65,15 +103,6 @@ public class TransactionServiceJpa {
         throw new UnauthorizedTransactionAccessException("User with id: " + user.getId() + " is not authorized to access transaction with id: " + transaction.getId());
     }
 
-    private TransactionResponse mapTransactionToResponse(Transaction transaction) {
-        mapper.typeMap(Transaction.class, TransactionResponse.class)
-            .addMappings(mapper -> {
-                mapper.map(src -> src.getSender().getIban(), TransactionResponse::setSender);
-                mapper.map(src -> src.getReceiver().getIban(), TransactionResponse::setReceiver);
-            });
-        return mapper.map(transaction, TransactionResponse.class);
-    }
-
     @Transactional
     public TransactionResponse postTransaction(TransactionRequest transactionRequest, User userPerforming)
         throws TransactionFailedException, InsufficientFundsException, AccountNotFoundException {
@@ -82,23 +111,167 @@ public class TransactionServiceJpa {
             throw new UnauthorizedAccountAccessException("You are not allowed to perform transactions for the bank's bank account");
         }
 
-        // get the 2 accounts involved in the transaction
+        // get the 2 accounts involved in the transaction, with everything the validations read
         Account senderAccount = accountServiceJpa.getAccountByIban(transactionRequest.getSenderIban());
         Account receiverAccount = accountServiceJpa.getAccountByIban(transactionRequest.getReceiverIban());
+        TransferContext context = lockAndLoadTransferContext(senderAccount, receiverAccount);
 
         // create the transaction
-        Transaction transaction = buildTransaction(transactionRequest, userPerforming, senderAccount, receiverAccount, TransactionType.TRANSFER);
+        Transaction transaction = buildTransaction(transactionRequest, userPerforming, context.getSender(), context.getReceiver(), TransactionType.TRANSFER);
+
+        transactionRuleEngine.validate(transaction, new TransferLedger(dailySpendService, context));
+
+        updateAccountBalances(context.getSender(), context.getReceiver(), transaction.getAmount());
+        recordDailySpend(transaction);
+        performTransaction(transaction);
+
+        return ResponseMapper.toTransactionResponse(transaction);
+    }
+
+    // books a batch of transfers in one database transaction. Every transfer goes through the same
+    // validations as a single one, against the balances and day totals as they are after the transfers
+    // before it. The balance changes are added up per account, so every account is updated once, and
+    // the transactions are inserted together.
+    @Transactional(rollbackOn = Exception.class)
+    public BatchTransactionResponse postTransactions(BatchTransactionRequest batchRequest, User userPerforming)
+        throws BadRequestException, AccountAbsoluteLimitReachedException {
+
+        List<TransactionRequest> requests = batchRequest.getTransactions();
+        if (requests.size() > maxBatchSize) {
+            throw new BadRequestException("A batch can contain at most " + maxBatchSize + " transactions");
+        }
+
+        Map<String, Account> accounts = lockAndLoadAccounts(requests);
+        TransferLedger ledger = new TransferLedger(dailySpendService);
+        LocalDateTime timestamp = LocalDateTime.now();
+
+        BatchItemResponse[] results = new BatchItemResponse[requests.size()];
+        Map<Integer, Transaction> accepted = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                Transaction transaction = buildBatchTransaction(requests.get(i), userPerforming, accounts, timestamp);
+                transactionRuleEngine.validate(transaction, ledger);
+                ledger.add(transaction);
+                accepted.put(i, transaction);
+            } catch (TransactionFailedException | AccountNotFoundException | InsufficientFundsException | UnauthorizedAccountAccessException e) {
+                results[i] = BatchItemResponse.builder().index(i).status(BatchItemResponse.FAILED).message(e.getMessage()).build();
+            }
+        }
+
+        boolean book = batchRequest.getMode() == BatchMode.BEST_EFFORT || accepted.size() == requests.size();
+        if (book && !accepted.isEmpty()) {
+            bookBalanceChanges(ledger);
+            ledger.getSpentInBatch().forEach((accountId, amount) -> dailySpendService.addSpend(accountId, timestamp.toLocalDate(), amount));
+            transactionRepository.saveAll(accepted.values());
+            countBooked(TransactionType.TRANSFER, accepted.size());
+        }
+
+        accepted.forEach((i, transaction) -> results[i] = book
+            ? BatchItemResponse.builder().index(i).status(BatchItemResponse.CREATED).transaction(ResponseMapper.toTransactionResponse(transaction)).build()
+            : BatchItemResponse.builder().index(i).status(BatchItemResponse.NOT_EXECUTED).build());
+
+        int created = book ? accepted.size() : 0;
+        return BatchTransactionResponse.builder()
+            .mode(batchRequest.getMode().toString())
+            .created(created)
+            .failed(requests.size() - accepted.size())
+            .results(Arrays.asList(results))
+            .build();
+    }
+
+    private Map<String, Account> lockAndLoadAccounts(List<TransactionRequest> requests) {
+        Set<String> ibans = new HashSet<>();
+        for (TransactionRequest request : requests) {
+            ibans.add(request.getSenderIban());
+            ibans.add(request.getReceiverIban());
+        }
+
+        // the receivers are locked as well, a single transfer writes its accounts in another order
+        // than the batch and the two would deadlock on the rows. Loading the accounts after locking
+        // them means the validations see the balances as they are now
+        long[] accountIds = accountRepository.findIdsByIbanIn(ibans).stream().mapToLong(Long::longValue).toArray();
+        accountLockManager.lockUntilTransactionCompletes(accountIds);
+
+        Map<String, Account> accounts = new HashMap<>();
+        for (Account account : accountRepository.findByIbanIn(ibans)) {
+            accounts.put(account.getIban(), account);
+        }
+        return accounts;
+    }
+
+    private Transaction buildBatchTransaction(TransactionRequest request, User userPerforming, Map<String, Account> accounts, LocalDateTime timestamp)
+        throws AccountNotFoundException, TransactionFailedException {
+
+        if (request.getSenderIban().equals(BANK_IBAN)) {
+            throw new UnauthorizedAccountAccessException("You are not allowed to perform transactions for the bank's bank account");
+        }
+
+        Transaction transaction = buildTransaction(request, userPerforming, accountInBatch(accounts, request.getSenderIban()),
+            accountInBatch(accounts, request.getReceiverIban()), TransactionType.TRANSFER);
+        transaction.setTimestamp(timestamp);
+        return transaction;
+    }
+
+    private Account accountInBatch(Map<String, Account> accounts, String iban) throws AccountNotFoundException {
+        Account account = accounts.get(iban);
+        if (account == null) {
+            throw new AccountNotFoundException("Account with iban: " + iban + " not found");
+        }
+        return account;
+    }
+
+    private void bookBalanceChanges(TransferLedger ledger) throws AccountAbsoluteLimitReachedException {
+        // all debits first, so nothing is credited when one of them fails and the batch rolls back.
+        // Every account of the batch is locked, so no other transfer is writing these rows meanwhile
+        for (Map.Entry<Long, Money> change : ledger.getBalanceChanges().entrySet()) {
+            if (change.getValue().isNegative()) {
+                debitAccount(change.getKey(), change.getValue().negate());
+            }
+        }
+        for (Map.Entry<Long, Money> change : ledger.getBalanceChanges().entrySet()) {
+            if (change.getValue().isGreaterThan(Money.ZERO)) {
+                accountRepository.creditBalance(change.getKey(), change.getValue());
+            }
+        }
+    }
 
-        validateRegularTransaction(transaction);
+    private TransferContext lockAndLoadTransferContext(Account senderAccount, Account receiverAccount) throws AccountNotFoundException {
+        lockAndRefresh(senderAccount, receiverAccount);
 
-        updateAccountBalances(senderAccount, receiverAccount, transactionRequest.getAmount());
+        return accountRepository.findTransferContext(senderAccount.getId(), receiverAccount.getId(), LocalDate.now(), lockRows)
+            .orElseThrow(() -> new AccountNotFoundException("Account with id: " + senderAccount.getId() + " or " + receiverAccount.getId() + " not found"));
+    }
+
+    // lock the accounts until the transaction completes, so validations and balance updates work on the
+    // balance as it is after any transfer we had to wait for. An account that is only referenced is read
+    // as it is now when it is first used, one this persistence context loaded before is read again
+    private void lockAndRefresh(Account... accounts) {
+        long[] accountIds = new long[accounts.length];
+        for (int i = 0; i < accounts.length; i++) {
+            accountIds[i] = accounts[i].getId();
+        }
+        accountLockManager.lockUntilTransactionCompletes(accountIds);
+
+        for (Account account : accounts) {
+            if (Hibernate.isInitialized(account)) {
+                entityManager.refresh(account);
+            }
+        }
+    }
 
-        return performTransaction(transaction);
+    // the requested amount in cents, an amount too large to count in cents is refused instead of overflowing
+    static Money amountOf(double amount) throws TransactionFailedException {
+        try {
+            return Money.of(amount);
+        } catch (ArithmeticException e) {
+            throw new TransactionFailedException("Amount is too large");
+        }
     }
 
-    private Transaction buildTransaction(TransactionRequest request, User userPerforming, Account senderAccount, Account receiverAccount, TransactionType transactionType) {
+    private Transaction buildTransaction(TransactionRequest request, User userPerforming, Account senderAccount, Account receiverAccount, TransactionType transactionType)
+        throws TransactionFailedException {
         return Transaction.builder()
-            .amount(request.getAmount())
+            .amount(amountOf(request.getAmount()))
             .description(request.getDescription())
             .transactionType(transactionType)
             .userPerforming(userPerforming)
@@ -114,7 +287,7 @@ public class TransactionServiceJpa {
     }
 
     private Account getBankAccount() throws AccountNotFoundException {
-        return accountServiceJpa.getAccountByIban(BANK_IBAN);
+        return accountServiceJpa.getBankAccount();
     }
 
     // used for database seeding
@@ -122,23 +295,14 @@ public class TransactionServiceJpa {
         transactionRepository.save(transaction);
     }
 
-    private TransactionResponse performTransaction(Transaction transaction) {
+    private void performTransaction(Transaction transaction) {
         saveTransaction(transaction);
-
-        return buildTransactionResponse(transaction);
+        countBooked(transaction.getTransactionType(), 1);
     }
 
-    private TransactionResponse buildTransactionResponse(Transaction transaction) {
-        return  TransactionResponse.builder()
-            .id(transaction.getId())
-            .amount(transaction.getAmount())
-            .description(transaction.getDescription())
-            .sender(transaction.getSender().getIban())
-            .receiver(transaction.getReceiver().getIban())
-            .userPerforming(transaction.getUserPerforming().getId())
-            .timestamp(transaction.getTimestamp().toString())
-            .transactionType(transaction.getTransactionType().toString())
-            .build();
+    // transfers, deposits and withdrawals, exported as mazebank_transactions_booked_total
+    private void countBooked(TransactionType transactionType, int count) {
+        meterRegistry.counter("mazebank.transactions.booked", "type", transactionType.toString().toLowerCase()).increment(count);
     }
 
     @Transactional
@@ -148,16 +312,22 @@ public class TransactionServiceJpa {
             .amount(amount)
             .build();
 
+        lockAndRefresh(account);
         Transaction transaction = checkAndBuildTransaction(account, transactionType, userPerforming, request);
 
         // validate the transaction and update the account balance
-        validateAtmTransaction(transaction);
-        updateAccountBalanceForAtmAction(account, amount, transactionType);
-
-        return performTransaction(transaction);
+        transactionRuleEngine.validate(transaction, new TransferLedger(dailySpendService));
+        updateAccountBalanceForAtmAction(account, transaction.getAmount(), transactionType);
+        recordDailySpend(transaction);
+        performTransaction(transaction);
+
+        // the bank's account is only referenced, neither the rules nor the response load it
+        return transactionType == TransactionType.WITHDRAWAL
+            ? ResponseMapper.toTransactionResponse(transaction, account.getIban(), BANK_IBAN)
+            : ResponseMapper.toTransactionResponse(transaction, BANK_IBAN, account.getIban());
     }
 
-    private Transaction checkAndBuildTransaction(Account account, TransactionType transactionType, User userPerforming, TransactionRequest request) throws AccountNotFoundException {
+    private Transaction checkAndBuildTransaction(Account account, TransactionType transactionType, User userPerforming, TransactionRequest request) throws AccountNotFoundException, TransactionFailedException {
         Transaction transaction;
         if (transactionType == TransactionType.WITHDRAWAL) {
             transaction =  buildTransaction(request, userPerforming, account, getBankAccount(), transactionType);
@@ -167,135 +337,86 @@ public class TransactionServiceJpa {
         return transaction;
     }
 
-    // to validate any transaction
-    private void validateTransaction(Transaction transaction) throws TransactionFailedException {
-        checkIfSenderAndReceiverAreNotTheSame(transaction);
-        checkIfOneOfTheAccountsIsBlocked(transaction);
-        checkIfTransactionLimitIsExceeded(transaction);
-        checkIfAbsoluteLimitIsReached(transaction);
-        checkDayLimitExceeded(transaction);
-        checkIfSenderIsBlocked(transaction);
-    }
-
-    // to validate an atm transaction
-    private void validateAtmTransaction(Transaction transaction) throws TransactionFailedException {
-        // validate all transaction validations
-        validateTransaction(transaction);
-        checkIfAccountIsNotSavings(transaction);
-    }
-
-    private void checkIfAccountIsNotSavings(Transaction transaction) throws TransactionFailedException {
-        // validate ATM transaction validations
-        if (transaction.getReceiver().getAccountType() == AccountType.SAVINGS) {
-            throw new TransactionFailedException("Cannot deposit or withdraw to a savings account from an ATM");
-        }
-    }
-
-    // to validate a regular transaction
-    private void validateRegularTransaction(Transaction transaction) throws TransactionFailedException, InsufficientFundsException {
-        // validate all transaction validations
-        validateTransaction(transaction);
-        savingsAccountCheckSend(transaction);
-        checkIfUserIsAuthorized(transaction);
-    }
-
-    private void checkIfOneOfTheAccountsIsBlocked(Transaction transaction) throws TransactionFailedException {
-        if (!transaction.getSender().isActive())
-            throw new TransactionFailedException("Sender account is blocked");
-
-        if (!transaction.getReceiver().isActive())
-            throw new TransactionFailedException("Receiver account is blocked");
-    }
-
-    private void checkIfSenderIsBlocked(Transaction transaction) throws TransactionFailedException {
-        if (transaction.getSender().getUser().isBlocked()) {
-            throw new TransactionFailedException("User is blocked");
+    private void recordDailySpend(Transaction transaction) {
+        if (TransferLedger.countsTowardsDayLimit(transaction)) {
+            dailySpendService.addSpend(transaction.getSender().getId(), transaction.getTimestamp().toLocalDate(), transaction.getAmount());
         }
     }
 
-    private void checkIfUserIsAuthorized(Transaction transaction) throws TransactionFailedException {
-        // if the user is an employee, he is allowed to perform any transaction
-        // if the user is a customer, he is only allowed to perform transactions on his own accounts
-        if (transaction.getUserPerforming().getRole() != RoleType.EMPLOYEE
-            && transaction.getUserPerforming().getId() != transaction.getSender().getUser().getId()) {
-            throw new TransactionFailedException("User performing the transaction is not authorized to perform this transaction");
-        }
+    private void updateAccountBalances(Account senderAccount, Account receiverAccount, Money amount) throws AccountAbsoluteLimitReachedException {
+        // the limit check and the balance change happen in one statement, so there is no window
+        // in which another transfer can change the balance between reading and writing it
+        debitAccount(senderAccount.getId(), amount);
+        accountRepository.creditBalance(receiverAccount.getId(), amount);
     }
 
-    private void checkIfTransactionLimitIsExceeded(Transaction transaction) throws TransactionFailedException {
-        // if the transaction amount is higher than the transaction limit of the user
-        if (transaction.getAmount() > transaction.getSender().getUser().getTransactionLimit()) {
-            throw new TransactionFailedException("Transaction limit exceeded");
+    private void updateAccountBalanceForAtmAction(Account account, Money amount, TransactionType transactionType) throws AccountAbsoluteLimitReachedException {
+        if (transactionType == TransactionType.WITHDRAWAL) {
+            debitAccount(account.getId(), amount);
+        } else {
+            accountRepository.creditBalance(account.getId(), amount);
         }
     }
 
-    private void checkIfAbsoluteLimitIsReached(Transaction transaction) throws AccountAbsoluteLimitReachedException {
-        // Check if the transaction type is either TRANSFER or WITHDRAWAL
-        if (transaction.getTransactionType() == TransactionType.TRANSFER
-            || transaction.getTransactionType() == TransactionType.WITHDRAWAL) {
-
-            // Determine the account to check based on the transaction type
-            Account accountToCheck = transaction.getTransactionType() == TransactionType.WITHDRAWAL
-                ? transaction.getReceiver()
-                : transaction.getSender();
-
-            double newBalance = accountToCheck.getBalance() - transaction.getAmount();
-
-            if (newBalance < accountToCheck.getAbsoluteLimit()) {
-                throw new AccountAbsoluteLimitReachedException("Balance cannot become lower than absolute limit");
-            }
+    private void debitAccount(long accountId, Money amount) throws AccountAbsoluteLimitReachedException {
+        // no updated row means the balance would have dropped below the absolute limit
+        if (accountRepository.debitBalance(accountId, amount) == 0) {
+            throw new AccountAbsoluteLimitReachedException("Balance cannot become lower than absolute limit");
         }
     }
 
-    private void checkDayLimitExceeded(Transaction transaction) throws TransactionFailedException {
-        Account sender = transaction.getSender();
-        Double totalAmountOfTransactionForToday = transactionRepository.getTotalAmountOfTransactionForToday(sender.getId());
-        double totalAmountOfToday = totalAmountOfTransactionForToday != null ? totalAmountOfTransactionForToday : 0.0;
+    // transactions of an account, sorted on timestamp
+    public List<Transaction> getTransactionsByUser(Long accountId, Pageable pageable) {
+        Sort.Order order = pageable.getSort().getOrderFor("timestamp");
+        Sort.Direction direction = order == null ? Sort.Direction.ASC : order.getDirection();
 
-        // check if the total amount of today + the amount of the transaction is higher than the day limit
-        if (totalAmountOfToday + transaction.getAmount() > sender.getUser().getDayLimit())
-            throw new TransactionFailedException("Day limit exceeded");
+        // ties on the timestamp are ordered by id, so no transaction shows up on two pages
+        Pageable page = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(direction, "timestamp", "id"));
+        return transactionRepository.findByAccount(accountId, page);
     }
 
-    private void savingsAccountCheckSend(Transaction transaction) throws TransactionFailedException {
-        // if the sender is a savings account and the receiver is not the same customer
-        if (transaction.getSender().getAccountType() == AccountType.SAVINGS
-            && (transaction.getSender().getUser().getId() != transaction.getReceiver().getUser().getId())) {
-            throw new TransactionFailedException("Cannot transfer from a savings account to an account that is not of the same customer");
-        }
-
-        // if the receiver is a savings account and the sender is not the same customer
-        if (transaction.getReceiver().getAccountType() == AccountType.SAVINGS
-            && (transaction.getSender().getUser().getId() != transaction.getReceiver().getUser().getId())) {
-            throw new TransactionFailedException("Cannot transfer to a savings account from an account that is not of the same customer");
+    // one page of the transactions matching the filter, continuing after the given cursor
+    // a null or empty cursor starts at the first page
+    public TransactionPageResponse getTransactionPage(TransactionFilter filter, String cursor, String sort, int pageSize, Function<Transaction, TransactionResponse> mapper) throws InvalidCursorException {
+        if (filter.getParticipantUserId() != null) {
+            List<Long> accountIds = accountRepository.findIdsByUserId(filter.getParticipantUserId());
+            return seekTransactionPage(cursor, sort, pageSize, mapper,
+                (after, ascending, limit) -> transactionRepository.findByAccountsAfter(accountIds, filter.toSearchSpecification(), after, ascending, limit));
         }
+        return seekTransactionPage(cursor, sort, pageSize, mapper,
+            (after, ascending, limit) -> transactionRepository.findAfter(filter.toSpecification(), after, ascending, limit));
     }
 
-    private void checkIfSenderAndReceiverAreNotTheSame(Transaction transaction) throws TransactionFailedException {
-        if (transaction.getSender().getId() == transaction.getReceiver().getId())
-            throw new TransactionFailedException("Sender and receiver cannot be the same");
+    // same for the transactions of one account
+    public TransactionPageResponse getAccountTransactionPage(long accountId, String cursor, String sort, int pageSize, Function<Transaction, TransactionResponse> mapper) throws InvalidCursorException {
+        return seekTransactionPage(cursor, sort, pageSize, mapper,
+            (after, ascending, limit) -> transactionRepository.findByAccountAfter(accountId, after, ascending, limit));
     }
 
-    private void updateAccountBalances(Account senderAccount, Account receiverAccount, double amount) {
-        senderAccount.setBalance(senderAccount.getBalance() - amount);
-        receiverAccount.setBalance(receiverAccount.getBalance() + amount);
+    private TransactionPageResponse seekTransactionPage(String cursor, String sort, int pageSize, Function<Transaction, TransactionResponse> mapper, TransactionSeek seek) throws InvalidCursorException {
+        TransactionCursor after = cursor == null || cursor.isBlank() ? null : TransactionCursor.decode(cursor);
+        boolean ascending = sort.equalsIgnoreCase("asc");
 
-        // save the updated accounts
-        accountRepository.save(senderAccount);
-        accountRepository.save(receiverAccount);
-    }
+        // fetch one extra transaction to find out if there is a next page, instead of counting
+        List<Transaction> transactions = seek.find(after, ascending, pageSize + 1);
+        boolean hasNextPage = transactions.size() > pageSize;
+        if (hasNextPage) {
+            transactions = transactions.subList(0, pageSize);
+        }
 
-    private void updateAccountBalanceForAtmAction(Account account, double amount, TransactionType transactionType) {
-        if (transactionType == TransactionType.WITHDRAWAL) {
-            account.setBalance(account.getBalance() - amount);
-        } else {
-            account.setBalance(account.getBalance() + amount);
+        String nextCursor = null;
+        if (hasNextPage) {
+            Transaction last = transactions.get(transactions.size() - 1);
+            nextCursor = new TransactionCursor(last.getTimestamp(), last.getId()).encode();
         }
 
-        accountRepository.save(account);
+        return TransactionPageResponse.builder()
+            .transactions(transactions.stream().map(mapper).toList())
+            .nextCursor(nextCursor)
+            .build();
     }
 
-    public List<Transaction> getTransactionsByUser(Long accountId, Pageable pageable) {
-        return transactionRepository.findBySenderIdOrReceiverId(accountId, accountId, pageable);
+    private interface TransactionSeek {
+        List<Transaction> find(TransactionCursor after, boolean ascending, int limit);
     }
 }
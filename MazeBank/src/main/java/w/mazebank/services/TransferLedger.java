@@ -0,0 +1,69 @@
+package w.mazebank.services;
+
+import w.mazebank.enums.TransactionType;
+import w.mazebank.models.Account;
+import w.mazebank.models.Money;
+import w.mazebank.models.Transaction;
+import w.mazebank.models.TransferContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// The balance and day limit changes of the transfers accepted so far, so every transfer of a batch
+// is validated as if the ones before it were already booked. A single transfer uses an empty ledger.
+public class TransferLedger {
+    private final DailySpendService dailySpendService;
+    private final SortedMap<Long, Money> balanceChanges = new TreeMap<>();
+    private final Map<Long, Money> spentToday = new HashMap<>();
+    private final SortedMap<Long, Money> spentInBatch = new TreeMap<>();
+
+    public TransferLedger(DailySpendService dailySpendService) {
+        this.dailySpendService = dailySpendService;
+    }
+
+    // the sender's daily spend came with the transfer context, so it isn't read again
+    public TransferLedger(DailySpendService dailySpendService, TransferContext context) {
+        this(dailySpendService);
+        spentToday.put(context.getSender().getId(), context.getSenderSpentToday());
+    }
+
+    // only money a customer sends to another customer counts towards the day limit. Deposits are
+    // sent by the bank's account, which has no day limit and isn't locked, so nothing is recorded for it
+    public static boolean countsTowardsDayLimit(Transaction transaction) {
+        if (transaction.getTransactionType() == TransactionType.DEPOSIT) return false;
+        // a withdrawal always goes to the bank's account, which isn't loaded to find that out
+        if (transaction.getTransactionType() == TransactionType.WITHDRAWAL) return true;
+
+        return transaction.getSender().getUser().getId() != transaction.getReceiver().getUser().getId();
+    }
+
+    public Money balanceOf(Account account) {
+        return account.getBalance().plus(balanceChanges.getOrDefault(account.getId(), Money.ZERO));
+    }
+
+    public Money spentTodayBy(Account sender) {
+        return spentToday.computeIfAbsent(sender.getId(), dailySpendService::getSpentToday);
+    }
+
+    public void add(Transaction transaction) {
+        Money amount = transaction.getAmount();
+        balanceChanges.merge(transaction.getSender().getId(), amount.negate(), Money::plus);
+        balanceChanges.merge(transaction.getReceiver().getId(), amount, Money::plus);
+
+        if (countsTowardsDayLimit(transaction)) {
+            Account sender = transaction.getSender();
+            spentToday.put(sender.getId(), spentTodayBy(sender).plus(amount));
+            spentInBatch.merge(sender.getId(), amount, Money::plus);
+        }
+    }
+
+    public SortedMap<Long, Money> getBalanceChanges() {
+        return balanceChanges;
+    }
+
+    public SortedMap<Long, Money> getSpentInBatch() {
+        return spentInBatch;
+    }
+}
@@ -0,0 +1,161 @@
+package w.mazebank.services;
+
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import w.mazebank.enums.QueuedTransferStatus;
+import w.mazebank.enums.RoleType;
+import w.mazebank.exceptions.AccountNotFoundException;
+import w.mazebank.exceptions.TransactionFailedException;
+import w.mazebank.exceptions.TransactionNotFoundException;
+import w.mazebank.exceptions.TransferQueueUnavailableException;
+import w.mazebank.exceptions.UnauthorizedTransactionAccessException;
+import w.mazebank.models.QueuedTransfer;
+import w.mazebank.models.User;
+import w.mazebank.models.requests.TransactionRequest;
+import w.mazebank.models.responses.QueuedTransferResponse;
+import w.mazebank.models.responses.TransactionResponse;
+import w.mazebank.repositories.QueuedTransferRepository;
+import w.mazebank.repositories.UserRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Transfers that are accepted now and booked later.
+// Accepting a transfer is one insert into queued_transfers, the TransferQueueWorkers book them in
+// the background through the same postTransaction as a direct transfer. When more transfers are
+// waiting than mazebank.transactions.queue.max-queued new ones are refused, so clients back off
+// instead of the database falling behind.
+@Service
+public class TransferQueueService {
+    // transfers are spread over this many partitions, a worker books the partitions it owns in order
+    public static final int PARTITIONS = 1024;
+
+    @Autowired
+    private QueuedTransferRepository queuedTransferRepository;
+
+    @Autowired
+    private TransactionServiceJpa transactionServiceJpa;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${mazebank.transactions.queue.enabled:false}")
+    private boolean enabled;
+
+    @Value("${mazebank.transactions.queue.max-queued:10000}")
+    private long maxQueued;
+
+    @Value("${mazebank.transactions.queue.retry-after:5s}")
+    private Duration retryAfter;
+
+    @Value("${mazebank.transactions.queue.max-attempts:3}")
+    private int maxAttempts;
+
+    @Transactional
+    public QueuedTransferResponse enqueue(TransactionRequest request, User userPerforming) throws TransferQueueUnavailableException, TransactionFailedException {
+        if (!enabled) {
+            throw new TransferQueueUnavailableException("Queued transfers are not enabled", null);
+        }
+        if (queuedTransferRepository.countByStatus(QueuedTransferStatus.QUEUED) >= maxQueued) {
+            throw new TransferQueueUnavailableException("Too many transfers are waiting to be booked, try again later", retryAfter);
+        }
+
+        QueuedTransfer transfer = queuedTransferRepository.save(QueuedTransfer.builder()
+            .senderIban(request.getSenderIban())
+            .receiverIban(request.getReceiverIban())
+            .amount(TransactionServiceJpa.amountOf(request.getAmount()))
+            .description(request.getDescription())
+            .userPerformingId(userPerforming.getId())
+            .partitionKey(partitionOf(request.getSenderIban()))
+            .status(QueuedTransferStatus.QUEUED)
+            .createdAt(LocalDateTime.now())
+            .build());
+        return toResponse(transfer);
+    }
+
+    public QueuedTransferResponse getQueuedTransfer(long id, User user) throws TransactionNotFoundException {
+        QueuedTransfer transfer = queuedTransferRepository.findById(id)
+            .orElseThrow(() -> new TransactionNotFoundException("Queued transfer with id: " + id + " not found"));
+
+        // employees can see every transfer, customers only the ones they queued themselves
+        if (user.getRole() != RoleType.EMPLOYEE && transfer.getUserPerformingId() != user.getId()) {
+            throw new UnauthorizedTransactionAccessException("User with id: " + user.getId() + " is not authorized to access queued transfer with id: " + id);
+        }
+        return toResponse(transfer);
+    }
+
+    // the oldest queued transfers of the partitions one worker owns, in the order they were queued
+    public List<QueuedTransfer> findQueued(int worker, int workers, int limit) {
+        return queuedTransferRepository.findByStatusInPartition(QueuedTransferStatus.QUEUED, workers, worker, PageRequest.of(0, limit));
+    }
+
+    // books the transfer and marks it completed in the same database transaction, so a transfer is
+    // never booked without being marked or marked without being booked
+    @Transactional(rollbackOn = Exception.class)
+    public void book(QueuedTransfer transfer) throws TransactionFailedException, AccountNotFoundException {
+        User userPerforming = userRepository.findById(transfer.getUserPerformingId())
+            .orElseThrow(() -> new TransactionFailedException("User performing the transaction no longer exists"));
+
+        TransactionRequest request = TransactionRequest.builder()
+            .senderIban(transfer.getSenderIban())
+            .receiverIban(transfer.getReceiverIban())
+            .amount(transfer.getAmount().toDouble())
+            .description(transfer.getDescription())
+            .build();
+        TransactionResponse transaction = transactionServiceJpa.postTransaction(request, userPerforming);
+
+        if (queuedTransferRepository.complete(transfer.getId(), transaction.getId(), LocalDateTime.now()) == 0) {
+            // another instance got to it first, undo the booking
+            throw new IllegalStateException("Queued transfer with id: " + transfer.getId() + " was already processed");
+        }
+    }
+
+    @Transactional
+    public void fail(QueuedTransfer transfer, String message) {
+        queuedTransferRepository.fail(transfer.getId(), truncate(message), LocalDateTime.now());
+    }
+
+    // booking failed for an unexpected reason, the transfer stays queued to be tried again until it
+    // has been tried max-attempts times. Returns false while it is still queued
+    @Transactional
+    public boolean retryOrFail(QueuedTransfer transfer, String message) {
+        if (transfer.getAttempts() + 1 >= maxAttempts) {
+            fail(transfer, "Booking failed " + maxAttempts + " times: " + message);
+            return true;
+        }
+        queuedTransferRepository.countAttempt(transfer.getId(), QueuedTransferStatus.QUEUED);
+        return false;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // failure_message is a VARCHAR(255)
+    private static String truncate(String message) {
+        return message != null && message.length() > 255 ? message.substring(0, 255) : message;
+    }
+
+    // every transfer of a sender ends up in the same partition
+    static int partitionOf(String senderIban) {
+        return Math.floorMod(senderIban.hashCode(), PARTITIONS);
+    }
+
+    private QueuedTransferResponse toResponse(QueuedTransfer transfer) {
+        return QueuedTransferResponse.builder()
+            .id(transfer.getId())
+            .status(transfer.getStatus().toString())
+            .amount(transfer.getAmount().toDouble())
+            .sender(transfer.getSenderIban())
+            .receiver(transfer.getReceiverIban())
+            .createdAt(transfer.getCreatedAt().toString())
+            .transactionId(transfer.getTransactionId())
+            .message(transfer.getFailureMessage())
+            .processedAt(transfer.getProcessedAt() == null ? null : transfer.getProcessedAt().toString())
+            .build();
+    }
+}
@@ -0,0 +1,58 @@
+package w.mazebank.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import w.mazebank.exceptions.UserNotFoundException;
+import w.mazebank.models.User;
+import w.mazebank.models.UserPrincipal;
+import w.mazebank.repositories.UserRepository;
+
+import java.time.Duration;
+
+// Keeps the principals of the users that authenticate with a JWT in memory, so the filter does not have to query the
+// database on every request. Changes made through UserServiceJpa invalidate the entry right away,
+// changes made by another instance of the application are picked up once the entry expires.
+@Service
+public class UserPrincipalCache {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserStateService userStateService;
+
+    private final Cache<String, UserPrincipal> cache;
+
+    public UserPrincipalCache(
+        @Value("${mazebank.security.principal-cache.ttl:30s}") Duration timeToLive,
+        @Value("${mazebank.security.principal-cache.max-size:10000}") long maximumSize
+    ) {
+        this.cache = Caffeine.newBuilder()
+            .expireAfterWrite(timeToLive)
+            .maximumSize(maximumSize)
+            .build();
+    }
+
+    public UserPrincipal getByEmail(String email) throws UserNotFoundException {
+        // unknown emails are not cached, so a user that registers is found on the next request
+        UserPrincipal principal = cache.get(email, key -> userRepository.findByEmail(key).map(this::toPrincipal).orElse(null));
+        if (principal == null) {
+            throw new UserNotFoundException("user not found");
+        }
+        return principal;
+    }
+
+    public void invalidate(String email) {
+        if (email != null) {
+            cache.invalidate(email);
+        }
+    }
+
+    // the entity is not kept, so nothing holds on to it once the request that loaded it is done
+    private UserPrincipal toPrincipal(User user) {
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getRole(), user.isBlocked(),
+            userStateService.getVersion(user.getId()));
+    }
+}
@@ -5,35 +5,49 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import w.mazebank.enums.AccountType;
 import w.mazebank.enums.RoleType;
 import w.mazebank.exceptions.*;
 import w.mazebank.models.Account;
+import w.mazebank.models.Money;
 import w.mazebank.models.Transaction;
+import w.mazebank.models.TransactionFilter;
 import w.mazebank.models.User;
 import w.mazebank.models.requests.UserPatchRequest;
 import w.mazebank.models.responses.AccountResponse;
 import w.mazebank.models.responses.BalanceResponse;
+import w.mazebank.models.responses.TransactionPageResponse;
 import w.mazebank.models.responses.TransactionResponse;
 import w.mazebank.models.responses.UserResponse;
 import w.mazebank.repositories.TransactionRepository;
 import w.mazebank.repositories.UserRepository;
+import w.mazebank.utils.ResponseMapper;
 
 import java.time.LocalDate;
-import java.time.LocalTime;
 import java.util.*;
 
 @Service
 public class UserServiceJpa extends BaseServiceJpa {
+    private static final int SEARCH_BATCH_SIZE = 100;
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private TransactionRepository transactionRepository;
 
-    private Specification<Transaction> specification = Specification.where(null);
+    @Autowired
+    private TransactionServiceJpa transactionServiceJpa;
+
+    @Autowired
+    private DailySpendService dailySpendService;
+
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
+    @Autowired
+    private UserStateService userStateService;
 
     public User getUserById(Long id) throws UserNotFoundException {
         checkIfUserIsNotTheBank(id);
@@ -73,52 +87,55 @@ public class UserServiceJpa extends BaseServiceJpa {
         List<Account> accounts = user.getAccounts();
         if (accounts == null) return new ArrayList<>();
 
-        return buildAccountResponse(accounts);
-    }
-
-    private List<AccountResponse> buildAccountResponse(List<Account> accounts) {
-        // parse accounts to account responses
-        List<AccountResponse> accountResponses = new ArrayList<>();
-        for (Account account : accounts) {
-            AccountResponse accountResponse = AccountResponse.builder()
-                .id(account.getId())
-                .accountType(account.getAccountType().getValue())
-                .iban(account.getIban())
-                .balance(account.getBalance())
-                .timestamp(account.getCreatedAt().toString())
-                .build();
-            accountResponses.add(accountResponse);
-        }
-        // return account responses
-        return accountResponses;
+        return accounts.stream().map(ResponseMapper::toAccountResponse).toList();
     }
 
     public List<UserResponse> getAllUsers(int pageNumber, int pageSize, String sort, String search, boolean withoutAccounts) {
-        List<User> users = findAllPaginationAndSort(pageNumber, pageSize, sort, search, userRepository);
-        List<User> filteredUsers = filterUsersWithoutAccounts(withoutAccounts, users);
-        return buildUserResponse(filteredUsers);
-    }
-
-    private List<User> filterUsersWithoutAccounts(boolean withoutAccounts, List<User> users) {
-        List<User> filteredUsers = new ArrayList<>(users);
+        if (!withoutAccounts) {
+            return buildUserResponse(findAllPaginationAndSort(pageNumber, pageSize, sort, search, userRepository));
+        }
 
-        // If withoutAccounts is true, remove users that have accounts
-        if (withoutAccounts) {
-            filteredUsers.removeIf(user -> user.getAccounts() != null && !user.getAccounts().isEmpty());
+        Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(Sort.Direction.fromString(sort), "id"));
+        if (search == null || search.isEmpty()) {
+            // filtered in the database, so every page holds pageSize users without accounts
+            return buildUserResponse(userRepository.findAllWithoutAccounts(pageable));
         }
-        return filteredUsers;
+        return buildUserResponse(searchUsersWithoutAccounts(search, pageable));
+    }
+
+    // the search index does not know which users have accounts, so search results are filtered in
+    // batches until the requested page is filled
+    private List<User> searchUsersWithoutAccounts(String search, Pageable pageable) {
+        List<User> page = new ArrayList<>(pageable.getPageSize());
+        long toSkip = pageable.getOffset();
+
+        Pageable batchPageable = PageRequest.of(0, SEARCH_BATCH_SIZE, pageable.getSort());
+        List<User> batch;
+        do {
+            batch = userRepository.findBySearchString(search, batchPageable);
+            if (batch.isEmpty()) break;
+
+            Set<Long> usersWithAccounts = userRepository.findIdsWithAccounts(batch.stream().map(User::getId).toList());
+            for (User user : batch) {
+                if (usersWithAccounts.contains(user.getId())) continue;
+                if (toSkip > 0) {
+                    toSkip--;
+                } else {
+                    page.add(user);
+                    if (page.size() == pageable.getPageSize()) return page;
+                }
+            }
+            batchPageable = batchPageable.next();
+        } while (batch.size() == SEARCH_BATCH_SIZE);
+
+        return page;
     }
 
     private List<UserResponse> buildUserResponse(List<User> filteredUsers) {
         // Parse users to user responses
         List<UserResponse> userResponses = new ArrayList<>();
         for (User user : filteredUsers) {
-            UserResponse userResponse = UserResponse.builder()
-                .id(user.getId())
-                .firstName(user.getFirstName())
-                .lastName(user.getLastName())
-                .build();
-            userResponses.add(userResponse);
+            userResponses.add(ResponseMapper.toUserResponse(user));
         }
         return userResponses;
     }
@@ -135,6 +152,8 @@ public class UserServiceJpa extends BaseServiceJpa {
         user.setBlocked(true);
 
         userRepository.save(user);
+        userPrincipalCache.invalidate(user.getEmail());
+        userStateService.revokeTokens(user.getId(), true);
     }
 
     public void unblockUser(Long id) throws UserNotFoundException {
@@ -144,6 +163,8 @@ public class UserServiceJpa extends BaseServiceJpa {
         user.setBlocked(false);
 
         userRepository.save(user);
+        userPrincipalCache.invalidate(user.getEmail());
+        userStateService.revokeTokens(user.getId(), false);
     }
 
     public User patchUserById(long id, UserPatchRequest userPatchRequest, User userPerforming) throws UserNotFoundException, DisallowedFieldException {
@@ -155,10 +176,20 @@ public class UserServiceJpa extends BaseServiceJpa {
 
         checkAllowedFields(userPatchRequest);
 
+        // the email can change, so remember the one the user was cached under
+        String previousEmail = userToPatch.getEmail();
+
         patchesAllowedForCustomer(userPatchRequest, userToPatch);
         patchesAllowedForEmployee(userPatchRequest, userPerforming, userToPatch);
 
         userRepository.save(userToPatch);
+        userPrincipalCache.invalidate(previousEmail);
+        userPrincipalCache.invalidate(userToPatch.getEmail());
+
+        // the email is the subject of the token, so tokens with the old email have to stop working
+        if (!Objects.equals(previousEmail, userToPatch.getEmail())) {
+            userStateService.revokeTokens(userToPatch.getId(), userToPatch.isBlocked());
+        }
 
         return userToPatch;
     }
@@ -170,9 +201,9 @@ public class UserServiceJpa extends BaseServiceJpa {
         }
 
         if (userPatchRequest.getTransactionLimit() != null && userPerforming.getRole() == RoleType.EMPLOYEE)
-            userToPatch.setTransactionLimit(userPatchRequest.getTransactionLimit());
+            userToPatch.setTransactionLimit(Money.of(userPatchRequest.getTransactionLimit()));
         if (userPatchRequest.getDayLimit() != null && userPerforming.getRole() == RoleType.EMPLOYEE)
-            userToPatch.setDayLimit(userPatchRequest.getDayLimit());
+            userToPatch.setDayLimit(Money.of(userPatchRequest.getDayLimit()));
     }
 
     private void patchesAllowedForCustomer(UserPatchRequest userPatchRequest, User userToPatch) {
@@ -201,6 +232,8 @@ public class UserServiceJpa extends BaseServiceJpa {
         checkIfUserHasAccounts(user);
 
         userRepository.delete(user);
+        userPrincipalCache.invalidate(user.getEmail());
+        userStateService.revokeTokens(user.getId(), true);
     }
 
     private void checkIfUserHasAccounts(User user) throws UserHasAccountsException {
@@ -214,115 +247,44 @@ public class UserServiceJpa extends BaseServiceJpa {
     ) throws UserNotFoundException {
         User requestedUser = getUserByIdAndValidate(userId, user);
 
-        buildQueryFromParameters(fromIban, toIban, startDate, endDate, maxAmount, minAmount, amount, requestedUser);
+        TransactionFilter filter = buildTransactionFilter(requestedUser, fromIban, toIban, startDate, endDate, maxAmount, minAmount, amount);
 
         Sort.Direction direction = sort.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
         Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(direction, "timestamp"));
 
-        Page<Transaction> transactionPage = transactionRepository.findAll(specification, pageable);
+        Page<Transaction> transactionPage = transactionRepository.findAll(filter.toSpecification(), pageable);
         List<Transaction> transactions = transactionPage != null ? transactionPage.getContent() : Collections.emptyList();
 
         return mapTransactionsToResponses(transactions);
     }
 
-    private void buildQueryFromParameters(String fromIban, String toIban, LocalDate startDate, LocalDate endDate, Double maxAmount, Double minAmount, Double amount, User requestedUser) {
-        this.specification = Specification.where(null);
-        addFromIbanCondition(fromIban);
-        addToIbanCondition(toIban);
-        addStartDateCondition(startDate);
-        addEndDateCondition(endDate);
-        addMaxAmountCondition(maxAmount);
-        addMinAmountCondition(minAmount);
-        addAmountCondition(amount);
-        addRequestedUserCondition(requestedUser);
-    }
-
-    private void addFromIbanCondition(String fromIban) {
-        if (fromIban != null) {
-            this.specification = specification.and((root, query, criteriaBuilder) ->
-                criteriaBuilder.like(
-                    criteriaBuilder.lower(root.get("sender").get("iban")),
-                    "%" + fromIban.toLowerCase() + "%"
-                )
-            );
-        }
-    }
-
-    private void addToIbanCondition(String toIban) {
-        if (toIban != null) {
-            this.specification = specification.and((root, query, criteriaBuilder) ->
-                criteriaBuilder.like(
-                    criteriaBuilder.lower(root.get("receiver").get("iban")),
-                    "%" + toIban.toLowerCase() + "%"
-                )
-            );
-        }
-    }
-
-    private void addStartDateCondition(LocalDate startDate) {
-        if (startDate != null) {
-            this.specification = specification.and((root, query, criteriaBuilder) ->
-                criteriaBuilder.greaterThanOrEqualTo(root.get("timestamp"), startDate.atStartOfDay())
-            );
-        }
-    }
-
-    private void addEndDateCondition(LocalDate endDate) {
-        if (endDate != null) {
-            this.specification = specification.and((root, query, criteriaBuilder) ->
-                criteriaBuilder.lessThanOrEqualTo(root.get("timestamp"), endDate.atTime(LocalTime.MAX))
-            );
-        }
-    }
-
-    private void addMaxAmountCondition(Double maxAmount) {
-        if (maxAmount != null) {
-            this.specification = specification.and((root, query, criteriaBuilder) ->
-                criteriaBuilder.lessThanOrEqualTo(root.get("amount"), maxAmount)
-            );
-        }
-    }
+    // keyset paged variant of getTransactionsByUserId, see TransactionServiceJpa.getTransactionPage
+    public TransactionPageResponse getTransactionPageByUserId(Long userId, User user, String cursor, int pageSize, String sort, String fromIban, String toIban, LocalDate startDate, LocalDate endDate, Double maxAmount, Double minAmount, Double amount
+    ) throws UserNotFoundException, InvalidCursorException {
+        User requestedUser = getUserByIdAndValidate(userId, user);
 
-    private void addMinAmountCondition(Double minAmount) {
-        if (minAmount != null) {
-            this.specification = specification.and((root, query, criteriaBuilder) ->
-                criteriaBuilder.greaterThanOrEqualTo(root.get("amount"), minAmount)
-            );
-        }
+        TransactionFilter filter = buildTransactionFilter(requestedUser, fromIban, toIban, startDate, endDate, maxAmount, minAmount, amount);
+        return transactionServiceJpa.getTransactionPage(filter, cursor, sort, pageSize, ResponseMapper::toTransactionResponse);
     }
 
-    private void addAmountCondition(Double amount) {
-        if (amount != null) {
-            this.specification = specification.and((root, query, criteriaBuilder) ->
-                criteriaBuilder.equal(root.get("amount"), amount)
-            );
-        }
+    private TransactionFilter buildTransactionFilter(User requestedUser, String fromIban, String toIban, LocalDate startDate, LocalDate endDate, Double maxAmount, Double minAmount, Double amount) {
+        // built per request, the service is shared by all request threads
+        return TransactionFilter.builder()
+            .fromIban(fromIban)
+            .toIban(toIban)
+            .startDate(startDate)
+            .endDate(endDate)
+            .maxAmount(maxAmount != null ? Money.of(maxAmount) : null)
+            .minAmount(minAmount != null ? Money.of(minAmount) : null)
+            .amount(amount != null ? Money.of(amount) : null)
+            .participantUserId(requestedUser.getId())
+            .build();
     }
 
-    private void addRequestedUserCondition(User requestedUser) {
-        List<Account> userAccounts = requestedUser.getAccounts();
-
-        this.specification = specification.and((root, query, criteriaBuilder) ->
-            criteriaBuilder.or(
-                root.get("sender").in(userAccounts),
-                root.get("receiver").in(userAccounts)
-            )
-        );
-    }
-
-
     private List<TransactionResponse> mapTransactionsToResponses(List<Transaction> transactions) {
         List<TransactionResponse> transactionResponses = new ArrayList<>();
         for (Transaction transaction : transactions) {
-            TransactionResponse transactionResponse = TransactionResponse.builder()
-                .id(transaction.getId())
-                .amount(transaction.getAmount())
-                .description(transaction.getDescription())
-                .sender(transaction.getSender().getIban())
-                .receiver(transaction.getReceiver().getIban())
-                .timestamp(transaction.getTimestamp().toString())
-                .build();
-            transactionResponses.add(transactionResponse);
+            transactionResponses.add(ResponseMapper.toTransactionResponse(transaction));
         }
         return transactionResponses;
     }
@@ -341,19 +303,26 @@ public class UserServiceJpa extends BaseServiceJpa {
 
     private BalanceResponse getBalanceResponse(User user, BalanceResponse balanceResponse) {
         // calculate total balance and set checking and savings balance if account exists
+        Money totalBalance = Money.ZERO;
         for (Account account : user.getAccounts()) {
             if (account.getAccountType() == AccountType.CHECKING) {
-                balanceResponse.setCheckingBalance(account.getBalance());
+                balanceResponse.setCheckingBalance(account.getBalance().toDouble());
             } else if (account.getAccountType() == AccountType.SAVINGS) {
-                balanceResponse.setSavingsBalance(account.getBalance());
+                balanceResponse.setSavingsBalance(account.getBalance().toDouble());
             }
             // add balance to total balance
-            balanceResponse.setTotalBalance(balanceResponse.getTotalBalance() + account.getBalance());
+            totalBalance = totalBalance.plus(account.getBalance());
         }
+        balanceResponse.setTotalBalance(totalBalance.toDouble());
 
         return balanceResponse;
     }
 
+    // same bookkeeping as the day limit check when transferring, so this is what the user can still send today
+    public double getAmountRemaining(User user) {
+        return user.getDayLimit().minus(dailySpendService.getSpentTodayByUser(user.getId())).toDouble();
+    }
+
     public User getUserByEmail(String email) throws UserNotFoundException {
         return userRepository.findByEmail(email).orElseThrow(() -> new UserNotFoundException("user not found"));
     }
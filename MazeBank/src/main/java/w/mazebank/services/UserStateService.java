@@ -0,0 +1,70 @@
+package w.mazebank.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import w.mazebank.models.UserState;
+import w.mazebank.repositories.UserRepository;
+import w.mazebank.repositories.UserStateRepository;
+
+import java.time.Duration;
+
+// Looks up the revocation state the stateless JwtAuthenticationFilter checks tokens against.
+// States are cached, so on a hit authenticating a request needs no query at all. Revoking through
+// this service invalidates the entry right away, other instances see it once the entry expires.
+@Service
+public class UserStateService {
+    @Autowired
+    private UserStateRepository userStateRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Cache<Long, UserState> cache;
+
+    public UserStateService(
+        @Value("${mazebank.security.user-state-cache.ttl:30s}") Duration timeToLive,
+        @Value("${mazebank.security.user-state-cache.max-size:10000}") long maximumSize
+    ) {
+        this.cache = Caffeine.newBuilder()
+            .expireAfterWrite(timeToLive)
+            .maximumSize(maximumSize)
+            .build();
+    }
+
+    public UserState getState(long userId) {
+        return cache.get(userId, this::loadState);
+    }
+
+    public long getVersion(long userId) {
+        return getState(userId).getVersion();
+    }
+
+    // raises the version so every token issued before now is rejected
+    public void revokeTokens(long userId, boolean blocked) {
+        UserState state = userStateRepository.findById(userId)
+            .orElseGet(() -> UserState.builder().userId(userId).build());
+        state.setVersion(state.getVersion() + 1);
+        state.setBlocked(blocked);
+
+        userStateRepository.save(state);
+        cache.invalidate(userId);
+    }
+
+    private UserState loadState(long userId) {
+        return userStateRepository.findById(userId).orElseGet(() -> initialState(userId));
+    }
+
+    private UserState initialState(long userId) {
+        // users that were never revoked have no row yet, but can still be blocked (for example
+        // when they were seeded that way), so take the blocked flag from the users table once.
+        // a user that does not exist is treated as blocked
+        boolean blocked = userRepository.findBlockedById(userId).orElse(true);
+        return UserState.builder()
+            .userId(userId)
+            .blocked(blocked)
+            .build();
+    }
+}
@@ -0,0 +1,30 @@
+package w.mazebank.utils;
+
+import org.hibernate.Interceptor;
+import org.hibernate.type.Type;
+
+// Counts the entities hibernate loads on the current thread between start() and stop(), a count that
+// grows with the size of a page points at an association that is loaded once per row.
+// Register it as hibernate.session_factory.interceptor.
+public class EntityLoadCounter implements Interceptor {
+    private final ThreadLocal<int[]> loads = new ThreadLocal<>();
+
+    public void start() {
+        loads.set(new int[1]);
+    }
+
+    public int stop() {
+        int[] count = loads.get();
+        loads.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        int[] count = loads.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return false;
+    }
+}
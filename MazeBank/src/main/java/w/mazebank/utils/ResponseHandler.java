@@ -3,10 +3,25 @@ package w.mazebank.utils;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import w.mazebank.models.responses.TransactionPageResponse;
+import w.mazebank.models.responses.TransactionResponse;
+
+import java.util.List;
 import java.util.Map;
 
 public class ResponseHandler {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     public static ResponseEntity<Object> generateErrorResponse(Map<String, String> errors, HttpStatus status) {
         return new ResponseEntity<>(errors, status);
     }
+
+    // the body stays a plain list like the offset paged responses, the cursor of the next page goes in a header
+    public static ResponseEntity<List<TransactionResponse>> generateTransactionPageResponse(TransactionPageResponse page) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            builder.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return builder.body(page.getTransactions());
+    }
 }
@@ -0,0 +1,75 @@
+package w.mazebank.utils;
+
+import w.mazebank.models.Account;
+import w.mazebank.models.Transaction;
+import w.mazebank.models.User;
+import w.mazebank.models.responses.AccountResponse;
+import w.mazebank.models.responses.FullUserResponse;
+import w.mazebank.models.responses.TransactionResponse;
+import w.mazebank.models.responses.UserResponse;
+
+// Maps entities to the responses with plain getters, no reflection at runtime.
+// Missing associations and dates are mapped to null instead of throwing.
+public class ResponseMapper {
+    private ResponseMapper() {
+    }
+
+    public static TransactionResponse toTransactionResponse(Transaction transaction) {
+        return toTransactionResponse(transaction,
+            transaction.getSender() != null ? transaction.getSender().getIban() : null,
+            transaction.getReceiver() != null ? transaction.getReceiver().getIban() : null);
+    }
+
+    // with the ibans known up front, so an account that is only referenced isn't loaded for its iban
+    public static TransactionResponse toTransactionResponse(Transaction transaction, String senderIban, String receiverIban) {
+        return TransactionResponse.builder()
+            .id(transaction.getId())
+            .amount(transaction.getAmount() != null ? transaction.getAmount().toDouble() : 0)
+            .description(transaction.getDescription())
+            .sender(senderIban)
+            .receiver(receiverIban)
+            .userPerforming(transaction.getUserPerforming() != null ? transaction.getUserPerforming().getId() : null)
+            .timestamp(transaction.getTimestamp() != null ? transaction.getTimestamp().toString() : null)
+            .transactionType(transaction.getTransactionType() != null ? transaction.getTransactionType().name() : null)
+            .build();
+    }
+
+    public static AccountResponse toAccountResponse(Account account) {
+        return AccountResponse.builder()
+            .id(account.getId())
+            .accountType(account.getAccountType().getValue())
+            .iban(account.getIban())
+            .user(account.getUser() != null ? toUserResponse(account.getUser()) : null)
+            .balance(account.getBalance().toDouble())
+            .absoluteLimit(account.getAbsoluteLimit().toDouble())
+            .active(account.isActive())
+            .timestamp(account.getCreatedAt() != null ? account.getCreatedAt().toString() : null)
+            .build();
+    }
+
+    public static UserResponse toUserResponse(User user) {
+        return UserResponse.builder()
+            .id(user.getId())
+            .firstName(user.getFirstName())
+            .lastName(user.getLastName())
+            .build();
+    }
+
+    public static FullUserResponse toFullUserResponse(User user, double amountRemaining) {
+        return FullUserResponse.builder()
+            .id(user.getId())
+            .email(user.getEmail())
+            .bsn(user.getBsn())
+            .firstName(user.getFirstName())
+            .lastName(user.getLastName())
+            .phoneNumber(user.getPhoneNumber())
+            .role(user.getRole().toString())
+            .dateOfBirth(user.getDateOfBirth() != null ? user.getDateOfBirth().toString() : null)
+            .createdAt(user.getCreatedAt() != null ? user.getCreatedAt().toString() : null)
+            .dayLimit(user.getDayLimit().toDouble())
+            .transactionLimit(user.getTransactionLimit().toDouble())
+            .amountRemaining(amountRemaining)
+            .blocked(user.isBlocked())
+            .build();
+    }
+}
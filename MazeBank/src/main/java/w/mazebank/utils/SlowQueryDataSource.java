@@ -0,0 +1,134 @@
+package w.mazebank.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Logs every statement that runs longer than the threshold, with its SQL, the types of its bind
+// parameters (never the values) and the application method it was run for, for example
+// UserServiceJpa.getTransactionsByUserId. The connections and statements are wrapped, so it sees
+// every statement, also the ones hibernate runs for lazy loads and flushes.
+@Slf4j
+public class SlowQueryDataSource extends DelegatingDataSource {
+    private static final String APPLICATION_PACKAGE = "w.mazebank.";
+    private static final String REPOSITORY_PACKAGE = "w.mazebank.repositories.";
+
+    private final long thresholdNanos;
+
+    public SlowQueryDataSource(DataSource targetDataSource, Duration threshold) {
+        super(targetDataSource);
+        this.thresholdNanos = threshold.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            // prepareStatement and prepareCall get the SQL up front, createStatement gets it on execute
+            if (result instanceof Statement statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                return wrap(statement, sql);
+            }
+            return result;
+        });
+    }
+
+    private Statement wrap(Statement statement, String sql) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+            : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, new TimedStatement(statement, sql));
+    }
+
+    private class TimedStatement implements InvocationHandler {
+        private final Statement statement;
+        private final String sql;
+        private final Map<Integer, String> parameters = new TreeMap<>();
+        private int batchSize;
+
+        TimedStatement(Statement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, parameterType(name, args[1]));
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("addBatch")) {
+                batchSize++;
+            } else if (name.startsWith("execute")) {
+                long start = System.nanoTime();
+                try {
+                    return SlowQueryDataSource.invoke(statement, method, args);
+                } finally {
+                    long elapsed = System.nanoTime() - start;
+                    if (elapsed >= thresholdNanos) {
+                        String executed = args != null && args.length > 0 && args[0] instanceof String s ? s : sql;
+                        logSlowQuery(elapsed, executed, name.equals("executeBatch") ? batchSize : 0);
+                    }
+                    if (name.equals("executeBatch")) batchSize = 0;
+                }
+            }
+            return SlowQueryDataSource.invoke(statement, method, args);
+        }
+
+        private void logSlowQuery(long elapsedNanos, String executed, int batchRows) {
+            log.warn("slow query ({} ms) in {}: {} parameters {}{}",
+                elapsedNanos / 1_000_000, callingMethod(), executed, parameters.values(),
+                batchRows > 0 ? " batch of " + batchRows : "");
+        }
+    }
+
+    // setLong gives Long, setObject and setNull look at what was bound
+    private static String parameterType(String setter, Object value) {
+        if (setter.equals("setNull")) return "null";
+        if (setter.equals("setObject")) return value == null ? "null" : value.getClass().getSimpleName();
+        return setter.substring(3);
+    }
+
+    // the first application frame on the stack outside the repositories, the repository call itself
+    // says little about where a query comes from
+    private static String callingMethod() {
+        return StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE).walk(frames -> frames
+            .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE))
+            .filter(frame -> !frame.getDeclaringClass().getNestHost().equals(SlowQueryDataSource.class))
+            .filter(frame -> !frame.getClassName().contains("$$"))
+            .filter(frame -> !frame.getClassName().startsWith(REPOSITORY_PACKAGE))
+            .findFirst()
+            .map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1) + "." + frame.getMethodName())
+            .orElse("unknown"));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package w.mazebank.utils;
+
+import lombok.Value;
+import w.mazebank.exceptions.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Position in a transaction history ordered by (timestamp, id).
+// Handed to clients as an opaque token, so the format can change without breaking them.
+@Value
+public class TransactionCursor {
+    LocalDateTime timestamp;
+    long id;
+
+    public String encode() {
+        String value = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String token) throws InvalidCursorException {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf('|');
+            if (separator < 0) throw new InvalidCursorException("invalid cursor");
+
+            return new TransactionCursor(
+                LocalDateTime.parse(value.substring(0, separator)),
+                Long.parseLong(value.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // NumberFormatException is an IllegalArgumentException as well
+            throw new InvalidCursorException("invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package w.mazebank.utils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// In-memory inverted index for case insensitive "contains" searches.
+// Every indexed value is split into trigrams ("john" -> "joh", "ohn") and every trigram points to the
+// sorted ids of the documents that contain it. A search only has to walk the shortest list of the
+// trigrams in the query instead of every document, and stops as soon as the page is full.
+// Queries shorter than a trigram walk the documents in id order, they match so often that the page
+// is full after a few documents.
+//
+// Reads never lock. Writes are serialized, they are rare compared to searches.
+public class TrigramIndex {
+    private static final int GRAM_LENGTH = 3;
+
+    private final Map<String, ConcurrentSkipListSet<Long>> postings = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, String[]> documents = new ConcurrentSkipListMap<>();
+
+    public synchronized void put(long id, Collection<String> values) {
+        remove(id);
+
+        String[] normalized = values.stream()
+            .filter(Objects::nonNull)
+            .map(TrigramIndex::normalize)
+            .filter(value -> !value.isEmpty())
+            .toArray(String[]::new);
+
+        documents.put(id, normalized);
+        for (String gram : grams(normalized)) {
+            postings.computeIfAbsent(gram, key -> new ConcurrentSkipListSet<>()).add(id);
+        }
+    }
+
+    public synchronized void remove(long id) {
+        String[] values = documents.remove(id);
+        if (values == null) return;
+
+        for (String gram : grams(values)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) continue;
+            ids.remove(id);
+            if (ids.isEmpty()) postings.remove(gram);
+        }
+    }
+
+    public synchronized void clear() {
+        postings.clear();
+        documents.clear();
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    // ids of the documents with a value containing the query, in id order, skipping offset matches
+    public List<Long> search(String query, boolean ascending, long offset, int limit) {
+        String normalized = normalize(query);
+        if (limit <= 0) return List.of();
+
+        Iterator<Long> candidates;
+        List<Set<Long>> required = new ArrayList<>();
+        if (normalized.length() < GRAM_LENGTH) {
+            candidates = (ascending ? documents.keySet() : documents.descendingKeySet()).iterator();
+        } else {
+            // walk the shortest posting list and check the others
+            NavigableSet<Long> shortest = null;
+            for (String gram : grams(new String[]{normalized})) {
+                ConcurrentSkipListSet<Long> ids = postings.get(gram);
+                if (ids == null) return List.of();
+                required.add(ids);
+                if (shortest == null || ids.size() < shortest.size()) shortest = ids;
+            }
+            candidates = (ascending ? shortest : shortest.descendingSet()).iterator();
+        }
+
+        // the limit can be every match, so the list grows with the results instead of being sized up front
+        List<Long> results = new ArrayList<>();
+        long skipped = 0;
+        while (candidates.hasNext() && results.size() < limit) {
+            Long id = candidates.next();
+            if (!containsAll(required, id) || !matches(id, normalized)) continue;
+
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                results.add(id);
+            }
+        }
+        return results;
+    }
+
+    private boolean containsAll(List<Set<Long>> required, Long id) {
+        for (Set<Long> ids : required) {
+            if (!ids.contains(id)) return false;
+        }
+        return true;
+    }
+
+    // trigrams only say every piece of the query is in the document, check it is in one value in one piece
+    private boolean matches(Long id, String query) {
+        String[] values = documents.get(id);
+        if (values == null) return false;
+        for (String value : values) {
+            if (value.contains(query)) return true;
+        }
+        return false;
+    }
+
+    private static Set<String> grams(String[] values) {
+        Set<String> grams = new HashSet<>();
+        for (String value : values) {
+            for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+                grams.add(value.substring(i, i + GRAM_LENGTH));
+            }
+        }
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
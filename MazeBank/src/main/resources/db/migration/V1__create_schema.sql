@@ -0,0 +1,85 @@
+-- Schema of the MazeBank database.
+-- Column names follow the names Hibernate derives from the entities, every change to an entity
+-- needs a new migration next to this one.
+
+CREATE TABLE users (
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email             VARCHAR(255),
+    bsn               INTEGER NOT NULL,
+    first_name        VARCHAR(255),
+    last_name         VARCHAR(255),
+    password          VARCHAR(255),
+    phone_number      VARCHAR(255),
+    role              INTEGER,
+    date_of_birth     DATE,
+    created_at        TIMESTAMP(6),
+    day_limit         DOUBLE PRECISION NOT NULL,
+    transaction_limit DOUBLE PRECISION NOT NULL,
+    blocked           BOOLEAN NOT NULL,
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT uk_users_bsn UNIQUE (bsn)
+);
+
+CREATE TABLE accounts (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    iban           VARCHAR(255),
+    account_type   INTEGER,
+    balance        DOUBLE PRECISION NOT NULL,
+    user_id        BIGINT NOT NULL,
+    is_active      BOOLEAN NOT NULL,
+    created_at     TIMESTAMP(6),
+    absolute_limit DOUBLE PRECISION DEFAULT 0 NOT NULL,
+    CONSTRAINT uk_accounts_iban UNIQUE (iban)
+);
+
+-- the foreign keys are added after their indexes so they reuse these instead of creating
+-- unnamed ones, h2 only reuses an index with exactly the foreign key columns
+CREATE INDEX idx_accounts_user ON accounts (user_id);
+
+ALTER TABLE accounts ADD CONSTRAINT fk_accounts_user FOREIGN KEY (user_id) REFERENCES users (id);
+
+CREATE TABLE transactions (
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    description        VARCHAR(255),
+    amount             DOUBLE PRECISION NOT NULL,
+    user_performing_id BIGINT,
+    sender_id          BIGINT,
+    receiver_id        BIGINT,
+    transaction_type   INTEGER,
+    timestamp          TIMESTAMP(6)
+);
+
+-- named indexes for the foreign keys, added below
+CREATE INDEX idx_transactions_sender ON transactions (sender_id);
+CREATE INDEX idx_transactions_receiver ON transactions (receiver_id);
+CREATE INDEX idx_transactions_user_performing ON transactions (user_performing_id);
+-- the history of an account is read as two seeks, one on each side, ordered by the account column
+-- and then (timestamp, id). There is an index per direction: h2 cannot walk an index backwards and
+-- only prefers an index for its order over the foreign key index when the account column is sorted
+-- differently, which is why the account column is descending in both.
+CREATE INDEX idx_transactions_sender_timestamp ON transactions (sender_id DESC, timestamp, id);
+CREATE INDEX idx_transactions_receiver_timestamp ON transactions (receiver_id DESC, timestamp, id);
+CREATE INDEX idx_transactions_sender_timestamp_desc ON transactions (sender_id DESC, timestamp DESC, id DESC);
+CREATE INDEX idx_transactions_receiver_timestamp_desc ON transactions (receiver_id DESC, timestamp DESC, id DESC);
+-- used when the daily spend ledger is rebuilt for a day
+CREATE INDEX idx_transactions_timestamp ON transactions (timestamp);
+
+ALTER TABLE transactions ADD CONSTRAINT fk_transactions_user_performing FOREIGN KEY (user_performing_id) REFERENCES users (id);
+ALTER TABLE transactions ADD CONSTRAINT fk_transactions_sender FOREIGN KEY (sender_id) REFERENCES accounts (id);
+ALTER TABLE transactions ADD CONSTRAINT fk_transactions_receiver FOREIGN KEY (receiver_id) REFERENCES accounts (id);
+
+CREATE TABLE daily_spend (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    account_id BIGINT NOT NULL,
+    spend_date DATE NOT NULL,
+    amount     DOUBLE PRECISION NOT NULL,
+    CONSTRAINT uk_daily_spend_account_date UNIQUE (account_id, spend_date)
+);
+
+CREATE INDEX idx_daily_spend_date ON daily_spend (spend_date);
+
+CREATE TABLE user_states (
+    user_id BIGINT PRIMARY KEY,
+    version BIGINT NOT NULL,
+    blocked BOOLEAN NOT NULL
+);
@@ -0,0 +1,16 @@
+-- Amounts are stored as a whole number of cents (see Money and MoneyConverter) instead of a
+-- floating point number of euros. Existing amounts are rounded half up to the cent.
+
+UPDATE users SET day_limit = ROUND(day_limit * 100), transaction_limit = ROUND(transaction_limit * 100);
+ALTER TABLE users ALTER COLUMN day_limit SET DATA TYPE BIGINT;
+ALTER TABLE users ALTER COLUMN transaction_limit SET DATA TYPE BIGINT;
+
+UPDATE accounts SET balance = ROUND(balance * 100), absolute_limit = ROUND(absolute_limit * 100);
+ALTER TABLE accounts ALTER COLUMN balance SET DATA TYPE BIGINT;
+ALTER TABLE accounts ALTER COLUMN absolute_limit SET DATA TYPE BIGINT;
+
+UPDATE transactions SET amount = ROUND(amount * 100);
+ALTER TABLE transactions ALTER COLUMN amount SET DATA TYPE BIGINT;
+
+UPDATE daily_spend SET amount = ROUND(amount * 100);
+ALTER TABLE daily_spend ALTER COLUMN amount SET DATA TYPE BIGINT;
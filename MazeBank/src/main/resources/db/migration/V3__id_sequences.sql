@@ -0,0 +1,13 @@
+-- Users, accounts and transactions take their ids from a sequence instead of the identity column,
+-- see the @SequenceGenerator on the entities. Hibernate reserves 50 ids per call (pooled-lo), so
+-- the increment has to match the allocationSize. The identity columns stay as they are, Hibernate
+-- always sends the id now. Every sequence starts after the highest id already in use.
+
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE users_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM users);
+
+CREATE SEQUENCE accounts_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE accounts_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM accounts);
+
+CREATE SEQUENCE transactions_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE transactions_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM transactions);
@@ -0,0 +1,16 @@
+-- Responses to requests that were sent with an Idempotency-Key header, see IdempotencyService.
+-- The id is the user id and the key of the client together, so two users can use the same key.
+-- A row is inserted before the request runs and gets its response in the same transaction as the
+-- transfer, so a committed row always has a response.
+
+CREATE TABLE idempotency_keys (
+    id              VARCHAR(300) PRIMARY KEY,
+    user_id         BIGINT NOT NULL,
+    request_hash    VARCHAR(64) NOT NULL,
+    response_status INTEGER,
+    response_body   CLOB,
+    created_at      TIMESTAMP(6) NOT NULL,
+    expires_at      TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
@@ -0,0 +1,22 @@
+-- Transfers accepted by POST /transactions/queued, booked afterwards by the TransferQueueWorkers.
+-- A worker takes the queued transfers of its partitions in order of id, so the transfers of one
+-- sender are booked in the order they came in. status is the ordinal of QueuedTransferStatus.
+
+CREATE TABLE queued_transfers (
+    id                 BIGINT PRIMARY KEY,
+    sender_iban        VARCHAR(255) NOT NULL,
+    receiver_iban      VARCHAR(255) NOT NULL,
+    amount             BIGINT NOT NULL,
+    description        VARCHAR(255),
+    user_performing_id BIGINT NOT NULL,
+    partition_key      INTEGER NOT NULL,
+    status             INTEGER NOT NULL,
+    transaction_id     BIGINT,
+    failure_message    VARCHAR(255),
+    created_at         TIMESTAMP(6) NOT NULL,
+    processed_at       TIMESTAMP(6)
+);
+
+CREATE INDEX idx_queued_transfers_status_id ON queued_transfers (status, id);
+
+CREATE SEQUENCE queued_transfers_seq START WITH 1 INCREMENT BY 50;
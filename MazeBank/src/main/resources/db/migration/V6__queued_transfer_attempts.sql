@@ -0,0 +1,5 @@
+-- How often booking a queued transfer failed for a reason other than the transfer being refused.
+-- After mazebank.transactions.queue.max-attempts the transfer is marked failed, so one transfer
+-- that keeps failing can't hold up the rest of its partition.
+
+ALTER TABLE queued_transfers ADD COLUMN attempts INTEGER DEFAULT 0 NOT NULL;
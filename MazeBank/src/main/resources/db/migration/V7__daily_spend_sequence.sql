@@ -0,0 +1,5 @@
+-- Daily spend entries take their ids from a sequence as well, like the tables in V3, so the entries
+-- a batch of transfers creates are inserted in JDBC batches. The increment matches the allocationSize.
+
+CREATE SEQUENCE daily_spend_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE daily_spend_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM daily_spend);
@@ -0,0 +1,79 @@
+package w.mazebank.benchmarks;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import w.mazebank.enums.RoleType;
+import w.mazebank.models.User;
+import w.mazebank.services.JwtService;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Measures what the JwtAuthenticationFilter spends on the token per request.
+// "before" repeats what the filter used to do: extractEmail, then isTokenValid which parses the
+// token for the email and again for the expiration date, each time with a freshly decoded key
+// and a freshly built parser. "after" is the single parse the filter does now.
+//
+// Not part of the test run, start it with the main method (or through your IDE).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+    private static final String SECRET_KEY = "5367566B5970337336763979244226452948404D6251655468576D5A71347437";
+
+    private JwtService jwtService;
+    private User user;
+    private String jwt;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        user = User.builder()
+            .id(2L)
+            .email("user1@example.com")
+            .role(RoleType.CUSTOMER)
+            .build();
+        jwt = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean before() {
+        String email = parseWithNewParser(jwt).getSubject();
+        return email != null
+            && parseWithNewParser(jwt).getSubject().equals(user.getUsername())
+            && !parseWithNewParser(jwt).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public boolean after() {
+        Claims claims = jwtService.extractValidClaims(jwt);
+        return claims.getSubject() != null && jwtService.isTokenValid(claims, user);
+    }
+
+    private Claims parseWithNewParser(String jwt) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+        return Jwts.parserBuilder()
+            .setSigningKey(key)
+            .build()
+            .parseClaimsJws(jwt)
+            .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(JwtServiceBenchmark.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+}
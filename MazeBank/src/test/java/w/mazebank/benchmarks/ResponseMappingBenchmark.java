@@ -0,0 +1,101 @@
+package w.mazebank.benchmarks;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import w.mazebank.enums.AccountType;
+import w.mazebank.enums.RoleType;
+import w.mazebank.enums.TransactionType;
+import w.mazebank.models.Account;
+import w.mazebank.models.Money;
+import w.mazebank.models.Transaction;
+import w.mazebank.models.User;
+import w.mazebank.models.responses.AccountResponse;
+import w.mazebank.models.responses.TransactionResponse;
+import w.mazebank.utils.ResponseMapper;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Compares mapping a transaction and an account to their responses with ModelMapper, the way the
+// services used to, against ResponseMapper. The ModelMapper type map is registered once in the setup,
+// the best case for it, the services registered it again on every call.
+//
+// Not part of the test run, start it with the main method (or through your IDE).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseMappingBenchmark {
+    private ModelMapper modelMapper;
+    private Transaction transaction;
+    private Account account;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        // amounts are Money now, the responses still have them in euros
+        modelMapper.addConverter(context -> context.getSource().toDouble(), Money.class, double.class);
+        modelMapper.addConverter(context -> context.getSource() == null ? null : context.getSource().toDouble(), Money.class, Double.class);
+        modelMapper.typeMap(Transaction.class, TransactionResponse.class)
+            .addMappings(mapper -> {
+                mapper.map(src -> src.getSender().getIban(), TransactionResponse::setSender);
+                mapper.map(src -> src.getReceiver().getIban(), TransactionResponse::setReceiver);
+                // ModelMapper can't turn the user into the id on its own
+                mapper.map(src -> src.getUserPerforming().getId(), TransactionResponse::setUserPerforming);
+            });
+
+        User user = User.builder().id(2L).firstName("John").lastName("Doe").role(RoleType.CUSTOMER).build();
+        account = Account.builder()
+            .id(2L)
+            .iban("NL76INHO0493458014")
+            .accountType(AccountType.CHECKING)
+            .balance(Money.of(1000))
+            .user(user)
+            .isActive(true)
+            .build();
+        Account receiver = Account.builder().id(3L).iban("NL71INHO6310134205").user(user).build();
+        transaction = Transaction.builder()
+            .id(1L)
+            .amount(Money.of(100))
+            .description("benchmark")
+            .sender(account)
+            .receiver(receiver)
+            .userPerforming(user)
+            .transactionType(TransactionType.TRANSFER)
+            .timestamp(LocalDateTime.now())
+            .build();
+    }
+
+    @Benchmark
+    public TransactionResponse transactionWithModelMapper() {
+        return modelMapper.map(transaction, TransactionResponse.class);
+    }
+
+    @Benchmark
+    public TransactionResponse transactionWithResponseMapper() {
+        return ResponseMapper.toTransactionResponse(transaction);
+    }
+
+    @Benchmark
+    public AccountResponse accountWithModelMapper() {
+        return modelMapper.map(account, AccountResponse.class);
+    }
+
+    @Benchmark
+    public AccountResponse accountWithResponseMapper() {
+        return ResponseMapper.toAccountResponse(account);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(ResponseMappingBenchmark.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+}
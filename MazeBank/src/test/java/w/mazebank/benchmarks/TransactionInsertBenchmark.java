@@ -0,0 +1,108 @@
+package w.mazebank.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import w.mazebank.MazeBankApplication;
+import w.mazebank.enums.TransactionType;
+import w.mazebank.models.Account;
+import w.mazebank.models.Money;
+import w.mazebank.models.Transaction;
+import w.mazebank.repositories.AccountRepository;
+import w.mazebank.repositories.TransactionRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Inserts 1M transactions the way the bulk paths do, saveAll in chunks of 1000 with one database
+// transaction per chunk, against the application with its migrations on the in-memory database.
+// batchSize 1 turns JDBC batching off, 50 is what application.properties uses. Both take their ids
+// from the pooled-lo sequences, with the old identity columns hibernate could not batch at all.
+//
+// Not part of the test run, start it with the main method (or through your IDE).
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class TransactionInsertBenchmark {
+    private static final int ROWS = 1_000_000;
+    private static final int CHUNK = 1000;
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private TransactionRepository transactionRepository;
+    private TransactionTemplate transactionTemplate;
+    private EntityManager entityManager;
+    private Account sender;
+    private Account receiver;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // devtools would restart the application in another thread
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        context = new SpringApplicationBuilder(MazeBankApplication.class)
+            .properties("server.port=0", "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize)
+            .run();
+        transactionRepository = context.getBean(TransactionRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        entityManager = context.getBean(EntityManager.class);
+
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        sender = accountRepository.findByIban("NL76INHO0493458014").orElseThrow();
+        receiver = accountRepository.findByIban("NL76INHO0493458018").orElseThrow();
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteTransactions() {
+        transactionRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void insertMillionTransactions() {
+        LocalDateTime timestamp = LocalDateTime.now();
+        for (int inserted = 0; inserted < ROWS; inserted += CHUNK) {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Transaction> transactions = new ArrayList<>(CHUNK);
+                for (int i = 0; i < CHUNK; i++) {
+                    transactions.add(Transaction.builder()
+                        .amount(Money.ofCents(100 + i))
+                        .description("benchmark")
+                        .sender(entityManager.getReference(Account.class, sender.getId()))
+                        .receiver(entityManager.getReference(Account.class, receiver.getId()))
+                        .userPerforming(sender.getUser())
+                        .transactionType(TransactionType.TRANSFER)
+                        .timestamp(timestamp)
+                        .build());
+                }
+                transactionRepository.saveAll(transactions);
+                // keep the persistence context from growing with every chunk
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(TransactionInsertBenchmark.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,37 @@
+package w.mazebank.configurations;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import w.mazebank.utils.EntityLoadCounter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EntityLoadHeaderFilterTest {
+    private final EntityLoadCounter entityLoadCounter = new EntityLoadCounter();
+    private final EntityLoadHeaderFilter filter = new EntityLoadHeaderFilter(entityLoadCounter);
+
+    @Test
+    void countsTheEntitiesLoadedWhileTheResponseIsWritten() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/users"), response, (request, servletResponse) -> {
+            entityLoadCounter.onLoad(new Object(), (Object) 1L, null, null, null);
+            servletResponse.getWriter().write("[]");
+            entityLoadCounter.onLoad(new Object(), (Object) 2L, null, null, null);
+        });
+
+        assertEquals("2", response.getHeader(EntityLoadHeaderFilter.ENTITY_LOADS_HEADER));
+        assertEquals("[]", response.getContentAsString());
+    }
+
+    @Test
+    void loadsOutsideARequestAreNotCounted() throws Exception {
+        entityLoadCounter.onLoad(new Object(), (Object) 1L, null, null, null);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/users"), response, (request, servletResponse) -> { });
+
+        assertEquals("0", response.getHeader(EntityLoadHeaderFilter.ENTITY_LOADS_HEADER));
+    }
+}
@@ -0,0 +1,225 @@
+package w.mazebank.configurations;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import w.mazebank.enums.RoleType;
+import w.mazebank.exceptions.IdempotencyKeyReusedException;
+import w.mazebank.models.IdempotencyRecord;
+import w.mazebank.models.User;
+import w.mazebank.services.IdempotencyService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyFilterTest {
+    @InjectMocks
+    private IdempotencyFilter filter;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    private final User customer = User.builder()
+        .id(2L)
+        .email("user1@example.com")
+        .role(RoleType.CUSTOMER)
+        .build();
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(customer, null, customer.getAuthorities()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void requestWithoutKeyIsNotTouched() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/transactions");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertSame(request, chain.getRequest());
+        verifyNoInteractions(idempotencyService);
+    }
+
+    @Test
+    void otherEndpointsAreNotTouched() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/accounts");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "abc");
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        verifyNoInteractions(idempotencyService);
+    }
+
+    @Test
+    void partlyBookedBatchRunsOnceForItsKey() throws Exception {
+        when(idempotencyService.execute(eq(2L), eq("abc"), anyString(), any())).thenAnswer(invocation -> {
+            IdempotencyRecord response = invocation.<IdempotencyService.Request>getArgument(3).proceed();
+            assertEquals(207, response.getResponseStatus());
+            return Optional.empty();
+        });
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                response.setStatus(207);
+                response.getWriter().write("{\"created\":1,\"failed\":1}");
+            }
+        });
+
+        MockHttpServletResponse response = post("/transactions/batch", "{\"transactions\":[]}", chain);
+
+        assertEquals(207, response.getStatus());
+        verify(idempotencyService).execute(eq(2L), eq("abc"), anyString(), any());
+    }
+
+    @Test
+    void firstRequestRunsWithItsBodyAndIsSentAfterwards() throws Exception {
+        when(idempotencyService.execute(eq(2L), eq("abc"), anyString(), any())).thenAnswer(invocation -> {
+            IdempotencyRecord response = invocation.<IdempotencyService.Request>getArgument(3).proceed();
+            assertEquals(201, response.getResponseStatus());
+            assertEquals("{\"id\":1}", response.getResponseBody());
+            return Optional.empty();
+        });
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                // the controller can still read the body the filter hashed
+                assertEquals("{\"amount\":10}", new String(request.getInputStream().readAllBytes()));
+                response.setStatus(201);
+                response.getWriter().write("{\"id\":1}");
+            }
+        });
+
+        MockHttpServletResponse response = post("/accounts/1/deposit", "{\"amount\":10}", chain);
+
+        assertEquals(201, response.getStatus());
+        assertEquals("{\"id\":1}", response.getContentAsString());
+        assertNull(response.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void readListenerGetsTheWholeBodyAtOnce() throws Exception {
+        when(idempotencyService.execute(eq(2L), eq("abc"), anyString(), any())).thenAnswer(invocation -> {
+            invocation.<IdempotencyService.Request>getArgument(3).proceed();
+            return Optional.empty();
+        });
+        List<String> events = new ArrayList<>();
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                ServletInputStream input = request.getInputStream();
+                input.setReadListener(new ReadListener() {
+                    @Override
+                    public void onDataAvailable() throws IOException {
+                        events.add(new String(input.readAllBytes()));
+                    }
+
+                    @Override
+                    public void onAllDataRead() {
+                        events.add("done");
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        events.add("error");
+                    }
+                });
+                response.setStatus(201);
+            }
+        });
+
+        post("/transactions", "{\"amount\":10}", chain);
+
+        assertEquals(List.of("{\"amount\":10}", "done"), events);
+    }
+
+    @Test
+    void repeatedKeyReplaysTheStoredResponse() throws Exception {
+        IdempotencyRecord stored = IdempotencyRecord.builder().responseStatus(201).responseBody("{\"id\":1}").build();
+        when(idempotencyService.execute(eq(2L), eq("abc"), anyString(), any())).thenReturn(Optional.of(stored));
+        MockFilterChain chain = new MockFilterChain();
+
+        MockHttpServletResponse response = post("/transactions", "{}", chain);
+
+        assertEquals(201, response.getStatus());
+        assertEquals("{\"id\":1}", response.getContentAsString());
+        assertEquals("true", response.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void sameBodyGivesTheSameHash() throws Exception {
+        when(idempotencyService.execute(eq(2L), eq("abc"), anyString(), any())).thenReturn(Optional.empty());
+
+        post("/transactions", "{\"amount\":10}", new MockFilterChain());
+        post("/transactions", "{\"amount\":10}", new MockFilterChain());
+        post("/transactions", "{\"amount\":20}", new MockFilterChain());
+
+        ArgumentCaptor<String> hashes = ArgumentCaptor.forClass(String.class);
+        verify(idempotencyService, times(3)).execute(eq(2L), eq("abc"), hashes.capture(), any());
+        assertEquals(hashes.getAllValues().get(0), hashes.getAllValues().get(1));
+        assertNotEquals(hashes.getAllValues().get(0), hashes.getAllValues().get(2));
+    }
+
+    @Test
+    void reusedKeyIs422() throws Exception {
+        when(idempotencyService.execute(eq(2L), eq("abc"), anyString(), any()))
+            .thenThrow(new IdempotencyKeyReusedException("Idempotency-Key was already used for a different request"));
+
+        MockHttpServletResponse response = post("/transactions", "{}", new MockFilterChain());
+
+        assertEquals(422, response.getStatus());
+        assertTrue(response.getContentAsString().contains("already used"));
+    }
+
+    @Test
+    void tooLongKeyIs400() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/transactions");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "k".repeat(256));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertEquals(400, response.getStatus());
+        verifyNoInteractions(idempotencyService);
+    }
+
+    private MockHttpServletResponse post(String uri, String body, MockFilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "abc");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
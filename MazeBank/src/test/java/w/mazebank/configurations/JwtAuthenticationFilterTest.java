@@ -0,0 +1,166 @@
+package w.mazebank.configurations;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import w.mazebank.enums.RoleType;
+import w.mazebank.exceptions.UserNotFoundException;
+import w.mazebank.models.User;
+import w.mazebank.models.UserPrincipal;
+import w.mazebank.models.UserState;
+import w.mazebank.services.JwtService;
+import w.mazebank.services.UserPrincipalCache;
+import w.mazebank.services.UserStateService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+    @InjectMocks
+    private JwtAuthenticationFilter filter;
+
+    @Spy
+    private JwtService jwtService = new JwtService();
+
+    @Mock
+    private UserPrincipalCache userPrincipalCache;
+
+    @Mock
+    private UserStateService userStateService;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final User customer = User.builder()
+        .id(2L)
+        .email("user1@example.com")
+        .role(RoleType.CUSTOMER)
+        .build();
+
+    private final UserPrincipal customerPrincipal = new UserPrincipal(2L, "user1@example.com", RoleType.CUSTOMER, false, 1);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void statelessModeDoesNotLoadTheUser() throws Exception {
+        ReflectionTestUtils.setField(filter, "statelessAuth", true);
+        when(userStateService.getState(2L)).thenReturn(new UserState(2L, 1, false));
+
+        MockHttpServletResponse response = getTransaction(jwtService.generateToken(customer, 1));
+
+        assertEquals(200, response.getStatus());
+        User principal = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        assertEquals(2L, principal.getId());
+        assertEquals(RoleType.CUSTOMER, principal.getRole());
+        verifyNoInteractions(userPrincipalCache);
+    }
+
+    @Test
+    void statelessModeRejectsRevokedTokens() throws Exception {
+        ReflectionTestUtils.setField(filter, "statelessAuth", true);
+        when(userStateService.getState(2L)).thenReturn(new UserState(2L, 2, false));
+
+        MockHttpServletResponse response = getTransaction(jwtService.generateToken(customer, 1));
+
+        assertEquals(401, response.getStatus());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void statelessModeRejectsBlockedUsers() throws Exception {
+        ReflectionTestUtils.setField(filter, "statelessAuth", true);
+        when(userStateService.getState(2L)).thenReturn(new UserState(2L, 1, true));
+
+        MockHttpServletResponse response = getTransaction(jwtService.generateToken(customer, 1));
+
+        assertEquals(401, response.getStatus());
+        assertTrue(response.getContentAsString().contains("User is blocked"));
+    }
+
+    @Test
+    void defaultModeUsesTheCachedPrincipal() throws Exception {
+        when(userPrincipalCache.getByEmail("user1@example.com")).thenReturn(customerPrincipal);
+
+        MockHttpServletResponse response = getTransaction(jwtService.generateToken(customer, 1));
+
+        assertEquals(200, response.getStatus());
+        User principal = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        assertEquals(2L, principal.getId());
+        assertEquals(RoleType.CUSTOMER, principal.getRole());
+        verifyNoInteractions(userStateService);
+    }
+
+    @Test
+    void defaultModeRejectsRevokedTokens() throws Exception {
+        when(userPrincipalCache.getByEmail("user1@example.com"))
+            .thenReturn(new UserPrincipal(2L, "user1@example.com", RoleType.CUSTOMER, false, 2));
+
+        MockHttpServletResponse response = getTransaction(jwtService.generateToken(customer, 1));
+
+        assertEquals(401, response.getStatus());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void unknownUserIsUnauthorized() throws Exception {
+        when(userPrincipalCache.getByEmail("user1@example.com")).thenThrow(new UserNotFoundException("user not found"));
+
+        MockHttpServletResponse response = getTransaction(jwtService.generateToken(customer));
+
+        assertEquals(401, response.getStatus());
+    }
+
+    @Test
+    void authenticationIsTimedByOutcome() throws Exception {
+        when(userPrincipalCache.getByEmail("user1@example.com")).thenReturn(customerPrincipal);
+
+        getTransaction(jwtService.generateToken(customer, 1));
+        getTransaction("not-a-jwt");
+
+        assertEquals(1, meterRegistry.timer("mazebank.jwt.authentication", "outcome", "authenticated").count());
+        assertEquals(1, meterRegistry.timer("mazebank.jwt.authentication", "outcome", "rejected").count());
+    }
+
+    @Test
+    void healthCanBeCheckedWithoutAToken() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+        assertEquals(1, meterRegistry.timer("mazebank.jwt.authentication", "outcome", "anonymous").count());
+    }
+
+    @Test
+    void metricsCannotBeScrapedWithoutAToken() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/actuator/prometheus"), response, new MockFilterChain());
+
+        assertEquals(401, response.getStatus());
+    }
+
+    private MockHttpServletResponse getTransaction(String jwt) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/transactions/1");
+        request.addHeader("Authorization", "Bearer " + jwt);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
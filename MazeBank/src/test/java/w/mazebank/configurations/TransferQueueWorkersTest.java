@@ -0,0 +1,136 @@
+package w.mazebank.configurations;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import w.mazebank.exceptions.TransactionFailedException;
+import w.mazebank.models.QueuedTransfer;
+import w.mazebank.services.TransferQueueService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferQueueWorkersTest {
+    @InjectMocks
+    private TransferQueueWorkers workers;
+
+    @Mock
+    private TransferQueueService transferQueueService;
+
+    private final QueuedTransfer first = QueuedTransfer.builder().id(1L).senderIban("NL01INHO0000000002").build();
+    private final QueuedTransfer second = QueuedTransfer.builder().id(2L).senderIban("NL01INHO0000000002").build();
+    private final QueuedTransfer third = QueuedTransfer.builder().id(3L).senderIban("NL01INHO0000000003").build();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(workers, "workers", 4);
+        ReflectionTestUtils.setField(workers, "pollInterval", Duration.ofMillis(100));
+        ReflectionTestUtils.setField(workers, "running", true);
+    }
+
+    @Test
+    void transfersAreBookedInTheOrderTheyWereQueued() throws Exception {
+        when(transferQueueService.findQueued(1, 4, 100)).thenReturn(List.of(first, second, third));
+
+        workers.drain(1);
+
+        InOrder inOrder = inOrder(transferQueueService);
+        inOrder.verify(transferQueueService).book(first);
+        inOrder.verify(transferQueueService).book(second);
+        inOrder.verify(transferQueueService).book(third);
+    }
+
+    @Test
+    void rejectedTransferIsMarkedFailedAndTheNextOneIsBooked() throws Exception {
+        when(transferQueueService.findQueued(1, 4, 100)).thenReturn(List.of(first, second));
+        doThrow(new TransactionFailedException("Day limit exceeded")).when(transferQueueService).book(first);
+
+        workers.drain(1);
+
+        verify(transferQueueService).fail(first, "Day limit exceeded");
+        verify(transferQueueService).book(second);
+    }
+
+    @Test
+    void databaseErrorStopsTheWorkerWithoutSkippingTransfers() throws Exception {
+        when(transferQueueService.findQueued(1, 4, 100)).thenReturn(List.of(first, second));
+        doThrow(new DataAccessResourceFailureException("connection refused")).when(transferQueueService).book(first);
+
+        workers.drain(1);
+
+        verify(transferQueueService, never()).fail(any(), any());
+        verify(transferQueueService, never()).retryOrFail(any(), any());
+        verify(transferQueueService, never()).book(second);
+    }
+
+    @Test
+    void unexpectedErrorHoldsBackTheLaterTransfersOfTheSameSender() throws Exception {
+        when(transferQueueService.findQueued(1, 4, 100)).thenReturn(List.of(first, second, third));
+        doThrow(new DataIntegrityViolationException("constraint violated")).when(transferQueueService).book(first);
+
+        workers.drain(1);
+
+        verify(transferQueueService).retryOrFail(first, "constraint violated");
+        verify(transferQueueService, never()).book(second);
+        verify(transferQueueService).book(third);
+    }
+
+    @Test
+    void transferThatFailedOnItsLastAttemptNoLongerHoldsBackItsSender() throws Exception {
+        when(transferQueueService.findQueued(1, 4, 100)).thenReturn(List.of(first, second));
+        doThrow(new DataIntegrityViolationException("constraint violated")).when(transferQueueService).book(first);
+        when(transferQueueService.retryOrFail(first, "constraint violated")).thenReturn(true);
+
+        workers.drain(1);
+
+        verify(transferQueueService).book(second);
+    }
+
+    @Test
+    void heldBackTransferIsNotFetchedAgainInTheSameDrain() throws Exception {
+        List<QueuedTransfer> fullPage = new ArrayList<>(List.of(first));
+        for (long id = 10; id < 109; id++) {
+            fullPage.add(QueuedTransfer.builder().id(id).senderIban("NL01INHO0000000004").build());
+        }
+        when(transferQueueService.findQueued(1, 4, 100)).thenReturn(fullPage);
+        doThrow(new DataIntegrityViolationException("constraint violated")).when(transferQueueService).book(first);
+
+        workers.drain(1);
+
+        // it waits for the next poll instead of using up its attempts
+        verify(transferQueueService, times(1)).findQueued(1, 4, 100);
+        verify(transferQueueService, times(1)).retryOrFail(any(), any());
+    }
+
+    @Test
+    void transientDatabaseErrorIsNotCounted() throws Exception {
+        when(transferQueueService.findQueued(1, 4, 100)).thenReturn(List.of(first, second));
+        doThrow(new QueryTimeoutException("timed out")).when(transferQueueService).book(first);
+
+        workers.drain(1);
+
+        verify(transferQueueService, never()).retryOrFail(any(), any());
+        verify(transferQueueService, never()).book(second);
+    }
+
+    @Test
+    void disabledQueueStartsNoWorkers() {
+        when(transferQueueService.isEnabled()).thenReturn(false);
+
+        workers.run(null);
+
+        verify(transferQueueService, never()).findQueued(anyInt(), anyInt(), anyInt());
+    }
+}
@@ -9,13 +9,17 @@ import w.mazebank.enums.RoleType;
 import w.mazebank.enums.TransactionType;
 import w.mazebank.exceptions.AccountNotFoundException;
 import w.mazebank.exceptions.InsufficientFundsException;
+import w.mazebank.exceptions.InvalidCursorException;
 import w.mazebank.exceptions.TransactionFailedException;
 import w.mazebank.exceptions.UnauthorizedAccountAccessException;
 import w.mazebank.models.Account;
+import w.mazebank.models.Money;
 import w.mazebank.models.User;
 import w.mazebank.models.requests.AccountPatchRequest;
+import w.mazebank.models.requests.AccountRequest;
 import w.mazebank.models.responses.AccountResponse;
 import w.mazebank.models.responses.IbanResponse;
+import w.mazebank.models.responses.TransactionPageResponse;
 import w.mazebank.models.responses.TransactionResponse;
 
 import java.time.LocalDate;
@@ -28,6 +32,7 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -61,10 +66,10 @@ class AccountControllerTest extends BaseControllerTest {
             .id(1)
             .iban("NL01INHO0123456789")
             .accountType(AccountType.CHECKING)
-            .balance(1000.0)
+            .balance(Money.of(1000.0))
             .user(authCustomer)
             .isActive(true)
-            .absoluteLimit(0.0)
+            .absoluteLimit(Money.of(0.0))
             .createdAt(LocalDateTime.of(2023, 1, 1, 0, 0, 0))
             .build();
 
@@ -315,12 +320,10 @@ class AccountControllerTest extends BaseControllerTest {
 
     @Test
     void postAcccountShouldReturnStatusCreatedAndObject() throws Exception {
-        Account account = Account.builder()
+        AccountRequest account = AccountRequest.builder()
             .accountType(AccountType.CHECKING)
-            .balance(0.0)
             .isActive(true)
             .absoluteLimit(0.0)
-            .createdAt(null)
             .build();
         AccountResponse accountResponse = AccountResponse.builder()
             .id(1)
@@ -365,10 +368,10 @@ class AccountControllerTest extends BaseControllerTest {
             .id(1)
             .iban("NL01INHO0123456789")
             .accountType(AccountType.CHECKING)
-            .balance(1000.0)
+            .balance(Money.of(1000.0))
             .user(user)
             .isActive(true)
-            .absoluteLimit(0.0)
+            .absoluteLimit(Money.of(0.0))
             .createdAt(LocalDateTime.of(2023, 1, 1, 0, 0, 0))
             .build();
 
@@ -401,10 +404,10 @@ class AccountControllerTest extends BaseControllerTest {
             .id(1)
             .iban("NL01INHO0123456789")
             .accountType(AccountType.CHECKING)
-            .balance(1000.0)
+            .balance(Money.of(1000.0))
             .user(authCustomer)
             .isActive(true)
-            .absoluteLimit(0.0)
+            .absoluteLimit(Money.of(0.0))
             .createdAt(LocalDateTime.of(2023, 1, 1, 0, 0, 0))
             .build();
 
@@ -495,10 +498,10 @@ class AccountControllerTest extends BaseControllerTest {
             .id(1)
             .iban("NL01INHO0123456789")
             .accountType(AccountType.CHECKING)
-            .balance(1000.0)
+            .balance(Money.of(1000.0))
             .user(authCustomer)
             .isActive(true)
-            .absoluteLimit(0.0)
+            .absoluteLimit(Money.of(0.0))
             .createdAt(LocalDateTime.of(2023, 1, 1, 0, 0, 0))
             .build();
 
@@ -571,10 +574,10 @@ class AccountControllerTest extends BaseControllerTest {
             .id(1)
             .iban("NL01INHO0123456789")
             .accountType(AccountType.CHECKING)
-            .balance(1000.0)
+            .balance(Money.of(1000.0))
             .user(authCustomer)
             .isActive(true)
-            .absoluteLimit(0.0)
+            .absoluteLimit(Money.of(0.0))
             .createdAt(LocalDateTime.of(2023, 1, 1, 0, 0, 0))
             .build();
 
@@ -600,7 +603,7 @@ class AccountControllerTest extends BaseControllerTest {
         when(accountService.updateAccount(1L, accountPatchRequest)).thenReturn(accountResponse);
 
 
-        authCustomer = new User(2, "user2@example.com", 456123788, "Jim", "John", passwordEncoder.encode("1234"), "0987654321", RoleType.CUSTOMER, LocalDate.now().minusYears(30), LocalDateTime.now(), 5000, 200, false, null);
+        authCustomer = new User(2, "user2@example.com", 456123788, "Jim", "John", passwordEncoder.encode("1234"), "0987654321", RoleType.CUSTOMER, LocalDate.now().minusYears(30), LocalDateTime.now(), Money.of(5000), Money.of(200), false, null);
 
         // call the controller
         mockMvc.perform(patch("/accounts/1")
@@ -724,4 +727,46 @@ class AccountControllerTest extends BaseControllerTest {
             .andExpect(jsonPath("$[1].amount").value(200.0))
             .andExpect(jsonPath("$[1].timestamp").value(LocalDateTime.of(2023, 1, 1, 0, 0, 0).toString()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getTransactionsByAccountIdWithCursorReturnsNextCursorHeader() throws Exception {
+        TransactionPageResponse page = TransactionPageResponse.builder()
+            .transactions(List.of(TransactionResponse.builder()
+                .id(1L)
+                .amount(100.0)
+                .timestamp(LocalDateTime.of(2023, 1, 1, 0, 0, 0).toString())
+                .build()))
+            .nextCursor("MjAyMy0wMS0wMVQwMDowMHwx")
+            .build();
+
+        when(accountService.getTransactionPageFromAccount("", 1, "desc", authCustomer, 1L)).thenReturn(page);
+
+        mockMvc.perform(get("/accounts/1/transactions")
+                .param("cursor", "")
+                .param("pageSize", "1")
+                .header("Authorization", "Bearer " + customerToken)
+                .with(csrf())
+                .with(user(authCustomer))
+                .contentType("application/json")
+            ).andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Next-Cursor", "MjAyMy0wMS0wMVQwMDowMHwx"))
+            .andExpect(jsonPath("$[0].id").value(1))
+            .andExpect(jsonPath("$[0].amount").value(100.0));
+    }
+
+    @Test
+    void getTransactionsByAccountIdWithInvalidCursorReturns400() throws Exception {
+        when(accountService.getTransactionPageFromAccount("garbage", 10, "desc", authCustomer, 1L)).thenThrow(new InvalidCursorException("invalid cursor"));
+
+        mockMvc.perform(get("/accounts/1/transactions")
+                .param("cursor", "garbage")
+                .header("Authorization", "Bearer " + customerToken)
+                .with(csrf())
+                .with(user(authCustomer))
+                .contentType("application/json")
+            ).andDo(print())
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("invalid cursor"));
+    }
+}
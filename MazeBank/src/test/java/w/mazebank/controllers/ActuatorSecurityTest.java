@@ -0,0 +1,60 @@
+package w.mazebank.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import w.mazebank.exceptions.UserNotFoundException;
+import w.mazebank.models.UserPrincipal;
+import w.mazebank.services.JwtService;
+import w.mazebank.services.UserPrincipalCache;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Runs the actuator endpoints through the whole security filter chain with tokens of the seeded users.
+// Tests do not export metrics by default, so the prometheus endpoint is switched on for this one.
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class ActuatorSecurityTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
+    @Test
+    void healthIsPublic() throws Exception {
+        mockMvc.perform(get("/actuator/health"))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void metricsNeedAToken() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void customersCannotScrapeMetrics() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus").header("Authorization", "Bearer " + tokenOf("user1@example.com")))
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void employeesCanScrapeMetrics() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus").header("Authorization", "Bearer " + tokenOf("user3@example.com")))
+            .andExpect(status().isOk());
+    }
+
+    private String tokenOf(String email) throws UserNotFoundException {
+        UserPrincipal principal = userPrincipalCache.getByEmail(email);
+        return jwtService.generateToken(principal.toUser(), principal.getStateVersion());
+    }
+}
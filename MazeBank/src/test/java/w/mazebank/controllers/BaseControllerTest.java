@@ -1,6 +1,9 @@
 package w.mazebank.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,6 +21,7 @@ import w.mazebank.configurations.SecurityConfiguration;
 import w.mazebank.enums.RoleType;
 import w.mazebank.exceptions.UserNotFoundException;
 import w.mazebank.models.User;
+import w.mazebank.models.Money;
 import w.mazebank.models.responses.AccountResponse;
 import w.mazebank.models.responses.TransactionResponse;
 import w.mazebank.models.responses.UserResponse;
@@ -33,7 +37,7 @@ import java.util.Optional;
 
 import static org.mockito.Mockito.when;
 
-@Import({ApplicationConfig.class, SecurityConfiguration.class})
+@Import({ApplicationConfig.class, SecurityConfiguration.class, SimpleMeterRegistry.class})
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(controllers = {AccountController.class, AuthController.class, UserController.class, TransactionController.class})
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -45,6 +49,9 @@ class BaseControllerTest {
     @Autowired
     protected MockMvc mockMvc;
 
+    @Autowired
+    protected MeterRegistry meterRegistry;
+
     @MockBean
     public PasswordEncoder passwordEncoder;
 
@@ -69,6 +76,21 @@ class BaseControllerTest {
     @MockBean
     protected TransactionServiceJpa transactionServiceJpa;
 
+    @MockBean
+    protected UserPrincipalCache userPrincipalCache;
+
+    @MockBean
+    protected UserStateService userStateService;
+
+    @MockBean
+    protected IdempotencyService idempotencyService;
+
+    @MockBean
+    protected TransferQueueService transferQueueService;
+
+    @MockBean
+    protected TransactionRuleEngine transactionRuleEngine;
+
     protected final ObjectMapper objectMapper = new ObjectMapper();
 
     protected User authEmployee;
@@ -81,10 +103,12 @@ class BaseControllerTest {
 
     @BeforeEach
     void setUp() throws UserNotFoundException {
-        authCustomer = new User(1, "user1@example.com", 123456789, "John", "Doe", passwordEncoder.encode("1234"), "1234567890", RoleType.CUSTOMER, LocalDate.now().minusYears(30), LocalDateTime.now(), 5000, 200, false, null);
-        authEmployee = new User(3, "user3@example.com", 456123789, "Jim", "John", passwordEncoder.encode("1234"), "0987654321", RoleType.EMPLOYEE, LocalDate.now().minusYears(30), LocalDateTime.now(), 5000, 200, false, null);
+        authCustomer = new User(1, "user1@example.com", 123456789, "John", "Doe", passwordEncoder.encode("1234"), "1234567890", RoleType.CUSTOMER, LocalDate.now().minusYears(30), LocalDateTime.now(), Money.of(5000), Money.of(200), false, null);
+        authEmployee = new User(3, "user3@example.com", 456123789, "Jim", "John", passwordEncoder.encode("1234"), "0987654321", RoleType.EMPLOYEE, LocalDate.now().minusYears(30), LocalDateTime.now(), Money.of(5000), Money.of(200), false, null);
 
         when(userRepository.findByEmail(Mockito.anyString())).thenReturn(Optional.of(authEmployee));
+        // empty claims have no subject, so the filter leaves authentication to @WithMockUser
+        when(jwtService.extractValidClaims(Mockito.anyString())).thenReturn(Jwts.claims());
         when(userServiceJpa.getUserById(Mockito.anyLong())).thenReturn(authEmployee);
 
         customerToken = new JwtService().generateToken(authCustomer);
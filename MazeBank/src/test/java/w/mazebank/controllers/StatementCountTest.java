@@ -0,0 +1,87 @@
+package w.mazebank.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import w.mazebank.exceptions.UserNotFoundException;
+import w.mazebank.models.UserPrincipal;
+import w.mazebank.services.JwtService;
+import w.mazebank.services.UserPrincipalCache;
+import w.mazebank.utils.SqlStatementCounter;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Runs the list endpoints against the seeded database and counts the SQL statements they cause.
+// The count has to stay below a fixed bound and may not grow with the page size, one statement per
+// row means an association is loaded lazily while the response is built.
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=w.mazebank.utils.SqlStatementCounter")
+class StatementCountTest {
+    private static final int MAX_STATEMENTS = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
+    private String employeeToken;
+
+    @BeforeEach
+    void setUp() throws UserNotFoundException {
+        // load the principal up front, so only the statements of the endpoint itself are counted
+        UserPrincipal employee = userPrincipalCache.getByEmail("user3@example.com");
+        employeeToken = jwtService.generateToken(employee.toUser(), employee.getStateVersion());
+    }
+
+    @Test
+    void getAllAccounts() throws Exception {
+        assertBoundedStatements("/accounts");
+    }
+
+    @Test
+    void searchAccounts() throws Exception {
+        assertBoundedStatements("/accounts?search=NL01");
+    }
+
+    @Test
+    void getAllUsers() throws Exception {
+        assertBoundedStatements("/users");
+    }
+
+    @Test
+    void searchUsers() throws Exception {
+        assertBoundedStatements("/users?search=example");
+    }
+
+    @Test
+    void getAllUsersWithoutAccounts() throws Exception {
+        assertBoundedStatements("/users?withoutAccounts=true");
+    }
+
+    private void assertBoundedStatements(String url) throws Exception {
+        int small = countStatements(url + (url.contains("?") ? "&" : "?") + "pageSize=2");
+        int large = countStatements(url + (url.contains("?") ? "&" : "?") + "pageSize=50");
+
+        assertTrue(small <= MAX_STATEMENTS, url + " ran " + small + " statements");
+        // a page that is not full skips the count query, so the larger page may run fewer statements
+        assertTrue(large <= small, url + " runs more statements for a larger page");
+    }
+
+    private int countStatements(String url) throws Exception {
+        SqlStatementCounter.reset();
+        mockMvc.perform(get(url).header("Authorization", "Bearer " + employeeToken))
+            .andExpect(status().isOk());
+        return SqlStatementCounter.count();
+    }
+}
@@ -4,17 +4,28 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import w.mazebank.enums.AccountType;
+import w.mazebank.enums.BatchMode;
 import w.mazebank.enums.TransactionType;
 import w.mazebank.exceptions.TransactionFailedException;
 import w.mazebank.exceptions.TransactionNotFoundException;
+import w.mazebank.exceptions.TransferQueueUnavailableException;
 import w.mazebank.exceptions.UnauthorizedTransactionAccessException;
 import w.mazebank.models.Account;
+import w.mazebank.models.Money;
 import w.mazebank.models.User;
+import w.mazebank.models.requests.BatchTransactionRequest;
 import w.mazebank.models.requests.TransactionRequest;
+import w.mazebank.models.responses.BatchItemResponse;
+import w.mazebank.models.responses.BatchTransactionResponse;
+import w.mazebank.models.responses.QueuedTransferResponse;
 import w.mazebank.models.responses.TransactionResponse;
+import w.mazebank.models.responses.TransactionRuleResponse;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
@@ -55,19 +66,19 @@ class TransactionControllerTest extends BaseControllerTest {
         Account sender = Account.builder()
             .id(1)
             .accountType(AccountType.CHECKING)
-            .balance(100.00)
+            .balance(Money.of(100.00))
             .isActive(true)
             .iban("NL01INHO0000000002")
-            .absoluteLimit(0.0)
+            .absoluteLimit(Money.of(0.0))
             .build();
 
         Account receiver = Account.builder()
             .id(2)
             .accountType(AccountType.SAVINGS)
-            .balance(0.00)
+            .balance(Money.of(0.00))
             .isActive(true)
             .iban("NL01INHO0000000003")
-            .absoluteLimit(0.0)
+            .absoluteLimit(Money.of(0.0))
             .build();
 
 
@@ -165,6 +176,22 @@ class TransactionControllerTest extends BaseControllerTest {
             .andReturn();
     }
 
+    @Test
+    void handledErrorsAreCountedByExceptionType() throws Exception {
+        when(transactionServiceJpa.getTransactionAndValidate(Mockito.anyLong(), Mockito.any(User.class))).thenThrow(new TransactionNotFoundException("Transaction not found"));
+        double before = meterRegistry.counter("mazebank.errors", "exception", "TransactionNotFoundException").count();
+
+        mockMvc.perform(get("/transactions/{id}", 1L)
+                .header("Authorization", "Bearer " + employeeToken)
+                .with(csrf())
+                .with(user(authEmployee))
+                .contentType("application/json")
+            )
+            .andExpect(status().isNotFound());
+
+        assertEquals(before + 1, meterRegistry.counter("mazebank.errors", "exception", "TransactionNotFoundException").count());
+    }
+
     @Test
     void transactionPerformedOnOtherAccountShouldResultIn403Unauthorized() throws Exception {
         when(transactionServiceJpa.postTransaction(Mockito.any(TransactionRequest.class), Mockito.any(User.class))).thenThrow(new UnauthorizedTransactionAccessException("User with id: " + 1 + " is not authorized to access transaction with id: " + 1));
@@ -184,4 +211,153 @@ class TransactionControllerTest extends BaseControllerTest {
             .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("User with id: " + 1 + " is not authorized to access transaction with id: " + 1))
             .andReturn();
     }
+
+    @Test
+    void batchPostReturns207WhenOnlySomeTransfersWereBooked() throws Exception {
+        BatchTransactionResponse batchResponse = BatchTransactionResponse.builder()
+            .mode(BatchMode.BEST_EFFORT.toString())
+            .created(1)
+            .failed(1)
+            .results(List.of(
+                BatchItemResponse.builder().index(0).status(BatchItemResponse.CREATED).transaction(transactionResponse).build(),
+                BatchItemResponse.builder().index(1).status(BatchItemResponse.FAILED).message("Day limit exceeded").build()
+            ))
+            .build();
+        when(transactionServiceJpa.postTransactions(Mockito.any(BatchTransactionRequest.class), Mockito.any(User.class))).thenReturn(batchResponse);
+
+        mockMvc.perform(post("/transactions/batch")
+                .header("Authorization", "Bearer " + customerToken)
+                .with(csrf())
+                .with(user(authCustomer))
+                .contentType("application/json")
+                .content(objectMapper.writeValueAsString(new BatchTransactionRequest(BatchMode.BEST_EFFORT, List.of(transactionRequest, transactionRequest))))
+            )
+            .andDo(print())
+            .andExpect(status().isMultiStatus())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.results[0].transaction.id").value(1))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.results[1].status").value("FAILED"))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.results[1].message").value("Day limit exceeded"))
+            .andReturn();
+    }
+
+    @Test
+    void batchPostWithInvalidTransferReturns400() throws Exception {
+        TransactionRequest invalid = TransactionRequest.builder()
+            .amount(-1)
+            .senderIban("NL01INHO0000000002")
+            .receiverIban("NL01INHO0000000003")
+            .build();
+
+        mockMvc.perform(post("/transactions/batch")
+                .header("Authorization", "Bearer " + customerToken)
+                .with(csrf())
+                .with(user(authCustomer))
+                .contentType("application/json")
+                .content(objectMapper.writeValueAsString(new BatchTransactionRequest(BatchMode.ALL_OR_NOTHING, List.of(transactionRequest, invalid))))
+            )
+            .andDo(print())
+            .andExpect(status().isBadRequest())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Amount should be a positive number"))
+            .andReturn();
+    }
+
+    @Test
+    void queuedTransactionReturns202WithLocation() throws Exception {
+        QueuedTransferResponse queued = QueuedTransferResponse.builder()
+            .id(7L)
+            .status("QUEUED")
+            .amount(100.00)
+            .sender("NL01INHO0000000002")
+            .receiver("NL01INHO0000000003")
+            .createdAt(LocalDateTime.now().toString())
+            .build();
+        when(transferQueueService.enqueue(Mockito.any(TransactionRequest.class), Mockito.any(User.class))).thenReturn(queued);
+
+        mockMvc.perform(post("/transactions/queued")
+                .header("Authorization", "Bearer " + customerToken)
+                .with(csrf())
+                .with(user(authCustomer))
+                .contentType("application/json")
+                .content(objectMapper.writeValueAsString(transactionRequest))
+            )
+            .andDo(print())
+            .andExpect(status().isAccepted())
+            .andExpect(MockMvcResultMatchers.header().string("Location", "/transactions/queued/7"))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(7))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("QUEUED"))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.transactionId").doesNotExist())
+            .andReturn();
+    }
+
+    @Test
+    void queuedTransactionWhenTheQueueIsFullReturns503WithRetryAfter() throws Exception {
+        when(transferQueueService.enqueue(Mockito.any(TransactionRequest.class), Mockito.any(User.class)))
+            .thenThrow(new TransferQueueUnavailableException("Too many transfers are waiting to be booked, try again later", Duration.ofSeconds(5)));
+
+        mockMvc.perform(post("/transactions/queued")
+                .header("Authorization", "Bearer " + customerToken)
+                .with(csrf())
+                .with(user(authCustomer))
+                .contentType("application/json")
+                .content(objectMapper.writeValueAsString(transactionRequest))
+            )
+            .andDo(print())
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(MockMvcResultMatchers.header().string("Retry-After", "5"))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Too many transfers are waiting to be booked, try again later"))
+            .andReturn();
+    }
+
+    @Test
+    void getQueuedTransactionReturnsItsStatus() throws Exception {
+        QueuedTransferResponse completed = QueuedTransferResponse.builder()
+            .id(7L)
+            .status("COMPLETED")
+            .transactionId(40L)
+            .build();
+        when(transferQueueService.getQueuedTransfer(Mockito.eq(7L), Mockito.any(User.class))).thenReturn(completed);
+
+        mockMvc.perform(get("/transactions/queued/{id}", 7L)
+                .header("Authorization", "Bearer " + customerToken)
+                .with(csrf())
+                .with(user(authCustomer))
+            )
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("COMPLETED"))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.transactionId").value(40))
+            .andReturn();
+    }
+
+    @Test
+    void getTransactionRulesReturnsTheirStatistics() throws Exception {
+        when(transactionRuleEngine.getStatistics()).thenReturn(List.of(
+            TransactionRuleResponse.builder().name("SenderIsNotReceiverRule").cost("IN_MEMORY").evaluations(10).rejections(1).averageMicros(0.5).build(),
+            TransactionRuleResponse.builder().name("DayLimitRule").cost("DATABASE").evaluations(9).rejections(2).averageMicros(120.0).build()
+        ));
+
+        mockMvc.perform(get("/transactions/rules")
+                .header("Authorization", "Bearer " + employeeToken)
+                .with(csrf())
+                .with(user(authEmployee))
+            )
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$[0].name").value("SenderIsNotReceiverRule"))
+            .andExpect(MockMvcResultMatchers.jsonPath("$[1].cost").value("DATABASE"))
+            .andExpect(MockMvcResultMatchers.jsonPath("$[1].rejections").value(2))
+            .andReturn();
+    }
+
+    @Test
+    void getTransactionRulesAsCustomerReturns403() throws Exception {
+        mockMvc.perform(get("/transactions/rules")
+                .header("Authorization", "Bearer " + customerToken)
+                .with(csrf())
+                .with(user(authCustomer))
+            )
+            .andDo(print())
+            .andExpect(status().isForbidden())
+            .andReturn();
+    }
 }
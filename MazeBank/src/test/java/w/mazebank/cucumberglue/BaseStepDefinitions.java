@@ -8,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestTemplate;
 import w.mazebank.enums.RoleType;
 import w.mazebank.models.User;
+import w.mazebank.models.Money;
 import w.mazebank.services.JwtService;
 
 import java.time.LocalDate;
@@ -36,7 +37,7 @@ public class BaseStepDefinitions {
         httpHeaders.add("Content-Type", "application/json");
 
         // create users
-        employee = new User(4, "user3@example.com", 456123789, "Jim", "John", "$2a$10$CHn7sYgipDQqx4yvV.X59.c07V9sTDiGmKfnlEBz48yznkDm7o6a.", "0987654321", RoleType.EMPLOYEE, LocalDate.now().minusYears(30), LocalDateTime.now(), 5000, 200, false, null);
-        customer = new User(3, "user2@example.com", 987654321, "Jane", "Smith", "$2a$10$CHn7sYgipDQqx4yvV.X59.c07V9sTDiGmKfnlEBz48yznkDm7o6a.", "0987654321", RoleType.CUSTOMER, LocalDate.now().minusYears(30), LocalDateTime.now(), 5000, 200, false, null);
+        employee = new User(4, "user3@example.com", 456123789, "Jim", "John", "$2a$10$CHn7sYgipDQqx4yvV.X59.c07V9sTDiGmKfnlEBz48yznkDm7o6a.", "0987654321", RoleType.EMPLOYEE, LocalDate.now().minusYears(30), LocalDateTime.now(), Money.of(5000), Money.of(200), false, null);
+        customer = new User(3, "user2@example.com", 987654321, "Jane", "Smith", "$2a$10$CHn7sYgipDQqx4yvV.X59.c07V9sTDiGmKfnlEBz48yznkDm7o6a.", "0987654321", RoleType.CUSTOMER, LocalDate.now().minusYears(30), LocalDateTime.now(), Money.of(5000), Money.of(200), false, null);
     }
 }
@@ -9,6 +9,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
 import w.mazebank.enums.AccountType;
 import w.mazebank.models.Account;
+import w.mazebank.models.Money;
 import w.mazebank.models.requests.TransactionRequest;
 import w.mazebank.utils.IbanGenerator;
 
@@ -82,7 +83,7 @@ public class TransactionsStepDefinitions extends BaseStepDefinitions {
             .id(1)
             .iban(IbanGenerator.generate())
             .accountType(AccountType.SAVINGS)
-            .balance(1000.00)
+            .balance(Money.of(1000.00))
             .build();
 
         // add the savings account to the customer
@@ -307,8 +308,8 @@ public class TransactionsStepDefinitions extends BaseStepDefinitions {
             .id(8L)
             .iban(iban)
             .accountType(AccountType.CHECKING)
-            .balance(balance)
-            .absoluteLimit(absoluteLimit)
+            .balance(Money.of(balance))
+            .absoluteLimit(Money.of(absoluteLimit))
             .isActive(true)
             .build();
         customer.setAccounts(List.of(checkingsAccount));
@@ -316,7 +317,7 @@ public class TransactionsStepDefinitions extends BaseStepDefinitions {
 
     @And("I have a user with transactionLimit {double}")
     public void iHaveAUserWithTransactionLimit(double transactionLimit) {
-        customer.setTransactionLimit(transactionLimit);
+        customer.setTransactionLimit(Money.of(transactionLimit));
     }
 
     @When("I make a transaction from account with iban {string} to account with iban {string} with amount {double}")
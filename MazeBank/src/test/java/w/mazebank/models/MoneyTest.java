@@ -0,0 +1,59 @@
+package w.mazebank.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+    @Test
+    void amountsAreKeptAsWholeCents() {
+        assertEquals(1050, Money.of(10.50).getCents());
+        assertEquals(-1000, Money.of(-10).getCents());
+        assertEquals(new BigDecimal("10.50"), Money.of(10.5).toBigDecimal());
+    }
+
+    @Test
+    void moreThanTwoDecimalsAreRoundedHalfUp() {
+        assertEquals(Money.of(1000.89), Money.of(1000.8888888));
+        assertEquals(Money.ofCents(1), Money.of(0.005));
+        assertEquals(Money.ofCents(-1), Money.of(-0.005));
+    }
+
+    @Test
+    void arithmeticIsExact() {
+        Money total = Money.ZERO;
+        for (int i = 0; i < 10; i++) {
+            total = total.plus(Money.of(0.1));
+        }
+
+        assertEquals(Money.of(1), total);
+        assertEquals(Money.of(0.2), Money.of(0.3).minus(Money.of(0.1)));
+        assertEquals(Money.of(-5), Money.of(5).negate());
+    }
+
+    @Test
+    void comparesByAmount() {
+        assertTrue(Money.of(10).isGreaterThan(Money.of(9.99)));
+        assertTrue(Money.of(-0.01).isLessThan(Money.ZERO));
+        assertTrue(Money.of(-0.01).isNegative());
+        assertFalse(Money.ZERO.isNegative());
+        assertEquals(0, Money.of(2).compareTo(Money.ofCents(200)));
+    }
+
+    @Test
+    void overflowIsAnError() {
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(Long.MAX_VALUE).plus(Money.ofCents(1)));
+    }
+
+    @Test
+    void converterStoresCents() {
+        MoneyConverter converter = new MoneyConverter();
+
+        assertEquals(1234L, converter.convertToDatabaseColumn(Money.of(12.34)));
+        assertEquals(Money.of(12.34), converter.convertToEntityAttribute(1234L));
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+}
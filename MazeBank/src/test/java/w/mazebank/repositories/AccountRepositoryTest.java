@@ -0,0 +1,96 @@
+package w.mazebank.repositories;
+
+import jakarta.persistence.LockModeType;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import w.mazebank.enums.AccountType;
+import w.mazebank.models.Account;
+import w.mazebank.models.DailySpend;
+import w.mazebank.models.Money;
+import w.mazebank.models.TransferContext;
+import w.mazebank.models.User;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs both variants of the transfer context query against H2, the locking one only adds FOR UPDATE
+// and has to load exactly the same accounts, owners and daily spend.
+@DataJpaTest
+class AccountRepositoryTest {
+    private static final LocalDate TODAY = LocalDate.of(2023, 5, 30);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private Account sender;
+    private Account receiver;
+
+    @BeforeEach
+    void setUp() {
+        User john = entityManager.persist(User.builder().email("john@example.com").bsn(111222333).build());
+        User jane = entityManager.persist(User.builder().email("jane@example.com").bsn(444555666).build());
+
+        sender = entityManager.persist(Account.builder().iban("NL01INHO0000000002").accountType(AccountType.CHECKING).user(john).build());
+        receiver = entityManager.persist(Account.builder().iban("NL01INHO0000000003").accountType(AccountType.CHECKING).user(jane).build());
+
+        // only today's row counts, the other rows are another day and another account
+        entityManager.persist(DailySpend.builder().accountId(sender.getId()).spendDate(TODAY).amount(Money.of(75.0)).build());
+        entityManager.persist(DailySpend.builder().accountId(sender.getId()).spendDate(TODAY.minusDays(1)).amount(Money.of(500.0)).build());
+        entityManager.persist(DailySpend.builder().accountId(receiver.getId()).spendDate(TODAY).amount(Money.of(20.0)).build());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void transferContextLoadsTheAccountsOwnersAndDailySpend() {
+        TransferContext context = accountRepository.findTransferContext(sender.getId(), receiver.getId(), TODAY, false).orElseThrow();
+
+        assertLoaded(context);
+        // hibernate reports a plain read as OPTIMISTIC, it just may not hold the row lock
+        assertNotEquals(LockModeType.PESSIMISTIC_WRITE, entityManager.getEntityManager().getLockMode(context.getSender()));
+    }
+
+    @Test
+    void lockingTransferContextLoadsTheSameAndLocksBothAccounts() {
+        TransferContext context = accountRepository.findTransferContext(sender.getId(), receiver.getId(), TODAY, true).orElseThrow();
+
+        assertLoaded(context);
+        assertEquals(LockModeType.PESSIMISTIC_WRITE, entityManager.getEntityManager().getLockMode(context.getSender()));
+        assertEquals(LockModeType.PESSIMISTIC_WRITE, entityManager.getEntityManager().getLockMode(context.getReceiver()));
+    }
+
+    @Test
+    void transferContextWithoutSpendTodayHasSpentNothing() {
+        LocalDate tomorrow = TODAY.plusDays(1);
+
+        assertEquals(Money.ZERO, accountRepository.findTransferContext(sender.getId(), receiver.getId(), tomorrow, false).orElseThrow().getSenderSpentToday());
+        assertEquals(Money.ZERO, accountRepository.findTransferContext(sender.getId(), receiver.getId(), tomorrow, true).orElseThrow().getSenderSpentToday());
+    }
+
+    @Test
+    void transferContextOfAnUnknownAccountIsEmpty() {
+        assertTrue(accountRepository.findTransferContext(sender.getId(), -1, TODAY, false).isEmpty());
+        assertTrue(accountRepository.findTransferContext(-1, receiver.getId(), TODAY, true).isEmpty());
+    }
+
+    private void assertLoaded(TransferContext context) {
+        assertEquals(sender.getId(), context.getSender().getId());
+        assertEquals(receiver.getId(), context.getReceiver().getId());
+
+        // the owners come with the accounts, the rule engine reads them without another query
+        assertTrue(Hibernate.isInitialized(context.getSender().getUser()));
+        assertTrue(Hibernate.isInitialized(context.getReceiver().getUser()));
+        assertEquals("john@example.com", context.getSender().getUser().getEmail());
+        assertEquals("jane@example.com", context.getReceiver().getUser().getEmail());
+
+        assertEquals(Money.of(75.0), context.getSenderSpentToday());
+    }
+}
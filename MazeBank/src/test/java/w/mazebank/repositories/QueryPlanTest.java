@@ -0,0 +1,187 @@
+package w.mazebank.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+import w.mazebank.models.TransactionFilter;
+import w.mazebank.utils.SqlStatementCounter;
+import w.mazebank.utils.TransactionCursor;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Asks the database how it runs the queries on the hot paths and fails when one of them would
+// scan a whole table, for example because an index was dropped or a query was changed so it can
+// no longer use one. The repositories are called and the SQL Hibernate sends for them is explained,
+// with the parameters left unbound. The schema comes from the Flyway migrations.
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=w.mazebank.utils.SqlStatementCounter")
+class QueryPlanTest {
+    private static final TransactionCursor CURSOR = new TransactionCursor(LocalDateTime.of(2023, 5, 30, 10, 30), 6L);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserStateRepository userStateRepository;
+
+    @Autowired
+    private DailySpendRepository dailySpendRepository;
+
+    @Test
+    void accountHistoryUsesTheSenderAndReceiverIndexes() throws SQLException {
+        // findByAccountAfter reads the sent and then the received transactions
+        List<String> newestFirst = statementsOf(() -> transactionRepository.findByAccountAfter(2L, null, false, 11));
+        assertEquals(2, newestFirst.size());
+        assertUsesIndex("idx_transactions_sender_timestamp_desc", newestFirst.get(0));
+        assertUsesIndex("idx_transactions_receiver_timestamp_desc", newestFirst.get(1));
+
+        List<String> oldestFirst = statementsOf(() -> transactionRepository.findByAccountAfter(2L, null, true, 11));
+        assertEquals(2, oldestFirst.size());
+        assertUsesIndex("idx_transactions_sender_timestamp", oldestFirst.get(0));
+        assertUsesIndex("idx_transactions_receiver_timestamp", oldestFirst.get(1));
+    }
+
+    @Test
+    void accountHistoryAfterCursorUsesTheIndexes() throws SQLException {
+        List<String> newestFirst = statementsOf(() -> transactionRepository.findByAccountAfter(2L, CURSOR, false, 11));
+        assertUsesIndex("idx_transactions_sender_timestamp_desc", newestFirst.get(0));
+
+        List<String> oldestFirst = statementsOf(() -> transactionRepository.findByAccountAfter(2L, CURSOR, true, 11));
+        assertUsesIndex("idx_transactions_receiver_timestamp", oldestFirst.get(1));
+    }
+
+    @Test
+    void accountHistoryPageLooksUpBothSidesByIndex() throws SQLException {
+        // findByAccount for a page number, the offset is skipped in the database
+        String sql = singleStatementOf(() -> transactionRepository.findByAccount(2L, PageRequest.of(2, 10, Sort.by(Sort.Direction.DESC, "timestamp", "id"))));
+        String plan = explain(sql);
+        assertNoTableScan(plan, sql);
+        assertTrue(plan.toUpperCase().contains("IDX_TRANSACTIONS_SENDER"), "expected a sender index to be used, plan was:\n" + plan);
+        assertTrue(plan.toUpperCase().contains("IDX_TRANSACTIONS_RECEIVER"), "expected a receiver index to be used, plan was:\n" + plan);
+    }
+
+    @Test
+    void userHistoryReadsEachSideOfEachAccountByIndex() throws SQLException {
+        // /users/{id}/transactions looks up the user's accounts and then seeks every account's sent and
+        // received transactions in index order, where sender or receiver of the user would scan and sort
+        assertUsesIndex("idx_accounts_user", singleStatementOf(() -> accountRepository.findIdsByUserId(2L)));
+
+        TransactionFilter filter = TransactionFilter.builder().build();
+        List<String> statements = statementsOf(() -> transactionRepository.findByAccountsAfter(
+            List.of(2L, 3L), filter.toSearchSpecification(), CURSOR, true, 11));
+
+        assertEquals(4, statements.size());
+        assertUsesIndex("idx_transactions_sender_timestamp", statements.get(0));
+        assertUsesIndex("idx_transactions_receiver_timestamp", statements.get(1));
+        assertUsesIndex("idx_transactions_sender_timestamp", statements.get(2));
+        assertUsesIndex("idx_transactions_receiver_timestamp", statements.get(3));
+    }
+
+    @Test
+    void foreignKeysReuseTheNamedIndexes() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                 "SELECT COUNT(*) FROM information_schema.indexes WHERE table_name IN ('ACCOUNTS', 'TRANSACTIONS') AND index_name LIKE 'FK%'")) {
+            resultSet.next();
+            assertEquals(0, resultSet.getInt(1), "foreign keys on accounts or transactions created their own indexes");
+        }
+    }
+
+    @Test
+    void dailySpendRebuildUsesTheTimestampAndSenderIndexes() throws SQLException {
+        LocalDateTime start = LocalDateTime.of(2023, 5, 30, 0, 0);
+
+        assertUsesIndex("idx_transactions_timestamp", singleStatementOf(() -> transactionRepository.findSpendingSenderIdsBetween(start, start.plusDays(1))));
+        assertUsesIndex("idx_transactions_sender", singleStatementOf(() -> transactionRepository.sumCentsSentBetween(2L, start, start.plusDays(1))));
+    }
+
+    @Test
+    void usersWithoutAccountsProbeTheAccountsUserIndex() throws SQLException {
+        // the users are walked until the page is full, every user costs one index probe
+        String plan = explain(singleStatementOf(() -> userRepository.findAllWithoutAccounts(PageRequest.of(0, 10))));
+        assertTrue(plan.toUpperCase().contains("IDX_ACCOUNTS_USER"), "expected idx_accounts_user to be used, plan was:\n" + plan);
+    }
+
+    @Test
+    void lookupsByKeyDoNotScan() throws SQLException {
+        assertNoTableScan(singleStatementOf(() -> dailySpendRepository.findAmount(2L, LocalDate.of(2023, 5, 30))));
+        assertNoTableScan(singleStatementOf(() -> accountRepository.findIdByIban("NL76INHO0493458014")));
+        assertNoTableScan(singleStatementOf(() -> accountRepository.findTransferContext(2L, 4L, LocalDate.of(2023, 5, 30), false)));
+        assertNoTableScan(singleStatementOf(() -> userRepository.findIdsWithAccounts(List.of(2L))));
+        assertNoTableScan(singleStatementOf(() -> userRepository.findByEmail("user1@example.com")));
+        assertNoTableScan(singleStatementOf(() -> transactionRepository.findById(1L)));
+        assertNoTableScan(singleStatementOf(() -> userStateRepository.findById(2L)));
+    }
+
+    private List<String> statementsOf(Runnable call) {
+        SqlStatementCounter.reset();
+        call.run();
+        return SqlStatementCounter.statements();
+    }
+
+    private String singleStatementOf(Runnable call) {
+        List<String> statements = statementsOf(call);
+        assertEquals(1, statements.size(), "expected one statement, sent were:\n" + String.join("\n", statements));
+        return statements.get(0);
+    }
+
+    private void assertUsesIndex(String index, String sql) throws SQLException {
+        String plan = explain(sql);
+        assertNoTableScan(plan, sql);
+        // the index name followed by the seek, so idx_transactions_sender_timestamp does not match its _desc twin
+        assertTrue(plan.toUpperCase().contains(index.toUpperCase() + ":"), "expected " + index + " to be used, plan was:\n" + plan);
+        if (sql.toUpperCase().contains("ORDER BY")) {
+            assertTrue(plan.contains("index sorted"), "expected the rows in index order, plan was:\n" + plan);
+        }
+    }
+
+    private void assertNoTableScan(String sql) throws SQLException {
+        assertNoTableScan(explain(sql), sql);
+    }
+
+    private void assertNoTableScan(String plan, String sql) {
+        assertFalse(plan.contains("tableScan"), "full table scan for:\n" + sql + "\nplan was:\n" + plan);
+    }
+
+    // the plan doesn't depend on the values, so every parameter is left null
+    private String explain(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) {
+                statement.setObject(i, null);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+                return plan.toString();
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package w.mazebank.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import w.mazebank.enums.AccountType;
+import w.mazebank.enums.TransactionType;
+import w.mazebank.models.Account;
+import w.mazebank.models.Money;
+import w.mazebank.models.Transaction;
+import w.mazebank.models.TransactionFilter;
+import w.mazebank.models.User;
+import w.mazebank.utils.TransactionCursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class TransactionRepositoryTest {
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private User user;
+    private Account checking;
+    private Account savings;
+    private Account other;
+    private Transaction sent;
+    private Transaction received;
+    private Transaction toSelf;
+    private Transaction unrelated;
+    private Transaction sentLater;
+
+    @BeforeEach
+    void setUp() {
+        user = entityManager.persist(User.builder().email("john@example.com").bsn(111222333).build());
+        User otherUser = entityManager.persist(User.builder().email("jane@example.com").bsn(444555666).build());
+
+        checking = entityManager.persist(Account.builder().iban("NL01INHO0000000002").accountType(AccountType.CHECKING).user(user).build());
+        savings = entityManager.persist(Account.builder().iban("NL01INHO0000000003").accountType(AccountType.SAVINGS).user(user).build());
+        other = entityManager.persist(Account.builder().iban("NL01INHO0000000004").accountType(AccountType.CHECKING).user(otherUser).build());
+
+        LocalDateTime day = LocalDateTime.of(2023, 5, 30, 10, 0);
+        sent = persist(checking, other, day);
+        received = persist(other, checking, day.plusHours(1));
+        unrelated = persist(other, savings, day.plusHours(2));
+        toSelf = persist(checking, checking, day.plusHours(3));
+        sentLater = persist(checking, savings, day.plusHours(3));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void accountHistoryMergesSentAndReceivedInOrder() {
+        List<Transaction> history = transactionRepository.findByAccountAfter(checking.getId(), null, true, 10);
+
+        assertEquals(List.of(sent.getId(), received.getId(), toSelf.getId(), sentLater.getId()), ids(history));
+    }
+
+    @Test
+    void accountHistoryNewestFirstAndAfterCursor() {
+        List<Transaction> firstPage = transactionRepository.findByAccountAfter(checking.getId(), null, false, 2);
+        assertEquals(List.of(sentLater.getId(), toSelf.getId()), ids(firstPage));
+
+        Transaction last = firstPage.get(1);
+        List<Transaction> secondPage = transactionRepository.findByAccountAfter(
+            checking.getId(), new TransactionCursor(last.getTimestamp(), last.getId()), false, 2);
+        assertEquals(List.of(received.getId(), sent.getId()), ids(secondPage));
+    }
+
+    @Test
+    void accountPageIsSkippedToInTheDatabase() {
+        PageRequest secondPage = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "timestamp", "id"));
+
+        List<Transaction> page = transactionRepository.findByAccount(checking.getId(), secondPage);
+
+        // the transfer to itself is on the account's side twice but listed once
+        assertEquals(List.of(received.getId(), sent.getId()), ids(page));
+    }
+
+    @Test
+    void userHistoryMergesSentAndReceivedOnce() {
+        List<Transaction> history = transactionRepository.findByAccountsAfter(
+            List.of(checking.getId(), savings.getId()), null, null, true, 10);
+
+        // the transfers between the user's own accounts are read for both of their sides
+        assertEquals(List.of(sent.getId(), received.getId(), unrelated.getId(), toSelf.getId(), sentLater.getId()), ids(history));
+
+        List<Transaction> newestFirst = transactionRepository.findByAccountsAfter(
+            List.of(checking.getId(), savings.getId()), null, new TransactionCursor(sentLater.getTimestamp(), sentLater.getId()), false, 3);
+        assertEquals(List.of(toSelf.getId(), unrelated.getId(), received.getId()), ids(newestFirst));
+    }
+
+    @Test
+    void userHistoryKeepsTheSearchConditions() {
+        TransactionFilter filter = TransactionFilter.builder().toIban("NL01INHO0000000003").build();
+
+        List<Transaction> history = transactionRepository.findByAccountsAfter(
+            List.of(checking.getId(), savings.getId()), filter.toSearchSpecification(), null, true, 10);
+
+        assertEquals(List.of(unrelated.getId(), sentLater.getId()), ids(history));
+    }
+
+    @Test
+    void searchFindsTheTransactionsOfEveryMatchingAccount() {
+        // more accounts match than fit in one query, the last one's transfers are still found
+        Account last = null;
+        for (int i = 0; i < 1001; i++) {
+            last = entityManager.persist(Account.builder().iban(String.format("NL01INHO00001%05d", i)).accountType(AccountType.CHECKING).user(user).build());
+        }
+        Transaction toLast = persist(other, last, LocalDateTime.of(2023, 6, 1, 10, 0));
+        Transaction fromLast = persist(last, checking, LocalDateTime.of(2023, 6, 1, 11, 0));
+        entityManager.flush();
+        accountRepository.rebuildSearchIndex();
+
+        List<Transaction> newestFirst = transactionRepository.findBySearchString("NL01INHO00001", PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "id")));
+        assertEquals(List.of(fromLast.getId(), toLast.getId()), ids(newestFirst));
+
+        List<Transaction> secondPage = transactionRepository.findBySearchString("NL01INHO00001", PageRequest.of(1, 1, Sort.by(Sort.Direction.ASC, "id")));
+        assertEquals(List.of(fromLast.getId()), ids(secondPage));
+    }
+
+    @Test
+    void daySpendLeavesOutOwnAccountsAndDeposits() {
+        LocalDateTime start = LocalDateTime.of(2023, 5, 30, 0, 0);
+        persist(other, checking, start.plusHours(12), TransactionType.DEPOSIT);
+        entityManager.flush();
+
+        assertEquals(List.of(checking.getId(), other.getId()), transactionRepository.findSpendingSenderIdsBetween(start, start.plusDays(1)).stream().sorted().toList());
+        assertEquals(Money.of(10.0).getCents(), transactionRepository.sumCentsSentBetween(checking.getId(), start, start.plusDays(1)));
+        assertEquals(Money.of(20.0).getCents(), transactionRepository.sumCentsSentBetween(other.getId(), start, start.plusDays(1)));
+    }
+
+    private Transaction persist(Account sender, Account receiver, LocalDateTime timestamp) {
+        return persist(sender, receiver, timestamp, TransactionType.TRANSFER);
+    }
+
+    private Transaction persist(Account sender, Account receiver, LocalDateTime timestamp, TransactionType transactionType) {
+        return entityManager.persist(Transaction.builder()
+            .amount(Money.of(10.0))
+            .sender(sender)
+            .receiver(receiver)
+            .transactionType(transactionType)
+            .timestamp(timestamp)
+            .build());
+    }
+
+    private List<Long> ids(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getId).toList();
+    }
+}
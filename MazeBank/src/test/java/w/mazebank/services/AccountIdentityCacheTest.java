@@ -0,0 +1,68 @@
+package w.mazebank.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import w.mazebank.exceptions.AccountNotFoundException;
+import w.mazebank.repositories.AccountRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountIdentityCacheTest {
+    @InjectMocks
+    private AccountIdentityCache accountIdentityCache = new AccountIdentityCache(Duration.ofMinutes(5), 100);
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Test
+    void cacheHitDoesNotQueryTheDatabase() throws AccountNotFoundException {
+        when(accountRepository.findIdByIban("NL01MAZE0000000002")).thenReturn(Optional.of(2L));
+
+        assertEquals(2L, accountIdentityCache.getIdByIban("NL01MAZE0000000002"));
+        assertEquals(2L, accountIdentityCache.getIdByIban("NL01MAZE0000000002"));
+
+        verify(accountRepository, times(1)).findIdByIban("NL01MAZE0000000002");
+    }
+
+    @Test
+    void entriesExpireAfterTheTimeToLive() throws Exception {
+        AccountIdentityCache shortLivedCache = new AccountIdentityCache(Duration.ofMillis(50), 100);
+        ReflectionTestUtils.setField(shortLivedCache, "accountRepository", accountRepository);
+        when(accountRepository.findIdByIban("NL01MAZE0000000002")).thenReturn(Optional.of(2L));
+
+        shortLivedCache.getIdByIban("NL01MAZE0000000002");
+        Thread.sleep(100);
+        shortLivedCache.getIdByIban("NL01MAZE0000000002");
+
+        verify(accountRepository, times(2)).findIdByIban("NL01MAZE0000000002");
+    }
+
+    @Test
+    void unknownIbanIsNotCached() throws AccountNotFoundException {
+        when(accountRepository.findIdByIban("NL01MAZE0000000002")).thenReturn(Optional.empty()).thenReturn(Optional.of(2L));
+
+        AccountNotFoundException exception = assertThrows(AccountNotFoundException.class, () -> accountIdentityCache.getIdByIban("NL01MAZE0000000002"));
+        assertEquals("Account with iban: NL01MAZE0000000002 not found", exception.getMessage());
+        // the account was opened in the meantime
+        assertEquals(2L, accountIdentityCache.getIdByIban("NL01MAZE0000000002"));
+    }
+
+    @Test
+    void bankAccountIdIsLookedUpOnce() throws AccountNotFoundException {
+        when(accountRepository.findIdByIban("NL01INHO0000000001")).thenReturn(Optional.of(1L));
+
+        assertEquals(1L, accountIdentityCache.getBankAccountId());
+        assertEquals(1L, accountIdentityCache.getBankAccountId());
+
+        verify(accountRepository, times(1)).findIdByIban("NL01INHO0000000001");
+    }
+}
@@ -0,0 +1,141 @@
+package w.mazebank.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountLockManagerTest {
+    private static final int ACCOUNTS = 20;
+    private static final int TRANSFERS = 10_000;
+
+    @Test
+    void parallelTransfersDoNotLoseUpdates() throws Exception {
+        // use few stripes so unrelated accounts share locks as well
+        AccountLockManager lockManager = new AccountLockManager(8);
+
+        // plain, unsynchronized balances, the lock manager is the only thing protecting them
+        long[] balances = new long[ACCOUNTS];
+        long[] expected = new long[ACCOUNTS];
+        Random random = new Random(42);
+        List<int[]> transfers = new ArrayList<>(TRANSFERS);
+        for (int i = 0; i < TRANSFERS; i++) {
+            int from = random.nextInt(ACCOUNTS);
+            int to = random.nextInt(ACCOUNTS);
+            int amount = 1 + random.nextInt(100);
+            transfers.add(new int[]{from, to, amount});
+            expected[from] -= amount;
+            expected[to] += amount;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(TRANSFERS);
+        for (int[] transfer : transfers) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try (AccountLockManager.AccountLocks ignored = lockManager.lock(transfer[0], transfer[1])) {
+                    long senderBalance = balances[transfer[0]];
+                    Thread.yield();
+                    balances[transfer[0]] = senderBalance - transfer[2];
+
+                    long receiverBalance = balances[transfer[1]];
+                    Thread.yield();
+                    balances[transfer[1]] = receiverBalance + transfer[2];
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            // a deadlock would show up as a timeout here
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertArrayEquals(expected, balances);
+        assertEquals(0, sum(balances));
+    }
+
+    @Test
+    void locksInOppositeOrderDoNotDeadlock() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        Future<?> forward = executor.submit(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                lockManager.lock(2, 3).close();
+            }
+        });
+        Future<?> backward = executor.submit(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                lockManager.lock(3, 2).close();
+            }
+        });
+
+        forward.get(30, TimeUnit.SECONDS);
+        backward.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    @Test
+    void sameAccountTwiceOnlyLocksOnce() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager();
+        lockManager.lock(5, 5).close();
+
+        // if the stripe was taken twice and released once, another thread could not get it
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.submit(() -> lockManager.lock(5).close()).get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    @Test
+    void stripeCountIsRoundedUpToPowerOfTwo() {
+        assertEquals(16, new AccountLockManager(10).getStripeCount());
+        assertEquals(1024, new AccountLockManager().getStripeCount());
+        assertThrows(IllegalArgumentException.class, () -> new AccountLockManager(0));
+    }
+
+    @Test
+    void lockUntilTransactionCompletesRequiresTransaction() {
+        AccountLockManager lockManager = new AccountLockManager();
+        assertThrows(IllegalStateException.class, () -> lockManager.lockUntilTransactionCompletes(2, 3));
+    }
+
+    @Test
+    void lockUntilTransactionCompletesReleasesAfterCompletion() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            lockManager.lockUntilTransactionCompletes(2, 3);
+
+            // another thread cannot take the lock while the transaction is running
+            Future<?> waiting = executor.submit(() -> lockManager.lock(2).close());
+            assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS));
+
+            // completing the transaction releases the locks
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+            waiting.get(5, TimeUnit.SECONDS);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+            executor.shutdown();
+        }
+    }
+
+    private long sum(long[] values) {
+        long total = 0;
+        for (long value : values) total += value;
+        return total;
+    }
+}
@@ -0,0 +1,68 @@
+package w.mazebank.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import w.mazebank.models.Account;
+import w.mazebank.models.User;
+import w.mazebank.models.responses.IbanResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountNameIndexTest {
+    private AccountNameIndex accountNameIndex;
+    private User john;
+    private User jane;
+
+    @BeforeEach
+    void setUp() {
+        accountNameIndex = new AccountNameIndex(3);
+
+        john = User.builder().id(2L).firstName("John").lastName("Doe").build();
+        jane = User.builder().id(3L).firstName("Jane").lastName("van Dijk").build();
+
+        accountNameIndex.putAccount(Account.builder().id(1L).iban("NL01INHO0000000001").user(User.builder().id(1L).firstName("Maze").lastName("Bank").build()).build());
+        accountNameIndex.putAccount(Account.builder().id(2L).iban("NL01INHO0000000002").user(john).build());
+        accountNameIndex.putAccount(Account.builder().id(3L).iban("NL01INHO0000000003").user(john).build());
+        accountNameIndex.putAccount(Account.builder().id(4L).iban("NL01INHO0000000004").user(jane).build());
+    }
+
+    @Test
+    void findsAccountsByFirstOrLastNamePrefix() {
+        assertEquals(List.of("NL01INHO0000000002", "NL01INHO0000000003"), ibans(accountNameIndex.search("jo")));
+        assertEquals(List.of("NL01INHO0000000004"), ibans(accountNameIndex.search("DIJ")));
+        assertEquals("John", accountNameIndex.search("doe").get(0).getFirstName());
+    }
+
+    @Test
+    void firstAndLastNameHaveToMatchTogether() {
+        assertEquals(List.of("NL01INHO0000000004"), ibans(accountNameIndex.search("ja d")));
+        assertEquals(List.of(), ibans(accountNameIndex.search("john dijk")));
+    }
+
+    @Test
+    void bankAccountIsNeverReturned() {
+        assertEquals(List.of(), ibans(accountNameIndex.search("maze")));
+    }
+
+    @Test
+    void resultsAreCapped() {
+        assertEquals(3, accountNameIndex.search("j").size());
+    }
+
+    @Test
+    void followsRenamedAndRemovedUsers() {
+        john.setLastName("Smith");
+        accountNameIndex.putUser(john);
+        assertEquals(List.of(), ibans(accountNameIndex.search("doe")));
+        assertEquals("Smith", accountNameIndex.search("smi").get(0).getLastName());
+
+        accountNameIndex.removeUser(jane.getId());
+        assertEquals(List.of(), ibans(accountNameIndex.search("jane")));
+    }
+
+    private List<String> ibans(List<IbanResponse> responses) {
+        return responses.stream().map(IbanResponse::getIban).toList();
+    }
+}
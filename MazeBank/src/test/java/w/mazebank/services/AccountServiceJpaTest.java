@@ -11,6 +11,7 @@ import w.mazebank.enums.AccountType;
 import w.mazebank.enums.RoleType;
 import w.mazebank.exceptions.*;
 import w.mazebank.models.Account;
+import w.mazebank.models.Money;
 import w.mazebank.models.User;
 import w.mazebank.models.requests.AccountPatchRequest;
 import w.mazebank.models.requests.AccountRequest;
@@ -37,6 +38,12 @@ class AccountServiceJpaTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private AccountNameIndex accountNameIndex;
+
+    @Mock
+    private AccountIdentityCache accountIdentityCache;
+
     List<User> users;
     List<Account> accounts;
 
@@ -64,14 +71,14 @@ class AccountServiceJpaTest {
             .id(1L)
             .accountType(AccountType.CHECKING)
             .iban("NL01MAZE0000000002")
-            .balance(1000.00)
+            .balance(Money.of(1000.00))
             .user(users.get(0))
             .build());
         accounts.add(Account.builder()
             .id(2L)
             .accountType(AccountType.SAVINGS)
             .iban("NL01MAZE0000000003")
-            .balance(2000.00)
+            .balance(Money.of(2000.00))
             .user(users.get(1))
             .build()
         );
@@ -250,8 +257,8 @@ class AccountServiceJpaTest {
             .user(users.get(0))
             .accountType(AccountType.CHECKING)
             .isActive(true)
-            .absoluteLimit(0.0)
-            .balance(1000.00)
+            .absoluteLimit(Money.of(0.0))
+            .balance(Money.of(1000.00))
             .build());
 
         accounts.add(Account.builder()
@@ -259,8 +266,8 @@ class AccountServiceJpaTest {
             .user(users.get(0))
             .accountType(AccountType.SAVINGS)
             .isActive(true)
-            .absoluteLimit(0.0)
-            .balance(1000.00)
+            .absoluteLimit(Money.of(0.0))
+            .balance(Money.of(1000.00))
             .build());
 
         // Set the accounts to user 0
@@ -375,8 +382,8 @@ class AccountServiceJpaTest {
     @Test
         // happy flow
     void getAccountsByOneName() {
-        // mock the findByName method and return a list of accounts
-        when(accountRepository.findAccountsByOneName("John")).thenReturn(accounts);
+        // mock the search method and return the iban responses
+        when(accountNameIndex.search("John")).thenReturn(ibanResponses());
 
         // call the method
         List<IbanResponse> result = accountServiceJpa.getAccountsByName("John");
@@ -390,8 +397,8 @@ class AccountServiceJpaTest {
 
     @Test
     void getAccountsByFirstAndLastName() {
-        // mock the findByName method and return a list of accounts
-        when(accountRepository.findAccountsByFirstNameAndLastName("John", "Doe")).thenReturn(accounts);
+        // mock the search method and return the iban responses
+        when(accountNameIndex.search("John Doe")).thenReturn(ibanResponses());
 
         // call the method
         List<IbanResponse> result = accountServiceJpa.getAccountsByName("John Doe");
@@ -406,8 +413,8 @@ class AccountServiceJpaTest {
 
     @Test
     void getAccountsByNameButNoAccountsFound() {
-        // mock the findByName method and return an empty list
-        when(accountRepository.findAccountsByOneName("John")).thenReturn(new ArrayList<>());
+        // mock the search method and return an empty list
+        when(accountNameIndex.search("John")).thenReturn(new ArrayList<>());
 
         // call the method
         List<IbanResponse> result = accountServiceJpa.getAccountsByName("John");
@@ -416,6 +423,14 @@ class AccountServiceJpaTest {
         assertEquals(0, result.size());
     }
 
+    private List<IbanResponse> ibanResponses() {
+        List<IbanResponse> ibanResponses = new ArrayList<>();
+        for (Account account : accounts) {
+            ibanResponses.add(new IbanResponse(account.getIban(), account.getUser().getFirstName(), account.getUser().getLastName()));
+        }
+        return ibanResponses;
+    }
+
     @Test
     void getAccountAndValidateHappyFlowCustomer() throws AccountNotFoundException {
         User user = User.builder()
@@ -508,9 +523,9 @@ class AccountServiceJpaTest {
             .id(1L)
             .accountType(AccountType.CHECKING)
             .iban("NL01MAZE0000000002")
-            .balance(1000.00)
+            .balance(Money.of(1000.00))
             .user(users.get(0))
-            .absoluteLimit(0.0)
+            .absoluteLimit(Money.of(0.0))
             .build();
         AccountPatchRequest requestBody = new AccountPatchRequest(-100.0);
 
@@ -534,9 +549,9 @@ class AccountServiceJpaTest {
             .id(1L)
             .accountType(AccountType.CHECKING)
             .iban("NL01MAZE0000000002")
-            .balance(1000.00)
+            .balance(Money.of(1000.00))
             .user(users.get(0))
-            .absoluteLimit(0.0)
+            .absoluteLimit(Money.of(0.0))
             .build();
         AccountPatchRequest requestBody = new AccountPatchRequest();
 
@@ -596,9 +611,9 @@ class AccountServiceJpaTest {
             .id(1L)
             .accountType(AccountType.CHECKING)
             .iban("NL01INHO0000000001")
-            .balance(1000.00)
+            .balance(Money.of(1000.00))
             .user(users.get(0))
-            .absoluteLimit(0.0)
+            .absoluteLimit(Money.of(0.0))
             .build();
         AccountPatchRequest requestBody = new AccountPatchRequest(-100.0);
 
@@ -611,4 +626,15 @@ class AccountServiceJpaTest {
         );
         assertEquals("Unauthorized access to bank account", exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void bankAccountIsAReferenceToItsCachedId() throws AccountNotFoundException {
+        Account bankAccount = Account.builder().id(1L).iban("NL01INHO0000000001").build();
+        when(accountIdentityCache.getBankAccountId()).thenReturn(1L);
+        when(accountRepository.getReferenceById(1L)).thenReturn(bankAccount);
+
+        // every request gets the account from its own persistence context, never a shared copy
+        assertSame(bankAccount, accountServiceJpa.getBankAccount());
+        verify(accountRepository, never()).findByIban(any());
+    }
+}
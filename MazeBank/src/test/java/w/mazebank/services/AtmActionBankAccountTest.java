@@ -0,0 +1,76 @@
+package w.mazebank.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import w.mazebank.models.Account;
+import w.mazebank.models.User;
+import w.mazebank.models.responses.TransactionResponse;
+import w.mazebank.repositories.UserRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// Runs deposits and withdrawals on the seeded data and checks the bank's account is only referenced,
+// its id comes from the identity cache and nothing loads the row. Every test rolls back.
+@SpringBootTest
+class AtmActionBankAccountTest {
+    private static final String BANK_IBAN = "NL01INHO0000000001";
+
+    @Autowired
+    private AccountServiceJpa accountServiceJpa;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void depositDoesNotLoadTheBankAccount() {
+        inTransaction(employee -> {
+            TransactionResponse response = accountServiceJpa.deposit(2L, 10.0, employee);
+
+            assertEquals(BANK_IBAN, response.getSender());
+            assertBankAccountNotLoaded();
+        });
+    }
+
+    @Test
+    void withdrawalDoesNotLoadTheBankAccount() {
+        inTransaction(employee -> {
+            TransactionResponse response = accountServiceJpa.withdraw(2L, 10.0, employee);
+
+            assertEquals(BANK_IBAN, response.getReceiver());
+            assertBankAccountNotLoaded();
+        });
+    }
+
+    private void assertBankAccountNotLoaded() {
+        // a reference to an entity this persistence context loaded would come back initialized
+        assertFalse(Hibernate.isInitialized(entityManager.getReference(Account.class, 1L)));
+    }
+
+    private void inTransaction(AtmAction action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            try {
+                action.run(userRepository.findById(13L).orElseThrow());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private interface AtmAction {
+        void run(User employee) throws Exception;
+    }
+}
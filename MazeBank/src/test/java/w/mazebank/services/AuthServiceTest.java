@@ -24,6 +24,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -47,6 +48,9 @@ class AuthServiceTest {
     @Mock
     private AuthenticationManager authenticationManager;
 
+    @Mock
+    private UserStateService userStateService;
+
     private RegisterRequest registerRequest;
     private User user;
 
@@ -80,7 +84,7 @@ class AuthServiceTest {
 
         // mock the passwordEncoder
         when(passwordEncoder.encode(registerRequest.getPassword())).thenReturn(registerRequest.getPassword());
-        when(jwtService.generateToken(any(User.class))).thenReturn("THISISAFAKETOKEN");
+        when(jwtService.generateToken(any(User.class), anyLong())).thenReturn("THISISAFAKETOKEN");
 
         // call the register method
         AuthenticationResponse response = authService.register(registerRequest);
@@ -89,7 +93,7 @@ class AuthServiceTest {
         assertEquals("THISISAFAKETOKEN", response.getAuthenticationToken());
         verify(userRepository).save(any(User.class));
         verify(passwordEncoder).encode(registerRequest.getPassword());
-        verify(jwtService).generateToken(any(User.class));
+        verify(jwtService).generateToken(any(User.class), anyLong());
     }
 
     @Test
@@ -108,7 +112,7 @@ class AuthServiceTest {
         verify(userRepository).findByEmail(any(String.class));
         verify(userRepository, never()).save(any(User.class));
         verify(passwordEncoder, never()).encode(registerRequest.getPassword());
-        verify(jwtService, never()).generateToken(any(User.class));
+        verify(jwtService, never()).generateToken(any(User.class), anyLong());
     }
 
     @Test
@@ -127,7 +131,7 @@ class AuthServiceTest {
         verify(userRepository).findByBsn(any(Integer.class));
         verify(userRepository, never()).save(any(User.class));
         verify(passwordEncoder, never()).encode(registerRequest.getPassword());
-        verify(jwtService, never()).generateToken(any(User.class));
+        verify(jwtService, never()).generateToken(any(User.class), anyLong());
     }
 
     @Test
@@ -146,7 +150,7 @@ class AuthServiceTest {
         verify(userRepository).findByBsn(any(Integer.class));
         verify(userRepository, never()).save(any(User.class));
         verify(passwordEncoder, never()).encode(registerRequest.getPassword());
-        verify(jwtService, never()).generateToken(any(User.class));
+        verify(jwtService, never()).generateToken(any(User.class), anyLong());
     }
 
     @Test
@@ -160,7 +164,7 @@ class AuthServiceTest {
         when(userRepository.findByEmail(any())).thenReturn(Optional.ofNullable(user));
         when(authenticationManager.authenticate(any())).thenReturn(null);
         when(userServiceJpa.getUserByEmail(any())).thenReturn(user);
-        when(jwtService.generateToken(any(User.class))).thenReturn("THISISAFAKETOKEN");
+        when(jwtService.generateToken(any(User.class), anyLong())).thenReturn("THISISAFAKETOKEN");
 
         // call the login method
         AuthenticationResponse response = authService.login(loginRequest);
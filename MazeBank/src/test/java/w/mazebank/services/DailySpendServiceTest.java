@@ -0,0 +1,115 @@
+package w.mazebank.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import w.mazebank.models.DailySpend;
+import w.mazebank.models.Money;
+import w.mazebank.repositories.AccountRepository;
+import w.mazebank.repositories.DailySpendRepository;
+import w.mazebank.repositories.TransactionRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DailySpendServiceTest {
+    @InjectMocks
+    private DailySpendService dailySpendService;
+
+    @Mock
+    private DailySpendRepository dailySpendRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountLockManager accountLockManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void getSpentTodayReadsTheLedger() {
+        when(dailySpendRepository.findAmount(2L, LocalDate.now())).thenReturn(Optional.of(Money.of(150.00)));
+
+        assertEquals(Money.of(150.00), dailySpendService.getSpentToday(2L));
+    }
+
+    @Test
+    void getSpentTodayWithoutEntryIsZero() {
+        when(dailySpendRepository.findAmount(2L, LocalDate.now())).thenReturn(Optional.empty());
+
+        assertEquals(Money.ZERO, dailySpendService.getSpentToday(2L));
+    }
+
+    @Test
+    void getSpentTodayByUserSumsAllAccountsOfTheUser() {
+        when(dailySpendRepository.sumAmountForUser(2L, LocalDate.now())).thenReturn(Money.of(300.00));
+
+        assertEquals(Money.of(300.00), dailySpendService.getSpentTodayByUser(2L));
+    }
+
+    @Test
+    void addSpendIncrementsExistingEntry() {
+        LocalDate today = LocalDate.now();
+        when(dailySpendRepository.addToAmount(2L, today, Money.of(100.00))).thenReturn(1);
+
+        dailySpendService.addSpend(2L, today, Money.of(100.00));
+
+        verify(dailySpendRepository, never()).save(Mockito.any());
+    }
+
+    @Test
+    void addSpendCreatesEntryForFirstTransferOfTheDay() {
+        LocalDate today = LocalDate.now();
+        when(dailySpendRepository.addToAmount(2L, today, Money.of(100.00))).thenReturn(0);
+
+        dailySpendService.addSpend(2L, today, Money.of(100.00));
+
+        ArgumentCaptor<DailySpend> captor = ArgumentCaptor.forClass(DailySpend.class);
+        verify(dailySpendRepository).save(captor.capture());
+        assertEquals(2L, captor.getValue().getAccountId());
+        assertEquals(today, captor.getValue().getSpendDate());
+        assertEquals(Money.of(100.00), captor.getValue().getAmount());
+    }
+
+    @Test
+    void rebuildCorrectsEveryEntryUnderTheAccountLock() {
+        LocalDate from = LocalDate.of(2023, 5, 30);
+        LocalDate to = LocalDate.of(2023, 5, 31);
+        when(transactionRepository.findSpendingSenderIdsBetween(from.atStartOfDay(), to.atStartOfDay())).thenReturn(List.of(2L));
+        when(transactionRepository.findSpendingSenderIdsBetween(to.atStartOfDay(), to.plusDays(1).atStartOfDay())).thenReturn(List.of(3L));
+        when(dailySpendRepository.findAccountIds(from)).thenReturn(List.of());
+        when(dailySpendRepository.findAccountIds(to)).thenReturn(List.of(3L, 4L));
+        when(transactionRepository.sumCentsSentBetween(2L, from.atStartOfDay(), to.atStartOfDay())).thenReturn(100000L);
+        when(transactionRepository.sumCentsSentBetween(3L, to.atStartOfDay(), to.plusDays(1).atStartOfDay())).thenReturn(200000L);
+        when(transactionRepository.sumCentsSentBetween(4L, to.atStartOfDay(), to.plusDays(1).atStartOfDay())).thenReturn(0L);
+        when(dailySpendRepository.setAmount(2L, from, Money.of(1000.00))).thenReturn(0);
+        when(dailySpendRepository.setAmount(3L, to, Money.of(2000.00))).thenReturn(1);
+        when(dailySpendRepository.setAmount(4L, to, Money.ZERO)).thenReturn(1);
+
+        dailySpendService.rebuild(from, to);
+
+        // nothing is deleted, every account is locked before its entry is corrected
+        verify(accountLockManager).lockUntilTransactionCompletes(2L);
+        verify(accountRepository).findByIdForUpdate(2L);
+        ArgumentCaptor<DailySpend> captor = ArgumentCaptor.forClass(DailySpend.class);
+        verify(dailySpendRepository).save(captor.capture());
+        assertEquals(2L, captor.getValue().getAccountId());
+        assertEquals(from, captor.getValue().getSpendDate());
+        assertEquals(Money.of(1000.00), captor.getValue().getAmount());
+    }
+}
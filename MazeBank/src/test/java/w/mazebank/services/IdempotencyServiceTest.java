@@ -0,0 +1,188 @@
+package w.mazebank.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import w.mazebank.exceptions.IdempotencyKeyInUseException;
+import w.mazebank.exceptions.IdempotencyKeyReusedException;
+import w.mazebank.models.IdempotencyRecord;
+import w.mazebank.repositories.IdempotencyRecordRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+    @InjectMocks
+    private IdempotencyService idempotencyService = new IdempotencyService(Duration.ofHours(24), Duration.ofSeconds(5));
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    private final IdempotencyRecord created = IdempotencyRecord.builder()
+        .responseStatus(201)
+        .responseBody("{\"id\":1}")
+        .build();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+    }
+
+    @Test
+    void firstRequestRunsAndItsResponseIsStored() throws Exception {
+        when(idempotencyRecordRepository.findUnexpired(eq("2:abc"), any())).thenReturn(Optional.empty());
+
+        Optional<IdempotencyRecord> stored = idempotencyService.execute(2L, "abc", "hash", () -> created);
+
+        assertTrue(stored.isEmpty());
+        verify(idempotencyRecordRepository).claim(eq("2:abc"), eq(2L), eq("hash"), any(), any());
+        verify(idempotencyRecordRepository).complete("2:abc", 201, "{\"id\":1}");
+        verify(transactionManager).commit(transactionStatus);
+    }
+
+    @Test
+    void repeatedKeyReturnsTheStoredResponseWithoutRunningTheRequest() throws Exception {
+        IdempotencyRecord record = IdempotencyRecord.builder().id("2:abc").requestHash("hash").responseStatus(201).responseBody("{\"id\":1}").build();
+        when(idempotencyRecordRepository.findUnexpired(eq("2:abc"), any())).thenReturn(Optional.of(record));
+
+        Optional<IdempotencyRecord> stored = idempotencyService.execute(2L, "abc", "hash", () -> fail("request ran twice"));
+
+        assertSame(record, stored.orElseThrow());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void keyReusedForAnotherRequestIsRejected() {
+        IdempotencyRecord record = IdempotencyRecord.builder().id("2:abc").requestHash("hash").responseStatus(201).build();
+        when(idempotencyRecordRepository.findUnexpired(eq("2:abc"), any())).thenReturn(Optional.of(record));
+
+        assertThrows(IdempotencyKeyReusedException.class,
+            () -> idempotencyService.execute(2L, "abc", "other hash", () -> fail("request ran twice")));
+    }
+
+    @Test
+    void partlyBookedBatchIsStoredSoARetryDoesNotBookItAgain() throws Exception {
+        when(idempotencyRecordRepository.findUnexpired(eq("2:abc"), any())).thenReturn(Optional.empty());
+
+        idempotencyService.execute(2L, "abc", "hash", () -> IdempotencyRecord.builder().responseStatus(207).responseBody("{\"created\":1}").build());
+
+        verify(idempotencyRecordRepository).complete("2:abc", 207, "{\"created\":1}");
+        verify(transactionManager).commit(transactionStatus);
+    }
+
+    @Test
+    void failedRequestIsRolledBackAndFreesTheKey() throws Exception {
+        when(idempotencyRecordRepository.findUnexpired(eq("2:abc"), any())).thenReturn(Optional.empty());
+
+        idempotencyService.execute(2L, "abc", "hash", () -> IdempotencyRecord.builder().responseStatus(400).responseBody("{}").build());
+
+        verify(idempotencyRecordRepository, never()).complete(anyString(), anyInt(), any());
+        verify(transactionManager).rollback(transactionStatus);
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void exceptionIsRolledBackAndRethrown() {
+        when(idempotencyRecordRepository.findUnexpired(eq("2:abc"), any())).thenReturn(Optional.empty());
+
+        assertThrows(IOException.class, () -> idempotencyService.execute(2L, "abc", "hash", () -> {
+            throw new IOException("connection reset");
+        }));
+        verify(transactionManager).rollback(transactionStatus);
+    }
+
+    @Test
+    void keyCommittedByAnotherInstanceReturnsItsResponse() throws Exception {
+        IdempotencyRecord record = IdempotencyRecord.builder().id("2:abc").requestHash("hash").responseStatus(201).build();
+        when(idempotencyRecordRepository.findUnexpired(eq("2:abc"), any())).thenReturn(Optional.empty(), Optional.of(record));
+        doThrow(new DataIntegrityViolationException("duplicate key")).when(idempotencyRecordRepository).claim(any(), anyLong(), any(), any(), any());
+
+        Optional<IdempotencyRecord> stored = idempotencyService.execute(2L, "abc", "hash", () -> fail("request ran twice"));
+
+        assertSame(record, stored.orElseThrow());
+        verify(transactionManager).rollback(transactionStatus);
+    }
+
+    @Test
+    void keyHeldTooLongByAnotherInstanceIsAConflict() {
+        when(idempotencyRecordRepository.findUnexpired(eq("2:abc"), any())).thenReturn(Optional.empty());
+        doThrow(new CannotAcquireLockException("lock timeout")).when(idempotencyRecordRepository).claim(any(), anyLong(), any(), any(), any());
+
+        assertThrows(IdempotencyKeyInUseException.class,
+            () -> idempotencyService.execute(2L, "abc", "hash", () -> fail("request ran while the key was held")));
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForTheFirstRequest() throws Exception {
+        // a tiny in memory table, a completed key can be found by the next request
+        Map<String, IdempotencyRecord> table = new ConcurrentHashMap<>();
+        when(idempotencyRecordRepository.findUnexpired(anyString(), any()))
+            .thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.<String>getArgument(0))));
+        when(idempotencyRecordRepository.complete(anyString(), anyInt(), any())).thenAnswer(invocation -> {
+            table.put(invocation.getArgument(0), IdempotencyRecord.builder()
+                .requestHash("hash")
+                .responseStatus(invocation.getArgument(1))
+                .responseBody(invocation.getArgument(2))
+                .build());
+            return 1;
+        });
+
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Optional<IdempotencyRecord>> first = executor.submit(() -> idempotencyService.execute(2L, "abc", "hash", () -> {
+                runs.incrementAndGet();
+                firstStarted.countDown();
+                await(releaseFirst);
+                return created;
+            }));
+            assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+
+            Future<Optional<IdempotencyRecord>> duplicate = executor.submit(() -> idempotencyService.execute(2L, "abc", "hash", () -> {
+                runs.incrementAndGet();
+                return created;
+            }));
+            // the duplicate is blocked as long as the first request runs
+            assertThrows(TimeoutException.class, () -> duplicate.get(200, TimeUnit.MILLISECONDS));
+
+            releaseFirst.countDown();
+            assertTrue(first.get(5, TimeUnit.SECONDS).isEmpty());
+            assertEquals("{\"id\":1}", duplicate.get(5, TimeUnit.SECONDS).orElseThrow().getResponseBody());
+            assertEquals(1, runs.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package w.mazebank.services;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+import w.mazebank.enums.RoleType;
+import w.mazebank.models.User;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+    private final JwtService jwtService = new JwtService();
+
+    private final User user = User.builder()
+        .id(2L)
+        .email("user1@example.com")
+        .role(RoleType.CUSTOMER)
+        .build();
+
+    @Test
+    void extractValidClaimsReturnsSubjectAndUserId() {
+        String jwt = jwtService.generateToken(user);
+
+        Claims claims = jwtService.extractValidClaims(jwt);
+
+        assertEquals("user1@example.com", claims.getSubject());
+        assertEquals(2L, jwtService.extractUserId(claims));
+        assertTrue(jwtService.isTokenValid(claims, user));
+    }
+
+    @Test
+    void tokenOfAnotherUserIsNotValid() {
+        User otherUser = User.builder().id(3L).email("user2@example.com").role(RoleType.CUSTOMER).build();
+        Claims claims = jwtService.extractValidClaims(jwtService.generateToken(otherUser));
+
+        assertFalse(jwtService.isTokenValid(claims, user));
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String jwt = jwtService.generateToken(user);
+        String tampered = jwt.substring(0, jwt.length() - 2) + (jwt.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(SignatureException.class, () -> jwtService.extractValidClaims(tampered));
+    }
+
+    @Test
+    void parserCanBeSharedBetweenThreads() throws InterruptedException {
+        String jwt = jwtService.generateToken(user);
+        Thread[] threads = new Thread[8];
+        boolean[] results = new boolean[threads.length];
+
+        for (int i = 0; i < threads.length; i++) {
+            int index = i;
+            threads[i] = new Thread(() -> {
+                boolean valid = true;
+                for (int j = 0; j < 500; j++) {
+                    valid &= jwtService.isTokenValid(jwt, user);
+                }
+                results[index] = valid;
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        for (boolean result : results) assertTrue(result);
+    }
+}
@@ -0,0 +1,138 @@
+package w.mazebank.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import w.mazebank.enums.RuleCost;
+import w.mazebank.enums.TransactionType;
+import w.mazebank.exceptions.TransactionFailedException;
+import w.mazebank.models.Transaction;
+import w.mazebank.models.responses.TransactionRuleResponse;
+import w.mazebank.rules.TransactionRule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionRuleEngineTest {
+    private List<String> evaluated;
+    private Transaction transfer;
+
+    @BeforeEach
+    void setUp() {
+        evaluated = new ArrayList<>();
+        transfer = Transaction.builder().transactionType(TransactionType.TRANSFER).build();
+    }
+
+    @Test
+    void cheaperRulesRunFirstAndKeepTheirOrderWithinACostClass() throws TransactionFailedException {
+        TransactionRuleEngine engine = new TransactionRuleEngine(List.of(
+            rule("database", RuleCost.DATABASE, false),
+            rule("first", RuleCost.IN_MEMORY, false),
+            rule("second", RuleCost.IN_MEMORY, false)
+        ));
+
+        engine.validate(transfer, null);
+
+        assertEquals(List.of("first", "second", "database"), evaluated);
+    }
+
+    @Test
+    void stopsAtTheFirstRejection() {
+        TransactionRuleEngine engine = new TransactionRuleEngine(List.of(
+            rule("database", RuleCost.DATABASE, false),
+            rule("rejecting", RuleCost.IN_MEMORY, true)
+        ));
+
+        TransactionFailedException exception = assertThrows(TransactionFailedException.class, () -> engine.validate(transfer, null));
+
+        assertEquals("rejecting", exception.getMessage());
+        assertEquals(List.of("rejecting"), evaluated);
+    }
+
+    @Test
+    void skipsRulesThatDoNotApplyToTheTransactionType() throws TransactionFailedException {
+        TransactionRule atmOnly = new NamedRule("atm", RuleCost.IN_MEMORY, false) {
+            @Override
+            public boolean appliesTo(TransactionType transactionType) {
+                return transactionType == TransactionType.DEPOSIT;
+            }
+        };
+        TransactionRuleEngine engine = new TransactionRuleEngine(List.of(atmOnly, rule("any", RuleCost.IN_MEMORY, false)));
+
+        engine.validate(transfer, null);
+
+        assertEquals(List.of("any"), evaluated);
+    }
+
+    @Test
+    void countsEvaluationsAndRejectionsPerRule() throws TransactionFailedException {
+        TransactionRuleEngine engine = new TransactionRuleEngine(List.of(
+            rule("passing", RuleCost.IN_MEMORY, false),
+            rule("rejecting", RuleCost.DATABASE, true)
+        ));
+
+        assertThrows(TransactionFailedException.class, () -> engine.validate(transfer, null));
+        assertThrows(TransactionFailedException.class, () -> engine.validate(transfer, null));
+
+        List<TransactionRuleResponse> statistics = engine.getStatistics();
+        assertEquals("passing", statistics.get(0).getName());
+        assertEquals("IN_MEMORY", statistics.get(0).getCost());
+        assertEquals(2, statistics.get(0).getEvaluations());
+        assertEquals(0, statistics.get(0).getRejections());
+        assertEquals(2, statistics.get(1).getEvaluations());
+        assertEquals(2, statistics.get(1).getRejections());
+    }
+
+    @Test
+    void exportsRejectionsByRuleAsMetrics() {
+        TransactionRuleEngine engine = new TransactionRuleEngine(List.of(
+            rule("passing", RuleCost.IN_MEMORY, false),
+            rule("rejecting", RuleCost.DATABASE, true)
+        ));
+        MeterRegistry registry = new SimpleMeterRegistry();
+        engine.bindTo(registry);
+
+        assertThrows(TransactionFailedException.class, () -> engine.validate(transfer, null));
+
+        assertEquals(0, registry.get("mazebank.transactions.rejected").tag("reason", "passing").functionCounter().count());
+        assertEquals(1, registry.get("mazebank.transactions.rejected").tag("reason", "rejecting").functionCounter().count());
+        assertEquals(1, registry.get("mazebank.transactions.rules").tag("rule", "passing").functionTimer().count());
+    }
+
+    private TransactionRule rule(String name, RuleCost cost, boolean rejects) {
+        return new NamedRule(name, cost, rejects);
+    }
+
+    private class NamedRule implements TransactionRule {
+        private final String name;
+        private final RuleCost cost;
+        private final boolean rejects;
+
+        NamedRule(String name, RuleCost cost, boolean rejects) {
+            this.name = name;
+            this.cost = cost;
+            this.rejects = rejects;
+        }
+
+        @Override
+        public RuleCost getCost() {
+            return cost;
+        }
+
+        @Override
+        public void check(Transaction transaction, TransferLedger ledger) throws TransactionFailedException {
+            evaluated.add(name);
+            if (rejects) {
+                throw new TransactionFailedException(name);
+            }
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package w.mazebank.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import w.mazebank.enums.BatchMode;
+import w.mazebank.models.Account;
+import w.mazebank.models.DailySpend;
+import w.mazebank.models.Money;
+import w.mazebank.models.Transaction;
+import w.mazebank.models.User;
+import w.mazebank.models.requests.BatchTransactionRequest;
+import w.mazebank.models.requests.TransactionRequest;
+import w.mazebank.models.responses.BatchTransactionResponse;
+import w.mazebank.repositories.AccountRepository;
+import w.mazebank.repositories.DailySpendRepository;
+import w.mazebank.repositories.TransactionRepository;
+import w.mazebank.repositories.UserRepository;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Books money on the seeded accounts from many threads at the same time and checks every booking
+// went through exactly once, nothing lost to a race on the balances and no thread failing on a lock.
+// The balances and transactions are put back after each test.
+@SpringBootTest
+class TransactionServiceJpaConcurrencyTest {
+    private static final long BANK_ACCOUNT_ID = 1;
+    private static final long[] CHECKING_ACCOUNT_IDS = {2, 4, 6, 8, 10};
+    // the checking and savings account of user3
+    private static final long CHECKING_ID = 6;
+    private static final String CHECKING_IBAN = "NL45INHO0328598536";
+    private static final long SAVINGS_ID = 7;
+    private static final String SAVINGS_IBAN = "NL76INHO0493458015";
+    // checking accounts of user1 and user2, the lower id first
+    private static final long LOW_ID = 2;
+    private static final String LOW_IBAN = "NL76INHO0493458014";
+    private static final long HIGH_ID = 4;
+    private static final String HIGH_IBAN = "NL76INHO0493458018";
+
+    @Autowired
+    private TransactionServiceJpa transactionServiceJpa;
+
+    @Autowired
+    private AccountServiceJpa accountServiceJpa;
+
+    @Autowired
+    private DailySpendService dailySpendService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private DailySpendRepository dailySpendRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private User employee;
+    private Map<Long, Money> balancesBefore;
+    private Set<Long> transactionsBefore;
+    private Map<Long, Money> spendBefore;
+
+    @BeforeEach
+    void rememberState() {
+        transaction = new TransactionTemplate(transactionManager);
+        employee = userRepository.findById(13L).orElseThrow();
+        balancesBefore = balances();
+        transactionsBefore = new HashSet<>(transactionRepository.findAll().stream().map(Transaction::getId).toList());
+        spendBefore = new HashMap<>();
+        dailySpendRepository.findAll().forEach(spend -> spendBefore.put(spend.getId(), spend.getAmount()));
+    }
+
+    @AfterEach
+    void restoreState() {
+        transactionRepository.deleteAll(transactionRepository.findAll().stream()
+            .filter(transaction -> !transactionsBefore.contains(transaction.getId()))
+            .toList());
+        transaction.executeWithoutResult(status ->
+            balances().forEach((id, balance) -> accountRepository.creditBalance(id, balancesBefore.get(id).minus(balance))));
+        for (DailySpend spend : dailySpendRepository.findAll()) {
+            if (!spendBefore.containsKey(spend.getId())) {
+                dailySpendRepository.delete(spend);
+            } else if (!spend.getAmount().equals(spendBefore.get(spend.getId()))) {
+                spend.setAmount(spendBefore.get(spend.getId()));
+                dailySpendRepository.save(spend);
+            }
+        }
+    }
+
+    @Test
+    void concurrentTransfersBetweenTheSameAccountsAreAllBooked() throws Exception {
+        int transfersPerDirection = 25;
+
+        // both directions at once, so the accounts are locked in either order
+        runAtTheSameTime(transfersPerDirection * 2, i -> i % 2 == 0
+            ? transactionServiceJpa.postTransaction(transfer(CHECKING_IBAN, SAVINGS_IBAN, 10.0), employee)
+            : transactionServiceJpa.postTransaction(transfer(SAVINGS_IBAN, CHECKING_IBAN, 4.0), employee));
+
+        Map<Long, Money> balancesAfter = balances();
+        Money moved = Money.of((10.0 - 4.0) * transfersPerDirection);
+        assertEquals(balancesBefore.get(CHECKING_ID).minus(moved), balancesAfter.get(CHECKING_ID));
+        assertEquals(balancesBefore.get(SAVINGS_ID).plus(moved), balancesAfter.get(SAVINGS_ID));
+        assertEquals(transactionsBefore.size() + transfersPerDirection * 2, transactionRepository.count());
+    }
+
+    @Test
+    void batchAndACrossingTransferDoNotDeadlock() throws Exception {
+        int rounds = 25;
+
+        // the batch credits both accounts in id order while the single transfer debits the higher
+        // one first, without a lock on the batch's receivers these wait on each other's rows
+        BatchTransactionRequest batch = BatchTransactionRequest.builder()
+            .mode(BatchMode.ALL_OR_NOTHING)
+            .transactions(List.of(transfer(CHECKING_IBAN, LOW_IBAN, 1.0), transfer(CHECKING_IBAN, HIGH_IBAN, 1.0)))
+            .build();
+        runAtTheSameTime(rounds * 2, i -> {
+            if (i % 2 == 1) {
+                return transactionServiceJpa.postTransaction(transfer(HIGH_IBAN, LOW_IBAN, 1.0), employee);
+            }
+            BatchTransactionResponse response = transactionServiceJpa.postTransactions(batch, employee);
+            assertEquals(2, response.getCreated());
+            return response;
+        });
+
+        Map<Long, Money> balancesAfter = balances();
+        assertEquals(balancesBefore.get(CHECKING_ID).minus(Money.of(2.0 * rounds)), balancesAfter.get(CHECKING_ID));
+        assertEquals(balancesBefore.get(LOW_ID).plus(Money.of(2.0 * rounds)), balancesAfter.get(LOW_ID));
+        assertEquals(balancesBefore.get(HIGH_ID), balancesAfter.get(HIGH_ID));
+    }
+
+    @Test
+    void concurrentFirstDepositsOfTheDayAllSucceed() throws Exception {
+        int depositsPerAccount = 20;
+
+        // every deposit is sent by the bank's account, which isn't locked, so they all run at once
+        runAtTheSameTime(CHECKING_ACCOUNT_IDS.length * depositsPerAccount, i -> {
+            accountServiceJpa.deposit(CHECKING_ACCOUNT_IDS[i % CHECKING_ACCOUNT_IDS.length], 10.0, employee);
+            return null;
+        });
+
+        Map<Long, Money> balancesAfter = balances();
+        for (long accountId : CHECKING_ACCOUNT_IDS) {
+            assertEquals(balancesBefore.get(accountId).plus(Money.of(10.0 * depositsPerAccount)), balancesAfter.get(accountId));
+        }
+        assertEquals(Money.ZERO, dailySpendService.getSpentToday(BANK_ACCOUNT_ID));
+    }
+
+    // every task runs in its own transaction, like a request does with its open entity manager
+    private void runAtTheSameTime(int tasks, Task task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                return transaction.execute(status -> {
+                    try {
+                        return task.run(index);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+            }));
+        }
+
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private TransactionRequest transfer(String senderIban, String receiverIban, double amount) {
+        return TransactionRequest.builder()
+            .senderIban(senderIban)
+            .receiverIban(receiverIban)
+            .amount(amount)
+            .description("concurrent transfer")
+            .build();
+    }
+
+    private Map<Long, Money> balances() {
+        Map<Long, Money> balances = new HashMap<>();
+        for (Account account : accountRepository.findAll()) {
+            balances.put(account.getId(), account.getBalance());
+        }
+        return balances;
+    }
+
+    private interface Task {
+        Object run(int index) throws Exception;
+    }
+}
@@ -1,30 +1,51 @@
 package w.mazebank.services;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
 import w.mazebank.enums.AccountType;
+import w.mazebank.enums.BatchMode;
 import w.mazebank.enums.RoleType;
 import w.mazebank.enums.TransactionType;
 import w.mazebank.exceptions.*;
 import w.mazebank.models.Account;
+import w.mazebank.models.Money;
 import w.mazebank.models.Transaction;
+import w.mazebank.models.TransactionFilter;
+import w.mazebank.models.TransferContext;
 import w.mazebank.models.User;
+import w.mazebank.models.requests.BatchTransactionRequest;
 import w.mazebank.models.requests.TransactionRequest;
+import w.mazebank.models.responses.BatchItemResponse;
+import w.mazebank.models.responses.BatchTransactionResponse;
+import w.mazebank.models.responses.TransactionPageResponse;
 import w.mazebank.models.responses.TransactionResponse;
 import w.mazebank.repositories.AccountRepository;
 import w.mazebank.repositories.TransactionRepository;
+import w.mazebank.rules.*;
+import w.mazebank.utils.TransactionCursor;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,11 +66,44 @@ class TransactionServiceJpaTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private AccountLockManager accountLockManager;
+
+    @Mock
+    private DailySpendService dailySpendService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private TransactionRuleEngine transactionRuleEngine = new TransactionRuleEngine(List.of(
+        new PositiveAmountRule(),
+        new SenderIsNotReceiverRule(),
+        new AccountsActiveRule(),
+        new TransactionLimitRule(),
+        new AbsoluteLimitRule(),
+        new SenderNotBlockedRule(),
+        new DayLimitRule(),
+        new AtmAccountNotSavingsRule(),
+        new SavingsAccountTransferRule(),
+        new SenderAuthorizedRule()
+    ));
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     List<User> users;
     List<Account> accounts;
+    Money senderSpentToday;
 
     @BeforeEach
     void setUp() {
+        // nothing has been sent yet today unless a test says otherwise
+        Mockito.lenient().when(dailySpendService.getSpentToday(Mockito.anyLong())).thenReturn(Money.ZERO);
+        senderSpentToday = Money.ZERO;
+        Mockito.lenient().when(accountRepository.findTransferContext(Mockito.anyLong(), Mockito.anyLong(), Mockito.any(), Mockito.anyBoolean()))
+            .thenAnswer(invocation -> Optional.of(new TransferContext(accountWithId(invocation.getArgument(0)), accountWithId(invocation.getArgument(1)), senderSpentToday)));
+
         // create two users
         users = new ArrayList<>();
         users.add(User.builder()
@@ -85,7 +139,7 @@ class TransactionServiceJpaTest {
         accounts.add(Account.builder()
             .id(2L)
             .accountType(AccountType.CHECKING)
-            .balance(1000.00)
+            .balance(Money.of(1000.00))
             .isActive(true)
             .iban("sender_iban")
             .user(users.get(0))
@@ -93,7 +147,7 @@ class TransactionServiceJpaTest {
         accounts.add(Account.builder()
             .id(3L)
             .accountType(AccountType.CHECKING)
-            .balance(2000.00)
+            .balance(Money.of(2000.00))
             .iban("receiver_iban")
             .isActive(true)
             .user(users.get(1))
@@ -102,7 +156,7 @@ class TransactionServiceJpaTest {
         accounts.add(Account.builder()
             .id(4L)
             .accountType(AccountType.SAVINGS)
-            .balance(1000.00)
+            .balance(Money.of(1000.00))
             .iban("savings_iban")
             .isActive(true)
             .user(users.get(0))
@@ -112,7 +166,7 @@ class TransactionServiceJpaTest {
         accounts.add(Account.builder()
             .id(5L)
             .accountType(AccountType.CHECKING)
-            .balance(100000.00)
+            .balance(Money.of(100000.00))
             .iban("bank_iban")
             .isActive(true)
             .user(users.get(3))
@@ -122,34 +176,46 @@ class TransactionServiceJpaTest {
 
     @Test
     void deposit() throws AccountNotFoundException, TransactionFailedException {
-        // mock the accountServiceJpa.getAccountByIban
-        when(accountServiceJpa.getAccountByIban(Mockito.any())).thenReturn(accounts.get(3));
+        // mock the accountServiceJpa.getBankAccount
+        when(accountServiceJpa.getBankAccount()).thenReturn(accounts.get(3));
 
         // Perform the transaction
         TransactionResponse result = transactionServiceJpa.atmAction(accounts.get(0), 100.00, TransactionType.DEPOSIT, users.get(0));
 
-        // Assert the transaction was successful
+        // Assert the transaction was successful and the balance was updated in the database
         assertNotNull(result);
-        assertEquals(1100.00, accounts.get(0).getBalance());
+        verify(accountRepository).creditBalance(2L, Money.of(100.00));
+        assertEquals(1, meterRegistry.counter("mazebank.transactions.booked", "type", "deposit").count());
     }
 
     @Test
     void withdraw() throws AccountNotFoundException, TransactionFailedException {
-        // mock the accountServiceJpa.getAccountByIban
-        when(accountServiceJpa.getAccountByIban(Mockito.any())).thenReturn(accounts.get(3));
+        // mock the accountServiceJpa.getBankAccount
+        when(accountServiceJpa.getBankAccount()).thenReturn(accounts.get(3));
+        when(accountRepository.debitBalance(3L, Money.of(100.00))).thenReturn(1);
 
         // Perform the transaction
         TransactionResponse result = transactionServiceJpa.atmAction(accounts.get(1), 100.00, TransactionType.WITHDRAWAL, users.get(1));
 
-        // Assert the transaction was successful
+        // Assert the transaction was successful and the balance was updated in the database
         assertNotNull(result);
-        assertEquals(1900.00, accounts.get(1).getBalance());
+        verify(accountRepository).debitBalance(3L, Money.of(100.00));
+        assertEquals(1, meterRegistry.counter("mazebank.transactions.booked", "type", "withdrawal").count());
+    }
+
+    @Test
+    void withdrawalIsCheckedAgainstTheCustomersAbsoluteLimit() throws AccountNotFoundException {
+        when(accountServiceJpa.getBankAccount()).thenReturn(accounts.get(3));
+
+        // the bank's account could pay this out, the customer's account can't
+        assertThrows(AccountAbsoluteLimitReachedException.class, () -> transactionServiceJpa.atmAction(accounts.get(0), 1500.00, TransactionType.WITHDRAWAL, users.get(0)));
+        verify(accountRepository, never()).debitBalance(Mockito.anyLong(), Mockito.any());
     }
 
     @Test
     void ATMActionReceiverCannotBeSavings() throws AccountNotFoundException {
-        // mock the accountServiceJpa.getAccountByIban
-        when(accountServiceJpa.getAccountByIban(Mockito.any())).thenReturn(accounts.get(3));
+        // mock the accountServiceJpa.getBankAccount
+        when(accountServiceJpa.getBankAccount()).thenReturn(accounts.get(3));
 
         // Create atm action, for account id 3. This is a savings account. This throw TransactionFailedException
         assertThrows(TransactionFailedException.class, () -> transactionServiceJpa.atmAction(accounts.get(2), 100.00, TransactionType.DEPOSIT, users.get(0)));
@@ -175,6 +241,43 @@ class TransactionServiceJpaTest {
         assertEquals(0, transactionRepository.findAll().size());
     }
 
+    @Test
+    void amountThatRoundsToZeroCentsIsRefused() throws AccountNotFoundException {
+        TransactionRequest transactionRequest = TransactionRequest.builder()
+            .senderIban("sender_iban")
+            .receiverIban("receiver_iban")
+            .amount(0.004)
+            .build();
+        when(accountServiceJpa.getAccountByIban("sender_iban")).thenReturn(accounts.get(0));
+        when(accountServiceJpa.getAccountByIban("receiver_iban")).thenReturn(accounts.get(1));
+
+        TransactionFailedException e = assertThrows(TransactionFailedException.class, () -> transactionServiceJpa.postTransaction(transactionRequest, users.get(0)));
+        assertEquals("Amount must be at least 0.01", e.getMessage());
+        verify(accountRepository, never()).debitBalance(Mockito.anyLong(), Mockito.any());
+    }
+
+    @Test
+    void depositThatRoundsToZeroCentsIsRefused() throws AccountNotFoundException {
+        when(accountServiceJpa.getBankAccount()).thenReturn(accounts.get(3));
+
+        assertThrows(TransactionFailedException.class, () -> transactionServiceJpa.atmAction(accounts.get(0), 0.004, TransactionType.DEPOSIT, users.get(0)));
+        verify(accountRepository, never()).creditBalance(Mockito.anyLong(), Mockito.any());
+    }
+
+    @Test
+    void amountTooLargeToCountInCentsIsRefused() throws AccountNotFoundException {
+        TransactionRequest transactionRequest = TransactionRequest.builder()
+            .senderIban("sender_iban")
+            .receiverIban("receiver_iban")
+            .amount(1e300)
+            .build();
+        when(accountServiceJpa.getAccountByIban("sender_iban")).thenReturn(accounts.get(0));
+        when(accountServiceJpa.getAccountByIban("receiver_iban")).thenReturn(accounts.get(1));
+
+        TransactionFailedException e = assertThrows(TransactionFailedException.class, () -> transactionServiceJpa.postTransaction(transactionRequest, users.get(0)));
+        assertEquals("Amount is too large", e.getMessage());
+    }
+
     @Test
     void accountCannotBeBlocked() throws AccountNotFoundException {
         // block account 1
@@ -234,7 +337,7 @@ class TransactionServiceJpaTest {
     @Test
     void dayLimitCannotBeExceeded() throws AccountNotFoundException {
         // account 1 (sender), set day limit to 1000
-        accounts.get(0).getUser().setDayLimit(1000.00);
+        accounts.get(0).getUser().setDayLimit(Money.of(1000.00));
 
         // Create a transaction request
         TransactionRequest transactionRequest = new TransactionRequest();
@@ -254,10 +357,31 @@ class TransactionServiceJpaTest {
     }
 
 
+    @Test
+    void dayLimitIncludesWhatWasSentEarlierToday() throws AccountNotFoundException {
+        // account 1 (sender) already sent 4950 today
+        senderSpentToday = Money.of(4950.00);
+
+        // Create a transaction request
+        TransactionRequest transactionRequest = new TransactionRequest();
+        transactionRequest.setSenderIban("sender_iban");
+        transactionRequest.setReceiverIban("receiver_iban");
+        transactionRequest.setAmount(100.00);
+
+        // Mock the behavior of accountServiceJpa
+        when(accountServiceJpa.getAccountByIban("sender_iban")).thenReturn(accounts.get(0));
+        when(accountServiceJpa.getAccountByIban("receiver_iban")).thenReturn(accounts.get(1));
+
+        // Perform the transaction
+        TransactionFailedException exception = assertThrows(TransactionFailedException.class, () -> transactionServiceJpa.postTransaction(transactionRequest, users.get(0)));
+        assertEquals("Day limit exceeded", exception.getMessage());
+        verify(dailySpendService, never()).addSpend(Mockito.anyLong(), Mockito.any(), Mockito.any(Money.class));
+    }
+
     @Test
     void transactionLimitCannotBeExceeded() throws AccountNotFoundException {
         // account 1 (sender), set transaction limit to 1000
-        accounts.get(0).getUser().setTransactionLimit(1000.00);
+        accounts.get(0).getUser().setTransactionLimit(Money.of(1000.00));
 
         // Create a transaction request
         TransactionRequest transactionRequest = new TransactionRequest();
@@ -288,26 +412,42 @@ class TransactionServiceJpaTest {
         // Mock the behavior of accountServiceJpa
         when(accountServiceJpa.getAccountByIban("sender_iban")).thenReturn(accounts.get(0));
         when(accountServiceJpa.getAccountByIban("receiver_iban")).thenReturn(accounts.get(1));
+        when(accountRepository.debitBalance(2L, Money.of(100.00))).thenReturn(1);
 
         // Perform the transaction
         TransactionResponse result = transactionServiceJpa.postTransaction(transactionRequest, users.get(0));
 
-        // Assert the transaction was successful
+        // Assert the transaction was successful and the balances were updated in the database
         assertNotNull(result);
-        assertEquals(900.00, accounts.get(0).getBalance());
-        assertEquals(2100.00, accounts.get(1).getBalance());
+        verify(accountRepository).debitBalance(2L, Money.of(100.00));
+        verify(accountRepository).creditBalance(3L, Money.of(100.00));
+        verify(dailySpendService).addSpend(2L, LocalDate.now(), Money.of(100.00));
         assertNotNull(result.getId());
         assertEquals(100.00, result.getAmount());
         assertEquals("sender_iban", result.getSender());
         assertEquals("receiver_iban", result.getReceiver());
         assertEquals(2L, result.getUserPerforming());
         assertNotNull(result.getTimestamp());
+        assertEquals(1, meterRegistry.counter("mazebank.transactions.booked", "type", "transfer").count());
+    }
+
+    @Test
+    void transferReadsEverythingItValidatesInOneQuery() throws AccountNotFoundException, TransactionFailedException {
+        ReflectionTestUtils.setField(transactionServiceJpa, "lockRows", true);
+        when(accountServiceJpa.getAccountByIban("sender_iban")).thenReturn(accounts.get(0));
+        when(accountServiceJpa.getAccountByIban("receiver_iban")).thenReturn(accounts.get(1));
+        when(accountRepository.debitBalance(2L, Money.of(100.00))).thenReturn(1);
+
+        transactionServiceJpa.postTransaction(transfer(100.00, "sender_iban", "receiver_iban"), users.get(0));
+
+        verify(accountRepository).findTransferContext(2L, 3L, LocalDate.now(), true);
+        verify(dailySpendService, never()).getSpentToday(Mockito.anyLong());
     }
 
     @Test
     void insufficientFunds() throws AccountNotFoundException {
         // set the sender's balance to 0
-        accounts.get(0).setBalance(0.00);
+        accounts.get(0).setBalance(Money.of(0.00));
 
         // Create a transaction request
         TransactionRequest transactionRequest = new TransactionRequest();
@@ -328,6 +468,29 @@ class TransactionServiceJpaTest {
         assertEquals(0, transactionRepository.findAll().size());
     }
 
+    @Test
+    void absoluteLimitIsCheckedByTheDatabaseUpdate() throws AccountNotFoundException {
+        // another transfer lowered the balance after it was read, so the update does not change any row
+        TransactionRequest transactionRequest = new TransactionRequest();
+        transactionRequest.setSenderIban("sender_iban");
+        transactionRequest.setReceiverIban("receiver_iban");
+        transactionRequest.setAmount(100.00);
+
+        // Mock the behavior of accountServiceJpa
+        when(accountServiceJpa.getAccountByIban("sender_iban")).thenReturn(accounts.get(0));
+        when(accountServiceJpa.getAccountByIban("receiver_iban")).thenReturn(accounts.get(1));
+        when(accountRepository.debitBalance(2L, Money.of(100.00))).thenReturn(0);
+
+        // Perform the transaction
+        assertThrows(AccountAbsoluteLimitReachedException.class, () -> {
+            transactionServiceJpa.postTransaction(transactionRequest, users.get(0));
+        });
+
+        // the receiver was not credited and the transaction was not saved
+        verify(accountRepository, never()).creditBalance(Mockito.anyLong(), Mockito.any(Money.class));
+        verify(transactionRepository, never()).save(Mockito.any());
+    }
+
     @Test
     void accountIsNotOwnedByUserPerforming() throws AccountNotFoundException {
         // user 3 tries to send money from user 1's account
@@ -362,14 +525,15 @@ class TransactionServiceJpaTest {
         // Mock the behavior of accountServiceJpa
         when(accountServiceJpa.getAccountByIban("sender_iban")).thenReturn(accounts.get(0));
         when(accountServiceJpa.getAccountByIban("receiver_iban")).thenReturn(accounts.get(1));
+        when(accountRepository.debitBalance(2L, Money.of(100.00))).thenReturn(1);
 
         // Perform the transaction, should be successful
         TransactionResponse result = transactionServiceJpa.postTransaction(transactionRequest, users.get(3));
 
-        // Assert the transaction was successful
+        // Assert the transaction was successful and the balances were updated in the database
         assertNotNull(result);
-        assertEquals(900.00, accounts.get(0).getBalance());
-        assertEquals(2100.00, accounts.get(1).getBalance());
+        verify(accountRepository).debitBalance(2L, Money.of(100.00));
+        verify(accountRepository).creditBalance(3L, Money.of(100.00));
         assertNotNull(result.getId());
         assertEquals(100.00, result.getAmount());
         assertEquals("sender_iban", result.getSender());
@@ -385,7 +549,7 @@ class TransactionServiceJpaTest {
             .id(1L)
             .sender(accounts.get(0))
             .receiver(accounts.get(1))
-            .amount(100.00)
+            .amount(Money.of(100.00))
             .description("test transaction")
             .timestamp(timestamp)
             .build();
@@ -412,7 +576,7 @@ class TransactionServiceJpaTest {
             .id(1L)
             .sender(accounts.get(0))
             .receiver(accounts.get(1))
-            .amount(100.00)
+            .amount(Money.of(100.00))
             .description("test transaction")
             .timestamp(timestamp)
             .build();
@@ -484,4 +648,157 @@ class TransactionServiceJpaTest {
         );
         assertEquals("You are not allowed to access transactions of the bank's bank account", exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getTransactionsByUserPagesInTheDatabaseWithIdAsTieBreaker() {
+        Transaction transaction = Transaction.builder().id(31L).sender(accounts.get(0)).receiver(accounts.get(1)).build();
+        when(transactionRepository.findByAccount(2L, PageRequest.of(3, 10, Sort.by(Sort.Direction.DESC, "timestamp", "id"))))
+            .thenReturn(List.of(transaction));
+
+        List<Transaction> page = transactionServiceJpa.getTransactionsByUser(2L, PageRequest.of(3, 10, Sort.by(Sort.Direction.DESC, "timestamp")));
+
+        assertEquals(List.of(transaction), page);
+        verify(transactionRepository, never()).findByAccountAfter(Mockito.anyLong(), Mockito.any(), Mockito.anyBoolean(), Mockito.anyInt());
+    }
+
+    @Test
+    void getTransactionPageReturnsCursorWhenThereIsANextPage() throws InvalidCursorException {
+        List<Transaction> transactions = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            transactions.add(Transaction.builder()
+                .id(id)
+                .amount(Money.of(10.0 * id))
+                .sender(accounts.get(0))
+                .receiver(accounts.get(1))
+                .timestamp(LocalDateTime.of(2023, 1, (int) id, 12, 0))
+                .build());
+        }
+        // asked for 2, the repository is asked for one more to see if there is a next page
+        when(transactionRepository.findByAccountAfter(2L, null, true, 3)).thenReturn(transactions);
+
+        TransactionPageResponse page = transactionServiceJpa.getAccountTransactionPage(
+            2L, "", "asc", 2,
+            transaction -> TransactionResponse.builder().id(transaction.getId()).build()
+        );
+
+        assertEquals(2, page.getTransactions().size());
+        assertEquals(new TransactionCursor(LocalDateTime.of(2023, 1, 2, 12, 0), 2), TransactionCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void getTransactionPageContinuesAfterCursorAndEndsWithoutCursor() throws InvalidCursorException {
+        TransactionCursor cursor = new TransactionCursor(LocalDateTime.of(2023, 1, 2, 12, 0), 2);
+        Transaction last = Transaction.builder()
+            .id(3L)
+            .sender(accounts.get(0))
+            .receiver(accounts.get(1))
+            .timestamp(LocalDateTime.of(2023, 1, 3, 12, 0))
+            .build();
+        when(accountRepository.findIdsByUserId(2L)).thenReturn(List.of(2L, 3L));
+        when(transactionRepository.findByAccountsAfter(Mockito.eq(List.of(2L, 3L)), Mockito.any(), Mockito.eq(cursor), Mockito.eq(true), Mockito.eq(3))).thenReturn(List.of(last));
+
+        TransactionPageResponse page = transactionServiceJpa.getTransactionPage(
+            TransactionFilter.builder().participantUserId(2L).build(), cursor.encode(), "asc", 2,
+            transaction -> TransactionResponse.builder().id(transaction.getId()).build()
+        );
+
+        assertEquals(1, page.getTransactions().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getTransactionPageRejectsInvalidCursor() {
+        assertThrows(InvalidCursorException.class, () -> transactionServiceJpa.getTransactionPage(
+            TransactionFilter.builder().build(), "garbage", "asc", 2,
+            transaction -> TransactionResponse.builder().build()
+        ));
+    }
+
+    @Test
+    void batchBooksTransfersWithOneBalanceUpdatePerAccount() throws BadRequestException, AccountAbsoluteLimitReachedException {
+        ReflectionTestUtils.setField(transactionServiceJpa, "maxBatchSize", 1000);
+        when(accountRepository.findIdsByIbanIn(Mockito.any())).thenReturn(List.of(2L));
+        when(accountRepository.findByIbanIn(Mockito.any())).thenReturn(accounts);
+        when(accountRepository.debitBalance(2L, Money.of(200.00))).thenReturn(1);
+
+        BatchTransactionResponse response = transactionServiceJpa.postTransactions(batch(BatchMode.BEST_EFFORT,
+            transfer(100.00, "sender_iban", "receiver_iban"),
+            transfer(100.00, "sender_iban", "receiver_iban")
+        ), users.get(0));
+
+        assertEquals(2, response.getCreated());
+        assertEquals(0, response.getFailed());
+        assertEquals(BatchItemResponse.CREATED, response.getResults().get(1).getStatus());
+        verify(accountLockManager).lockUntilTransactionCompletes(2L);
+        verify(accountRepository).debitBalance(2L, Money.of(200.00));
+        verify(accountRepository).creditBalance(3L, Money.of(200.00));
+        verify(dailySpendService).addSpend(2L, LocalDate.now(), Money.of(200.00));
+        verify(transactionRepository).saveAll(Mockito.argThat(transactions -> ((Collection<?>) transactions).size() == 2));
+        assertEquals(2, meterRegistry.counter("mazebank.transactions.booked", "type", "transfer").count());
+    }
+
+    @Test
+    void batchValidatesEveryTransferAgainstTheTransfersBeforeIt() throws BadRequestException, AccountAbsoluteLimitReachedException {
+        ReflectionTestUtils.setField(transactionServiceJpa, "maxBatchSize", 1000);
+        when(accountRepository.findIdsByIbanIn(Mockito.any())).thenReturn(List.of(2L));
+        when(accountRepository.findByIbanIn(Mockito.any())).thenReturn(accounts);
+        when(accountRepository.debitBalance(2L, Money.of(900.00))).thenReturn(1);
+
+        // the sender has 1000, so the second transfer would take the balance below 0
+        BatchTransactionResponse response = transactionServiceJpa.postTransactions(batch(BatchMode.BEST_EFFORT,
+            transfer(600.00, "sender_iban", "receiver_iban"),
+            transfer(600.00, "sender_iban", "receiver_iban"),
+            transfer(300.00, "sender_iban", "receiver_iban")
+        ), users.get(0));
+
+        assertEquals(2, response.getCreated());
+        assertEquals(1, response.getFailed());
+        assertEquals(BatchItemResponse.FAILED, response.getResults().get(1).getStatus());
+        assertEquals("Balance cannot become lower than absolute limit", response.getResults().get(1).getMessage());
+        assertEquals(BatchItemResponse.CREATED, response.getResults().get(2).getStatus());
+        verify(accountRepository).creditBalance(3L, Money.of(900.00));
+    }
+
+    @Test
+    void allOrNothingBatchBooksNothingWhenOneTransferFails() throws BadRequestException, AccountAbsoluteLimitReachedException {
+        ReflectionTestUtils.setField(transactionServiceJpa, "maxBatchSize", 1000);
+        when(accountRepository.findIdsByIbanIn(Mockito.any())).thenReturn(List.of(2L));
+        when(accountRepository.findByIbanIn(Mockito.any())).thenReturn(accounts);
+
+        BatchTransactionResponse response = transactionServiceJpa.postTransactions(batch(BatchMode.ALL_OR_NOTHING,
+            transfer(100.00, "sender_iban", "receiver_iban"),
+            transfer(100.00, "sender_iban", "unknown_iban")
+        ), users.get(0));
+
+        assertEquals(0, response.getCreated());
+        assertEquals(1, response.getFailed());
+        assertEquals(BatchItemResponse.NOT_EXECUTED, response.getResults().get(0).getStatus());
+        assertEquals("Account with iban: unknown_iban not found", response.getResults().get(1).getMessage());
+        verify(accountRepository, never()).debitBalance(Mockito.anyLong(), Mockito.any(Money.class));
+        verify(accountRepository, never()).creditBalance(Mockito.anyLong(), Mockito.any(Money.class));
+        verify(transactionRepository, never()).saveAll(Mockito.any());
+        assertNull(meterRegistry.find("mazebank.transactions.booked").counter());
+    }
+
+    @Test
+    void batchLargerThanTheMaximumIsRejected() {
+        ReflectionTestUtils.setField(transactionServiceJpa, "maxBatchSize", 1);
+
+        assertThrows(BadRequestException.class, () -> transactionServiceJpa.postTransactions(batch(BatchMode.BEST_EFFORT,
+            transfer(100.00, "sender_iban", "receiver_iban"),
+            transfer(100.00, "sender_iban", "receiver_iban")
+        ), users.get(0)));
+    }
+
+    private static BatchTransactionRequest batch(BatchMode mode, TransactionRequest... transactions) {
+        return BatchTransactionRequest.builder().mode(mode).transactions(List.of(transactions)).build();
+    }
+
+    private static TransactionRequest transfer(double amount, String senderIban, String receiverIban) {
+        return TransactionRequest.builder().amount(amount).senderIban(senderIban).receiverIban(receiverIban).build();
+    }
+
+    private Account accountWithId(long id) {
+        return accounts.stream().filter(account -> account.getId() == id).findFirst().orElseThrow();
+    }
+}
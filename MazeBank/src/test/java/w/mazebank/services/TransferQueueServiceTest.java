@@ -0,0 +1,200 @@
+package w.mazebank.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import w.mazebank.enums.QueuedTransferStatus;
+import w.mazebank.enums.RoleType;
+import w.mazebank.exceptions.TransactionFailedException;
+import w.mazebank.exceptions.TransferQueueUnavailableException;
+import w.mazebank.exceptions.UnauthorizedTransactionAccessException;
+import w.mazebank.models.Money;
+import w.mazebank.models.QueuedTransfer;
+import w.mazebank.models.User;
+import w.mazebank.models.requests.TransactionRequest;
+import w.mazebank.models.responses.QueuedTransferResponse;
+import w.mazebank.models.responses.TransactionResponse;
+import w.mazebank.repositories.QueuedTransferRepository;
+import w.mazebank.repositories.UserRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferQueueServiceTest {
+    @InjectMocks
+    private TransferQueueService transferQueueService;
+
+    @Mock
+    private QueuedTransferRepository queuedTransferRepository;
+
+    @Mock
+    private TransactionServiceJpa transactionServiceJpa;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final User customer = User.builder().id(2L).role(RoleType.CUSTOMER).build();
+
+    private final TransactionRequest request = TransactionRequest.builder()
+        .senderIban("NL01INHO0000000002")
+        .receiverIban("NL01INHO0000000003")
+        .amount(12.34)
+        .description("rent")
+        .build();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transferQueueService, "enabled", true);
+        ReflectionTestUtils.setField(transferQueueService, "maxQueued", 10L);
+        ReflectionTestUtils.setField(transferQueueService, "retryAfter", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(transferQueueService, "maxAttempts", 3);
+    }
+
+    @Test
+    void enqueueStoresTheTransferAsQueued() throws Exception {
+        when(queuedTransferRepository.save(any(QueuedTransfer.class))).thenAnswer(invocation -> {
+            QueuedTransfer transfer = invocation.getArgument(0);
+            transfer.setId(7L);
+            return transfer;
+        });
+
+        QueuedTransferResponse response = transferQueueService.enqueue(request, customer);
+
+        ArgumentCaptor<QueuedTransfer> saved = ArgumentCaptor.forClass(QueuedTransfer.class);
+        verify(queuedTransferRepository).save(saved.capture());
+        assertEquals(Money.of(12.34), saved.getValue().getAmount());
+        assertEquals(2L, saved.getValue().getUserPerformingId());
+        assertEquals(TransferQueueService.partitionOf("NL01INHO0000000002"), saved.getValue().getPartitionKey());
+        assertEquals(7L, response.getId());
+        assertEquals("QUEUED", response.getStatus());
+        verifyNoInteractions(transactionServiceJpa);
+    }
+
+    @Test
+    void fullQueueRefusesNewTransfers() {
+        when(queuedTransferRepository.countByStatus(QueuedTransferStatus.QUEUED)).thenReturn(10L);
+
+        TransferQueueUnavailableException e = assertThrows(TransferQueueUnavailableException.class,
+            () -> transferQueueService.enqueue(request, customer));
+        assertEquals(Duration.ofSeconds(5), e.getRetryAfter());
+        verify(queuedTransferRepository, never()).save(any());
+    }
+
+    @Test
+    void disabledQueueRefusesTransfersWithoutRetryAfter() {
+        ReflectionTestUtils.setField(transferQueueService, "enabled", false);
+
+        TransferQueueUnavailableException e = assertThrows(TransferQueueUnavailableException.class,
+            () -> transferQueueService.enqueue(request, customer));
+        assertNull(e.getRetryAfter());
+    }
+
+    @Test
+    void amountTooLargeToCountInCentsIsRefused() {
+        request.setAmount(1e300);
+
+        TransactionFailedException e = assertThrows(TransactionFailedException.class, () -> transferQueueService.enqueue(request, customer));
+        assertEquals("Amount is too large", e.getMessage());
+        verify(queuedTransferRepository, never()).save(any());
+    }
+
+    @Test
+    void senderAlwaysMapsToTheSamePartition() {
+        int partition = TransferQueueService.partitionOf("NL01INHO0000000002");
+
+        assertEquals(partition, TransferQueueService.partitionOf("NL01INHO0000000002"));
+        assertTrue(partition >= 0 && partition < TransferQueueService.PARTITIONS);
+    }
+
+    @Test
+    void bookPostsTheTransferAndMarksItCompleted() throws Exception {
+        QueuedTransfer transfer = queued();
+        when(userRepository.findById(2L)).thenReturn(Optional.of(customer));
+        when(transactionServiceJpa.postTransaction(any(TransactionRequest.class), eq(customer)))
+            .thenReturn(TransactionResponse.builder().id(40L).build());
+        when(queuedTransferRepository.complete(eq(7L), eq(40L), any())).thenReturn(1);
+
+        transferQueueService.book(transfer);
+
+        ArgumentCaptor<TransactionRequest> posted = ArgumentCaptor.forClass(TransactionRequest.class);
+        verify(transactionServiceJpa).postTransaction(posted.capture(), eq(customer));
+        assertEquals(12.34, posted.getValue().getAmount());
+        assertEquals("NL01INHO0000000003", posted.getValue().getReceiverIban());
+    }
+
+    @Test
+    void bookFailsWhenTheTransferWasAlreadyProcessed() throws Exception {
+        when(userRepository.findById(2L)).thenReturn(Optional.of(customer));
+        when(transactionServiceJpa.postTransaction(any(TransactionRequest.class), eq(customer)))
+            .thenReturn(TransactionResponse.builder().id(40L).build());
+        when(queuedTransferRepository.complete(eq(7L), eq(40L), any())).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> transferQueueService.book(queued()));
+    }
+
+    @Test
+    void bookFailsWhenTheUserIsGone() {
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertThrows(TransactionFailedException.class, () -> transferQueueService.book(queued()));
+        verifyNoInteractions(transactionServiceJpa);
+    }
+
+    @Test
+    void unexpectedFailureIsCountedUntilTheLastAttempt() {
+        QueuedTransfer transfer = queued();
+        transfer.setAttempts(1);
+
+        assertFalse(transferQueueService.retryOrFail(transfer, "constraint violated"));
+
+        verify(queuedTransferRepository).countAttempt(7L, QueuedTransferStatus.QUEUED);
+        verify(queuedTransferRepository, never()).fail(anyLong(), any(), any());
+    }
+
+    @Test
+    void lastAttemptMarksTheTransferFailed() {
+        QueuedTransfer transfer = queued();
+        transfer.setAttempts(2);
+
+        assertTrue(transferQueueService.retryOrFail(transfer, "x".repeat(300)));
+
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(queuedTransferRepository).fail(eq(7L), message.capture(), any());
+        assertTrue(message.getValue().startsWith("Booking failed 3 times: xxx"));
+        assertEquals(255, message.getValue().length());
+    }
+
+    @Test
+    void customersCanOnlySeeTheirOwnQueuedTransfers() throws Exception {
+        when(queuedTransferRepository.findById(7L)).thenReturn(Optional.of(queued()));
+        User otherCustomer = User.builder().id(5L).role(RoleType.CUSTOMER).build();
+        User employee = User.builder().id(3L).role(RoleType.EMPLOYEE).build();
+
+        assertEquals("QUEUED", transferQueueService.getQueuedTransfer(7L, customer).getStatus());
+        assertEquals("QUEUED", transferQueueService.getQueuedTransfer(7L, employee).getStatus());
+        assertThrows(UnauthorizedTransactionAccessException.class, () -> transferQueueService.getQueuedTransfer(7L, otherCustomer));
+    }
+
+    private QueuedTransfer queued() {
+        return QueuedTransfer.builder()
+            .id(7L)
+            .senderIban("NL01INHO0000000002")
+            .receiverIban("NL01INHO0000000003")
+            .amount(Money.of(12.34))
+            .userPerformingId(2L)
+            .status(QueuedTransferStatus.QUEUED)
+            .createdAt(LocalDateTime.now())
+            .build();
+    }
+}
@@ -0,0 +1,97 @@
+package w.mazebank.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import w.mazebank.exceptions.UserNotFoundException;
+import w.mazebank.enums.RoleType;
+import w.mazebank.models.User;
+import w.mazebank.models.UserPrincipal;
+import w.mazebank.repositories.UserRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserPrincipalCacheTest {
+    @InjectMocks
+    private UserPrincipalCache userPrincipalCache = new UserPrincipalCache(Duration.ofMinutes(5), 100);
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserStateService userStateService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = User.builder()
+            .id(2L)
+            .email("john@example.com")
+            .firstName("John")
+            .lastName("Doe")
+            .role(RoleType.CUSTOMER)
+            .build();
+    }
+
+    @Test
+    void cacheHitDoesNotQueryTheDatabase() throws UserNotFoundException {
+        when(userRepository.findByEmail("john@example.com")).thenReturn(Optional.of(user));
+
+        UserPrincipal principal = userPrincipalCache.getByEmail("john@example.com");
+        assertSame(principal, userPrincipalCache.getByEmail("john@example.com"));
+
+        verify(userRepository, times(1)).findByEmail("john@example.com");
+    }
+
+    @Test
+    void principalHoldsTheUsersIdentityAndStateVersion() throws UserNotFoundException {
+        when(userRepository.findByEmail("john@example.com")).thenReturn(Optional.of(user));
+        when(userStateService.getVersion(2L)).thenReturn(3L);
+
+        assertEquals(new UserPrincipal(2L, "john@example.com", RoleType.CUSTOMER, false, 3L),
+            userPrincipalCache.getByEmail("john@example.com"));
+    }
+
+    @Test
+    void invalidateLoadsTheUserAgain() throws UserNotFoundException {
+        User blockedUser = User.builder().id(2L).email("john@example.com").blocked(true).build();
+        when(userRepository.findByEmail("john@example.com")).thenReturn(Optional.of(user)).thenReturn(Optional.of(blockedUser));
+
+        assertFalse(userPrincipalCache.getByEmail("john@example.com").isBlocked());
+        userPrincipalCache.invalidate("john@example.com");
+        assertTrue(userPrincipalCache.getByEmail("john@example.com").isBlocked());
+    }
+
+    @Test
+    void unknownUserIsNotCached() throws UserNotFoundException {
+        when(userRepository.findByEmail("john@example.com")).thenReturn(Optional.empty()).thenReturn(Optional.of(user));
+
+        assertThrows(UserNotFoundException.class, () -> userPrincipalCache.getByEmail("john@example.com"));
+        // the user registered in the meantime
+        assertEquals(2L, userPrincipalCache.getByEmail("john@example.com").getId());
+    }
+
+    @Test
+    void entriesExpireAfterTheTimeToLive() throws Exception {
+        UserPrincipalCache shortLivedCache = new UserPrincipalCache(Duration.ofMillis(50), 100);
+        ReflectionTestUtils.setField(shortLivedCache, "userRepository", userRepository);
+        ReflectionTestUtils.setField(shortLivedCache, "userStateService", userStateService);
+        when(userRepository.findByEmail("john@example.com")).thenReturn(Optional.of(user));
+
+        shortLivedCache.getByEmail("john@example.com");
+        Thread.sleep(100);
+        shortLivedCache.getByEmail("john@example.com");
+
+        verify(userRepository, times(2)).findByEmail("john@example.com");
+    }
+}
@@ -0,0 +1,135 @@
+package w.mazebank.services;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import w.mazebank.enums.RoleType;
+import w.mazebank.enums.TransactionType;
+import w.mazebank.models.Account;
+import w.mazebank.models.Money;
+import w.mazebank.models.Transaction;
+import w.mazebank.models.User;
+import w.mazebank.models.responses.TransactionResponse;
+import w.mazebank.repositories.AccountRepository;
+import w.mazebank.repositories.TransactionRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs many differently filtered transaction searches at the same time against the seeded database
+// and checks that every search only returns what its own filters match.
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserServiceJpaConcurrencyTest {
+    private static final int SEARCHES = 400;
+    private static final long[] ACCOUNT_IDS = {2, 3, 4, 5, 6, 7, 8, 9, 10};
+    private static final long[] USER_IDS = {2, 3, 4, 13, 14};
+
+    @Autowired
+    private UserServiceJpa userServiceJpa;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private final User employee = User.builder().id(4L).role(RoleType.EMPLOYEE).build();
+    private final List<Transaction> created = new ArrayList<>();
+
+    @BeforeAll
+    void createTransactions() {
+        Random random = new Random(7);
+        Map<Long, Account> accounts = accountRepository.findAllById(Arrays.stream(ACCOUNT_IDS).boxed().toList())
+            .stream()
+            .collect(Collectors.toMap(Account::getId, account -> account));
+
+        for (int i = 0; i < 200; i++) {
+            Account sender = accounts.get(ACCOUNT_IDS[random.nextInt(ACCOUNT_IDS.length)]);
+            Account receiver = accounts.get(ACCOUNT_IDS[random.nextInt(ACCOUNT_IDS.length)]);
+            created.add(Transaction.builder()
+                .description("concurrency test " + i)
+                .amount(Money.of(10 * (1 + random.nextInt(20))))
+                .userPerforming(sender.getUser())
+                .sender(sender)
+                .receiver(receiver)
+                .transactionType(TransactionType.TRANSFER)
+                .timestamp(LocalDateTime.of(2023, 1, 1, 12, 0).plusDays(random.nextInt(60)))
+                .build());
+        }
+        transactionRepository.saveAll(created);
+    }
+
+    @AfterAll
+    void deleteTransactions() {
+        transactionRepository.deleteAll(created);
+    }
+
+    @Test
+    void concurrentSearchesOnlySeeTheirOwnFilters() throws Exception {
+        List<Transaction> allTransactions = transactionRepository.findAll();
+        Random random = new Random(11);
+
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < SEARCHES; i++) {
+            Search search = Search.random(random);
+            Set<Long> expected = allTransactions.stream()
+                .filter(search::matches)
+                .map(Transaction::getId)
+                .collect(Collectors.toSet());
+
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<TransactionResponse> responses = userServiceJpa.getTransactionsByUserId(
+                    search.userId, employee, 0, 1000, "asc",
+                    search.fromIban, null, search.startDate, search.endDate, search.maxAmount, search.minAmount, null
+                );
+                Set<Long> actual = responses.stream().map(TransactionResponse::getId).collect(Collectors.toSet());
+                assertEquals(expected, actual, "results for " + search);
+                return null;
+            }));
+        }
+
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private record Search(long userId, String fromIban, LocalDate startDate, LocalDate endDate, Double maxAmount, Double minAmount) {
+        static Search random(Random random) {
+            long userId = USER_IDS[random.nextInt(USER_IDS.length)];
+            // every search uses a different mix of filters
+            String fromIban = random.nextInt(3) == 0 ? "nl76" : null;
+            LocalDate startDate = random.nextBoolean() ? LocalDate.of(2023, 1, 1).plusDays(random.nextInt(30)) : null;
+            LocalDate endDate = random.nextBoolean() ? LocalDate.of(2023, 1, 30).plusDays(random.nextInt(30)) : null;
+            Double maxAmount = random.nextBoolean() ? 50.0 + random.nextInt(150) : null;
+            Double minAmount = random.nextBoolean() ? (double) random.nextInt(100) : null;
+            return new Search(userId, fromIban, startDate, endDate, maxAmount, minAmount);
+        }
+
+        boolean matches(Transaction transaction) {
+            if (transaction.getSender().getUser().getId() != userId && transaction.getReceiver().getUser().getId() != userId) return false;
+            if (fromIban != null && !transaction.getSender().getIban().toLowerCase().contains(fromIban)) return false;
+            if (startDate != null && transaction.getTimestamp().isBefore(startDate.atStartOfDay())) return false;
+            if (endDate != null && transaction.getTimestamp().toLocalDate().isAfter(endDate)) return false;
+            if (maxAmount != null && transaction.getAmount().toDouble() > maxAmount) return false;
+            return minAmount == null || transaction.getAmount().toDouble() >= minAmount;
+        }
+    }
+}
@@ -13,6 +13,7 @@ import w.mazebank.enums.RoleType;
 import w.mazebank.enums.TransactionType;
 import w.mazebank.exceptions.*;
 import w.mazebank.models.Account;
+import w.mazebank.models.Money;
 import w.mazebank.models.Transaction;
 import w.mazebank.models.User;
 import w.mazebank.models.requests.UserPatchRequest;
@@ -26,6 +27,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -45,6 +47,15 @@ class UserServiceJpaTest {
     @Mock
     private TransactionServiceJpa transactionServiceJpa;
 
+    @Mock
+    private DailySpendService dailySpendService;
+
+    @Mock
+    private UserPrincipalCache userPrincipalCache;
+
+    @Mock
+    private UserStateService userStateService;
+
     @Test
     void getUserByIdThatDoesNotExist() {
         // mock the findById method and return null
@@ -117,10 +128,9 @@ class UserServiceJpaTest {
 
         Sort sortObject = Sort.by(Sort.Direction.fromString("asc"), "id");
         Pageable pageable = PageRequest.of(0, 10, sortObject);
-        Page<User> usersPage = new PageImpl<>(users);
 
-        // mock the findAll method and return users in a page
-        when(userRepository.findAll(pageable)).thenReturn(usersPage);
+        // mock the findAllWithoutAccounts method and return the users without accounts
+        when(userRepository.findAllWithoutAccounts(pageable)).thenReturn(users.subList(1, 2));
 
         // call the method
         List<UserResponse> results = userServiceJpa.getAllUsers(0, 10, "asc", "", true);
@@ -133,11 +143,31 @@ class UserServiceJpaTest {
         assertEquals("Doe", results.get(0).getLastName());
     }
 
+    @Test
+    void searchUsersThatHaveNoAccountsFillsThePage() {
+        List<User> users = new ArrayList<>();
+        users.add(User.builder().id(2L).firstName("John").lastName("Doe").build());
+        users.add(User.builder().id(3L).firstName("Jane").lastName("Doe").build());
+        users.add(User.builder().id(4L).firstName("Jim").lastName("Doe").build());
+
+        // mock the search and return three users, the first one has accounts
+        when(userRepository.findBySearchString(eq("Doe"), any(Pageable.class))).thenReturn(users);
+        when(userRepository.findIdsWithAccounts(List.of(2L, 3L, 4L))).thenReturn(Set.of(2L));
+
+        // call the method for the second page of one user
+        List<UserResponse> results = userServiceJpa.getAllUsers(1, 1, "asc", "Doe", true);
+
+        // test results
+        assertEquals(1, results.size());
+        assertEquals(4L, results.get(0).getId());
+    }
+
     @Test
     void blockUser() throws UserNotFoundException {
         // create regular non-blocked user
         User user = User.builder()
             .id(2L)
+            .email("john@example.com")
             .firstName("John")
             .lastName("Doe")
             .blocked(false)
@@ -152,6 +182,9 @@ class UserServiceJpaTest {
         // test results
         assertEquals(true, user.isBlocked());
         verify(userRepository).save(user);
+        // the filter must not keep authenticating the user from the cache
+        verify(userPrincipalCache).invalidate("john@example.com");
+        verify(userStateService).revokeTokens(2L, true);
     }
 
     @Test
@@ -240,7 +273,7 @@ class UserServiceJpaTest {
         user.setAccounts(List.of(
             Account.builder()
                 .id(2L)
-                .balance(100.0)
+                .balance(Money.of(100.0))
                 .user(user)
                 .build()
         ));
@@ -281,13 +314,13 @@ class UserServiceJpaTest {
         Account account1 = Account.builder()
             .id(2L)
             .iban("NL01INHO0000000002")
-            .balance(100.0)
+            .balance(Money.of(100.0))
             .accountType(AccountType.CHECKING)
             .user(user)
             .build();
         Account account2 = Account.builder()
             .id(3L)
-            .balance(200.0)
+            .balance(Money.of(200.0))
             .iban("NL01INHO0000000003")
             .accountType(AccountType.SAVINGS)
             .user(user)
@@ -328,13 +361,13 @@ class UserServiceJpaTest {
         Account account1 = Account.builder()
             .id(1L)
             .iban("NL01INHO0000000002")
-            .balance(100.0)
+            .balance(Money.of(100.0))
             .accountType(AccountType.CHECKING)
             .user(user)
             .build();
         Account account2 = Account.builder()
             .id(2L)
-            .balance(200.0)
+            .balance(Money.of(200.0))
             .iban("NL01INHO0000000003")
             .accountType(AccountType.SAVINGS)
             .user(user)
@@ -417,13 +450,13 @@ class UserServiceJpaTest {
         Account account1 = Account.builder()
             .id(1L)
             .iban("NL01INHO0000000002")
-            .balance(100.0)
+            .balance(Money.of(100.0))
             .accountType(AccountType.CHECKING)
             .user(user)
             .build();
         Account account2 = Account.builder()
             .id(2L)
-            .balance(200.0)
+            .balance(Money.of(200.0))
             .iban("NL01INHO0000000003")
             .accountType(AccountType.SAVINGS)
             .user(user)
@@ -433,7 +466,7 @@ class UserServiceJpaTest {
         Transaction transaction1 = Transaction.builder()
             .id(1L)
             .description("test transaction 1")
-            .amount(100.0)
+            .amount(Money.of(100.0))
             .userPerforming(user)
             .sender(account1)
             .receiver(account2)
@@ -443,7 +476,7 @@ class UserServiceJpaTest {
         Transaction transaction2 = Transaction.builder()
             .id(2L)
             .description("test transaction 2")
-            .amount(200.0)
+            .amount(Money.of(200.0))
             .userPerforming(user)
             .sender(account2)
             .receiver(account1)
@@ -458,6 +491,8 @@ class UserServiceJpaTest {
             .amount(100.0)
             .sender("NL01INHO0000000002")
             .receiver("NL01INHO0000000003")
+            .userPerforming(2L)
+            .transactionType("TRANSFER")
             .build();
 
         TransactionResponse transactionResponse2 = TransactionResponse.builder()
@@ -467,6 +502,8 @@ class UserServiceJpaTest {
             .amount(200.0)
             .sender("NL01INHO0000000003")
             .receiver("NL01INHO0000000002")
+            .userPerforming(2L)
+            .transactionType("TRANSFER")
             .build();
 
 
@@ -557,8 +594,8 @@ class UserServiceJpaTest {
             .email("johndoe@gmail.com")
             .role(RoleType.CUSTOMER)
             .phoneNumber("0612345678")
-            .dayLimit(1000.0)
-            .transactionLimit(100.0)
+            .dayLimit(Money.of(1000.0))
+            .transactionLimit(Money.of(100.0))
             .build();
         UserPatchRequest requestBody = UserPatchRequest.builder()
             .firstName("Jane")
@@ -643,4 +680,17 @@ class UserServiceJpaTest {
         });
         assertEquals("You are not allowed to access the bank", exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAmountRemainingSubtractsWhatWasSentToday() {
+        User user = User.builder()
+            .id(2L)
+            .dayLimit(Money.of(5000.00))
+            .build();
+
+        // the ledger says the user already sent 1250 to other customers today
+        when(dailySpendService.getSpentTodayByUser(2L)).thenReturn(Money.of(1250.00));
+
+        assertEquals(3750.00, userServiceJpa.getAmountRemaining(user));
+    }
+}
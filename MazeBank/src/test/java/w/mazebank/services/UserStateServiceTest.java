@@ -0,0 +1,71 @@
+package w.mazebank.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import w.mazebank.models.UserState;
+import w.mazebank.repositories.UserRepository;
+import w.mazebank.repositories.UserStateRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserStateServiceTest {
+    @InjectMocks
+    private UserStateService userStateService = new UserStateService(Duration.ofMinutes(5), 100);
+
+    @Mock
+    private UserStateRepository userStateRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Test
+    void userWithoutStateStartsAtVersionZero() {
+        when(userStateRepository.findById(2L)).thenReturn(Optional.empty());
+        when(userRepository.findBlockedById(2L)).thenReturn(Optional.of(false));
+
+        UserState state = userStateService.getState(2L);
+
+        assertEquals(0, state.getVersion());
+        assertFalse(state.isBlocked());
+    }
+
+    @Test
+    void unknownUserIsTreatedAsBlocked() {
+        when(userStateRepository.findById(99L)).thenReturn(Optional.empty());
+        when(userRepository.findBlockedById(99L)).thenReturn(Optional.empty());
+
+        assertTrue(userStateService.getState(99L).isBlocked());
+    }
+
+    @Test
+    void stateIsCached() {
+        when(userStateRepository.findById(2L)).thenReturn(Optional.of(new UserState(2L, 3, false)));
+
+        userStateService.getState(2L);
+        userStateService.getState(2L);
+
+        verify(userStateRepository, times(1)).findById(2L);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void revokeTokensRaisesTheVersionAndInvalidatesTheCache() {
+        UserState state = new UserState(2L, 3, false);
+        when(userStateRepository.findById(2L)).thenReturn(Optional.of(state));
+
+        assertEquals(3, userStateService.getVersion(2L));
+        userStateService.revokeTokens(2L, true);
+
+        verify(userStateRepository).save(state);
+        assertEquals(4, userStateService.getVersion(2L));
+        assertTrue(userStateService.getState(2L).isBlocked());
+    }
+}
@@ -0,0 +1,97 @@
+package w.mazebank.utils;
+
+import org.junit.jupiter.api.Test;
+import w.mazebank.enums.AccountType;
+import w.mazebank.enums.RoleType;
+import w.mazebank.enums.TransactionType;
+import w.mazebank.models.Account;
+import w.mazebank.models.Money;
+import w.mazebank.models.Transaction;
+import w.mazebank.models.User;
+import w.mazebank.models.responses.AccountResponse;
+import w.mazebank.models.responses.FullUserResponse;
+import w.mazebank.models.responses.TransactionResponse;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseMapperTest {
+    private final User user = User.builder()
+        .id(2L)
+        .email("user1@example.com")
+        .firstName("John")
+        .lastName("Doe")
+        .role(RoleType.CUSTOMER)
+        .dateOfBirth(LocalDate.of(1990, 1, 1))
+        .build();
+
+    @Test
+    void mapsTransaction() {
+        LocalDateTime timestamp = LocalDateTime.now();
+        Transaction transaction = Transaction.builder()
+            .id(1L)
+            .amount(Money.of(100))
+            .description("test")
+            .sender(Account.builder().iban("NL76INHO0493458014").build())
+            .receiver(Account.builder().iban("NL71INHO6310134205").build())
+            .userPerforming(user)
+            .transactionType(TransactionType.TRANSFER)
+            .timestamp(timestamp)
+            .build();
+
+        TransactionResponse response = ResponseMapper.toTransactionResponse(transaction);
+
+        assertEquals(1L, response.getId());
+        assertEquals(100, response.getAmount());
+        assertEquals("NL76INHO0493458014", response.getSender());
+        assertEquals("NL71INHO6310134205", response.getReceiver());
+        assertEquals(2L, response.getUserPerforming());
+        assertEquals("TRANSFER", response.getTransactionType());
+        assertEquals(timestamp.toString(), response.getTimestamp());
+    }
+
+    @Test
+    void mapsMissingTransactionFieldsToNull() {
+        TransactionResponse response = ResponseMapper.toTransactionResponse(Transaction.builder().id(1L).build());
+
+        assertNull(response.getSender());
+        assertNull(response.getReceiver());
+        assertNull(response.getUserPerforming());
+        assertNull(response.getTimestamp());
+        assertNull(response.getTransactionType());
+    }
+
+    @Test
+    void mapsAccountWithItsHolder() {
+        Account account = Account.builder()
+            .id(3L)
+            .iban("NL76INHO0493458014")
+            .accountType(AccountType.SAVINGS)
+            .balance(Money.of(50))
+            .absoluteLimit(Money.of(-10))
+            .isActive(true)
+            .user(user)
+            .build();
+
+        AccountResponse response = ResponseMapper.toAccountResponse(account);
+
+        assertEquals(3L, response.getId());
+        assertEquals(AccountType.SAVINGS.getValue(), response.getAccountType());
+        assertEquals(-10, response.getAbsoluteLimit());
+        assertTrue(response.getActive());
+        assertEquals("John", response.getUser().getFirstName());
+        assertNotNull(response.getTimestamp());
+    }
+
+    @Test
+    void mapsFullUser() {
+        FullUserResponse response = ResponseMapper.toFullUserResponse(user, 250);
+
+        assertEquals("user1@example.com", response.getEmail());
+        assertEquals("CUSTOMER", response.getRole());
+        assertEquals("1990-01-01", response.getDateOfBirth());
+        assertEquals(250, response.getAmountRemaining());
+    }
+}
@@ -0,0 +1,63 @@
+package w.mazebank.utils;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowQueryDataSourceTest {
+    private final Logger logger = (Logger) LoggerFactory.getLogger(SlowQueryDataSource.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final DriverManagerDataSource database = new DriverManagerDataSource("jdbc:h2:mem:slow-query;DB_CLOSE_DELAY=-1");
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    void logsTheStatementItsParameterTypesAndTheCallingMethod() throws SQLException {
+        query(new SlowQueryDataSource(database, Duration.ZERO));
+
+        assertEquals(1, appender.list.size());
+        String message = appender.list.get(0).getFormattedMessage();
+        assertTrue(message.contains("in SlowQueryDataSourceTest.query"), message);
+        assertTrue(message.contains("SELECT ? + ?"), message);
+        assertTrue(message.contains("parameters [Long, String]"), message);
+        // the values are never logged
+        assertFalse(message.contains("41"), message);
+    }
+
+    @Test
+    void doesNotLogStatementsBelowTheThreshold() throws SQLException {
+        query(new SlowQueryDataSource(database, Duration.ofMinutes(1)));
+
+        assertTrue(appender.list.isEmpty());
+    }
+
+    private void query(SlowQueryDataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT ? + ?")) {
+            statement.setLong(1, 41);
+            statement.setString(2, "1");
+            statement.executeQuery().close();
+        }
+    }
+}
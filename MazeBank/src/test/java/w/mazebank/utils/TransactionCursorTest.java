@@ -0,0 +1,29 @@
+package w.mazebank.utils;
+
+import org.junit.jupiter.api.Test;
+import w.mazebank.exceptions.InvalidCursorException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionCursorTest {
+    @Test
+    void encodedCursorDecodesToTheSamePosition() throws InvalidCursorException {
+        TransactionCursor cursor = new TransactionCursor(LocalDateTime.of(2023, 5, 30, 10, 30, 15, 123000000), 42);
+
+        String token = cursor.encode();
+
+        assertEquals(cursor, TransactionCursor.decode(token));
+        // the token is opaque and safe to put in a url
+        assertFalse(token.contains("|"));
+        assertFalse(token.contains("="));
+    }
+
+    @Test
+    void invalidTokensAreRejected() {
+        assertThrows(InvalidCursorException.class, () -> TransactionCursor.decode("not a cursor"));
+        assertThrows(InvalidCursorException.class, () -> TransactionCursor.decode("bm8tc2VwYXJhdG9y"));
+        assertThrows(InvalidCursorException.class, () -> TransactionCursor.decode("MjAyMy0wNS0zMHxhYmM"));
+    }
+}
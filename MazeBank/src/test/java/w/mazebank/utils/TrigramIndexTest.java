@@ -0,0 +1,57 @@
+package w.mazebank.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex();
+        index.put(1, List.of("John", "Doe", "john.doe@example.com"));
+        index.put(2, List.of("Jane", "Johnson", "jane@example.com"));
+        index.put(3, List.of("NL01INHO0000000003"));
+    }
+
+    @Test
+    void findsSubstringsCaseInsensitive() {
+        assertEquals(List.of(1L, 2L), index.search("JOHN", true, 0, 10));
+        assertEquals(List.of(3L), index.search("inho0000", true, 0, 10));
+    }
+
+    @Test
+    void matchesHaveToBeInOneValue() {
+        // "john" and "doe" are both in document 1, but never next to each other
+        assertEquals(List.of(), index.search("johndoe", true, 0, 10));
+        assertEquals(List.of(1L), index.search("john.doe", true, 0, 10));
+    }
+
+    @Test
+    void shortQueriesScanTheDocuments() {
+        assertEquals(List.of(1L, 2L), index.search("jo", true, 0, 10));
+        assertEquals(List.of(3L), index.search("nl", true, 0, 10));
+    }
+
+    @Test
+    void pagesInBothDirections() {
+        assertEquals(List.of(2L), index.search("example", true, 1, 10));
+        assertEquals(List.of(2L), index.search("example", false, 0, 1));
+        assertEquals(List.of(1L), index.search("example", false, 1, 1));
+    }
+
+    @Test
+    void updatesAndRemovesDocuments() {
+        index.put(1, List.of("Johnny", "Walker"));
+        assertEquals(List.of(1L), index.search("walker", true, 0, 10));
+        assertEquals(List.of(), index.search("doe", true, 0, 10));
+
+        index.remove(2);
+        assertEquals(List.of(1L), index.search("john", true, 0, 10));
+        assertEquals(2, index.size());
+    }
+}